@@ -0,0 +1,72 @@
+package ak.maven;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+* JMH benchmark for read-heavy traffic: availability reads running alongside a thread that keeps holding seats and giving them back
+* Readers either read the free seat count (numSeatsAvailable) or the shared AvailabilitySnapshot (getAvailability), which is only
+* rebuilt when the writer has changed the seats since it was last published
+* The group runs 7 readers to 1 writer by default; -tg changes the mix. Holds given back stay in the expiry wheel until they fall due,
+* so iterations are kept short and the venue is rebuilt for each one
+*/
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+	@Param({"10000"})
+	public int noOfSeats;
+
+	private TicketServiceImplementor ticketService;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		ticketService = new TicketServiceImplementor(new Venue(noOfSeats));
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		ticketService.close();
+	}
+
+	@Benchmark
+	@Group("count")
+	@GroupThreads(7)
+	public int readCount() {
+		return ticketService.numSeatsAvailable();
+	}
+
+	@Benchmark
+	@Group("count")
+	@GroupThreads(1)
+	public SeatHold writeWhileCounting() {
+		return holdAndGiveBack();
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(7)
+	public AvailabilitySnapshot readSnapshot() {
+		return ticketService.getAvailability();
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(1)
+	public SeatHold writeWhileSnapshotting() {
+		return holdAndGiveBack();
+	}
+
+	private SeatHold holdAndGiveBack() {
+		SeatHold hold = ticketService.findAndHoldSeats(4, "customer@example.com");
+		if(hold != null) {
+			ticketService.getVenue().removeHold(hold);
+		}
+		return hold;
+	}
+}
@@ -0,0 +1,38 @@
+package ak.maven;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+* Runs the benchmarks once for every thread count from 1 up to N (doubling each time, and N itself), and writes the results of each run
+* as JSON, so they can be compared between builds, e.g. to hold back a release whose throughput or latency got worse
+* Usage: java -jar target/benchmarks.jar [maxThreads] [resultsDirectory] [benchmarkRegex]
+* maxThreads defaults to the no. of processors, resultsDirectory to "results" and benchmarkRegex to all benchmarks
+* For anything else (profilers, fewer iterations etc.), the usual JMH command line is available through org.openjdk.jmh.Main
+*/
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		File resultsDirectory = new File(args.length > 1 ? args[1] : "results");
+		String include = args.length > 2 ? args[2] : ".*Benchmark.*";
+
+		resultsDirectory.mkdirs();
+
+		for(int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(2 * threads, maxThreads)) {
+			Options options = new OptionsBuilder()
+					.include(include)
+					.threads(threads)
+					.resultFormat(ResultFormatType.JSON)
+					.result(new File(resultsDirectory, "results-" + threads + "-threads.json").getPath())
+					.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package ak.maven;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+* JMH benchmark for expiry-heavy workloads: the cost of one sweep of the background reaper (Venue.expireDueHolds) when many holds fall due at once
+* Before every iteration a fresh venue is built on a ManualHoldClock, and two-seat holds covering the given share of its seats are added
+* with deadlines a few milliseconds ahead (so with 1,000,000 seats, 0.02, 2 and 20 percent make 100, 10,000 and 100,000 due holds)
+* The clock is then moved past them, so they are due without sleeping, and a single sweep that expires them all and frees up their seats is timed
+* The share is given rather than a no. of holds so that every combination of params fits in the venue
+* Holds that aren't due yet, taking up the rest of the given share of the venue, stay in the wheel so the sweep has to pass them over
+* The venue is used on its own, without a TicketServiceImplementor, so that no background reaper gets to the holds first
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(1)
+public class ExpiryBenchmark {
+
+	private static final long DUE_IN_MILLIS = 20;
+
+	@Param({"10000", "1000000"})
+	public int noOfSeats;
+
+	@Param({"0.02", "2", "20"})
+	public double percentOfSeatsDue;
+
+	@Param({"90"})
+	public int percentHeldUpFront;
+
+	private Venue venue;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+
+		if (percentHeldUpFront > 100 || percentOfSeatsDue <= 0 || percentOfSeatsDue > percentHeldUpFront) throw new IllegalArgumentException();
+
+		ManualHoldClock clock = new ManualHoldClock(System.currentTimeMillis());
+		venue = new Venue(noOfSeats, DUE_IN_MILLIS / 2, clock);
+
+		long dueSoon = clock.millis() + DUE_IN_MILLIS;
+		long notDue = venue.newHoldDeadlineInMillis();
+		LocalDateTime now = LocalDateTime.now();
+		int noOfDueHolds = Math.max(1, (int) (noOfSeats * percentOfSeatsDue / 200));
+		int noOfHolds = (int) ((long) noOfSeats * percentHeldUpFront / 200);
+
+		for(int i = 0; i < noOfHolds; i++) {
+			ArrayList<Integer> seats = new ArrayList<Integer>(Arrays.asList(2 * i + 1, 2 * i + 2));
+			SeatHold hold = new SeatHold(100000 + i, seats, "customer@example.com", now);
+			hold.setHoldDeadlineInMillis(i < noOfDueHolds ? dueSoon : notDue);
+			venue.addHold(hold);
+		}
+
+		clock.advance(3 * DUE_IN_MILLIS);
+	}
+
+	@Benchmark
+	public int expireDueHolds() {
+		venue.expireDueHolds();
+		return venue.getNoOfSeatsAvailable();
+	}
+}
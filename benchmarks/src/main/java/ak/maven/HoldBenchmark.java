@@ -0,0 +1,60 @@
+package ak.maven;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+* JMH benchmark for the hold path of TicketServiceImplementor (findAndHoldSeats) and for numSeatsAvailable
+* Each invocation holds a party's seats and gives them straight back, so the venue stays in the same state from one invocation to the next
+* Before every iteration a fresh venue is built and a backlog of two-seat holds is placed, taking up the given share of the venue,
+* so the cost can be compared between empty and nearly sold out venues of every size
+* Holds given back stay in the expiry wheel until they fall due, so iterations are kept short and the venue is rebuilt for each one
+* All threads share one service, so running with more threads (-t, or BenchmarkRunner) measures contention between customers
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class HoldBenchmark {
+
+	@Param({"50", "10000", "1000000"})
+	public int noOfSeats;
+
+	@Param({"0", "50", "90"})
+	public int percentHeldUpFront;
+
+	@Param({"4"})
+	public int partySize;
+
+	private TicketServiceImplementor ticketService;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		ticketService = new TicketServiceImplementor(new Venue(noOfSeats));
+		for(int backlog = noOfSeats * percentHeldUpFront / 100; backlog >= 2; backlog -= 2) {
+			ticketService.findAndHoldSeats(2, "backlog@example.com");
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		ticketService.close();
+	}
+
+	@Benchmark
+	public SeatHold findAndHoldSeats() {
+		SeatHold hold = ticketService.findAndHoldSeats(partySize, "customer@example.com");
+		if(hold != null) {
+			ticketService.getVenue().removeHold(hold);
+		}
+		return hold;
+	}
+
+	@Benchmark
+	public int numSeatsAvailable() {
+		return ticketService.numSeatsAvailable();
+	}
+}
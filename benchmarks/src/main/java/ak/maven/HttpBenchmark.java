@@ -0,0 +1,88 @@
+package ak.maven;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+* JMH benchmark for TicketHttpServer over loopback: checking availability, and holding seats then giving them back
+* Every benchmark thread is a client with a keep-alive connection of its own, so running with more threads (-t, or BenchmarkRunner)
+* shows how the server scales with the no. of concurrent connections
+* Each hold is given straight back, so the venue stays in the same state from one call to the next
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HttpBenchmark {
+
+	private static final byte[] HOLD_FORM = "seats=2&email=customer%40example.com".getBytes(StandardCharsets.UTF_8);
+
+	private TicketServiceImplementor ticketService;
+	private TicketHttpServer server;
+	private URL seatsURL;
+	private URL holdsURL;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		ticketService = new TicketServiceImplementor(new Venue(1000000));
+		server = new TicketHttpServer(ticketService, new InetSocketAddress("127.0.0.1", 0));
+		server.start();
+		seatsURL = new URL("http://127.0.0.1:" + server.getPort() + "/seats");
+		holdsURL = new URL("http://127.0.0.1:" + server.getPort() + "/holds");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.close();
+		ticketService.close();
+	}
+
+	@Benchmark
+	public String getSeats() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) seatsURL.openConnection();
+		return readResponse(connection);
+	}
+
+	@Benchmark
+	public String postHold() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) holdsURL.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try(OutputStream out = connection.getOutputStream()) {
+			out.write(HOLD_FORM);
+		}
+		String response = readResponse(connection);
+		int id = response.indexOf("\"seatHoldId\":");
+		if(id >= 0) {   // give the seats back, so the venue doesn't sell out during the trial
+			int start = id + "\"seatHoldId\":".length();
+			int seatHoldID = Integer.parseInt(response.substring(start, response.indexOf(',', start)));
+			ticketService.getVenue().getSeatHoldByID(seatHoldID).ifPresent(ticketService.getVenue()::removeHold);
+		}
+		return response;
+	}
+
+	/**
+	 * Reads the whole response, so the connection goes back to the keep-alive cache for the next call on this thread
+	 */
+	private static String readResponse(HttpURLConnection connection) throws IOException {
+		try(InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+			byte[] buffer = new byte[512];
+			for(int n; (n = in.read(buffer)) > 0; ) {
+				body.write(buffer, 0, n);
+			}
+			return new String(body.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
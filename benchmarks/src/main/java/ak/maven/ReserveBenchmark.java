@@ -0,0 +1,65 @@
+package ak.maven;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+* JMH benchmark for the reserve path of TicketServiceImplementor (reserveSeats)
+* Reserved seats never come back, so a venue can only take so many reservations. Each iteration is therefore a single shot:
+* a fresh venue is built with a backlog of holds taking up the given share of the venue, a batch of holds is placed for every thread,
+* and the time taken to reserve the batch is measured. The reported time is per batch; divide by the batch size for the time per reservation
+* A thread that finds no hold left to reserve (a venue too small for the no. of threads) does nothing for that invocation
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = ReserveBenchmark.BATCH_SIZE)
+@Measurement(iterations = 50, batchSize = ReserveBenchmark.BATCH_SIZE)
+@Fork(1)
+public class ReserveBenchmark {
+
+	static final int BATCH_SIZE = 10;
+
+	@Param({"50", "10000", "1000000"})
+	public int noOfSeats;
+
+	@Param({"0", "50", "90"})
+	public int percentHeldUpFront;
+
+	@Param({"2"})
+	public int partySize;
+
+	private TicketServiceImplementor ticketService;
+	private ConcurrentLinkedQueue<SeatHold> holdsToReserve;
+
+	@Setup(Level.Iteration)
+	public void setUp(BenchmarkParams params) {
+		ticketService = new TicketServiceImplementor(new Venue(noOfSeats));
+		holdsToReserve = new ConcurrentLinkedQueue<SeatHold>();
+
+		int seatsForBatches = params.getThreads() * BATCH_SIZE * partySize;
+		int backlog = Math.min(noOfSeats * percentHeldUpFront / 100, noOfSeats - seatsForBatches);
+		for(; backlog >= 2; backlog -= 2) {
+			ticketService.findAndHoldSeats(2, "backlog@example.com");
+		}
+
+		SeatHold hold;
+		for(int i = 0; i < params.getThreads() * BATCH_SIZE && (hold = ticketService.findAndHoldSeats(partySize, "customer@example.com")) != null; i++) {
+			holdsToReserve.add(hold);
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		ticketService.close();
+	}
+
+	@Benchmark
+	public String reserveSeats() {
+		SeatHold hold = holdsToReserve.poll();
+		return hold == null ? null : ticketService.reserveSeats(hold.getSeatHoldID(), hold.getCustomerEmail());
+	}
+}
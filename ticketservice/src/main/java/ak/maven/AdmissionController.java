@@ -0,0 +1,268 @@
+package ak.maven;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+* This class is an admission layer in front of a TicketService, so that a flood of calls (e.g. a bot trying every party size) can't
+* starve real customers: every call that changes the venue is checked against a rate limit for its customer, and against a limit on
+* the no. of calls the service is working on at once, before it gets to the service
+* Each customer (by email, ignoring case) has a token bucket, refilled at the given rate up to the given burst. A bucket is a single
+* long, the time its next token would be due (the generic cell rate algorithm), taken with compare-and-swap, so callers never lock
+* Calls that can't be admitted are turned away straight away, rather than queued, with a RejectedExecutionException: a RateLimitedException
+* if the customer is over their rate, and an OverloadedException if the service is working on too many calls. So the
+* service keeps working through the calls it has taken at its usual latency instead of slowing down for all of them
+* Buckets of customers idle long enough to have all their tokens back are dropped once a second by a background task, so calls never
+* pay for it. No more than maxNoOfBuckets customers have a bucket at once: while that many do, calls of customers without one are
+* turned away as over their rate, so a flood of made up emails can't run the heap out
+* All admission controllers share a single daemon sweeper thread, which doesn't keep the application from exiting
+* numSeatsAvailable doesn't change anything and never blocks, so it's answered without admission
+*/
+public class AdmissionController implements TicketService, AutoCloseable {
+
+	private static final long SWEEP_INTERVAL_IN_MILLIS = 1000;
+
+	private static final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "admission-sweeper");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final TicketService service;
+	private final HoldClock clock;
+	private final long intervalInMicros;  // time for one token to come back
+	private final long burstInMicros;  // how far ahead of now a bucket may run, i.e. burst tokens' worth
+	private final int maxConcurrentCalls;
+	private final int maxNoOfBuckets;
+	private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<String, AtomicLong>();  // time the next token is due, in micros on the clock
+	private final AtomicInteger noOfCallsInFlight = new AtomicInteger();
+	private final AtomicLong noOfCallsRateLimited = new AtomicLong();
+	private final AtomicLong noOfCallsOverloaded = new AtomicLong();
+
+	private final String rateLimitedMessage = "Too many requests. Please try again shortly";
+	private final String overloadedMessage = "The service is busy. Please try again shortly";
+
+	private final ScheduledFuture<?> sweepTask;
+
+	/**
+	 * Constructor
+	 * @param service TicketService to admit calls to
+	 * @param callsPerSecondPerCustomer Rate at which a customer's tokens come back
+	 * @param burstPerCustomer Max no. of calls a customer can make at once, after being idle
+	 * @param maxConcurrentCalls Max no. of calls (of all customers) the service works on at once
+	 */
+	public AdmissionController(TicketService service, int callsPerSecondPerCustomer, int burstPerCustomer, int maxConcurrentCalls) {
+		this(service, callsPerSecondPerCustomer, burstPerCustomer, maxConcurrentCalls, HoldClock.MONOTONIC);
+	}
+
+	/**
+	 * Constructor
+	 * @param service TicketService to admit calls to
+	 * @param callsPerSecondPerCustomer Rate at which a customer's tokens come back
+	 * @param burstPerCustomer Max no. of calls a customer can make at once, after being idle
+	 * @param maxConcurrentCalls Max no. of calls (of all customers) the service works on at once
+	 * @param clock Clock the buckets are refilled by, e.g. a ManualHoldClock in tests
+	 */
+	public AdmissionController(TicketService service, int callsPerSecondPerCustomer, int burstPerCustomer, int maxConcurrentCalls, HoldClock clock) {
+		this(service, callsPerSecondPerCustomer, burstPerCustomer, maxConcurrentCalls, clock, 1 << 20);
+	}
+
+	/**
+	 * Constructor. Starts dropping idle customers' buckets in the background right away
+	 * @param service TicketService to admit calls to
+	 * @param callsPerSecondPerCustomer Rate at which a customer's tokens come back
+	 * @param burstPerCustomer Max no. of calls a customer can make at once, after being idle
+	 * @param maxConcurrentCalls Max no. of calls (of all customers) the service works on at once
+	 * @param clock Clock the buckets are refilled by, e.g. a ManualHoldClock in tests
+	 * @param maxNoOfBuckets Max no. of customers with a bucket at once
+	 */
+	public AdmissionController(TicketService service, int callsPerSecondPerCustomer, int burstPerCustomer, int maxConcurrentCalls, HoldClock clock, int maxNoOfBuckets) {
+
+		if (callsPerSecondPerCustomer < 1 || callsPerSecondPerCustomer > 1000000 || burstPerCustomer < 1 || maxConcurrentCalls < 1 || maxNoOfBuckets < 1) throw new IllegalArgumentException();
+
+		this.service = service;
+		this.clock = clock;
+		this.intervalInMicros = 1000000 / callsPerSecondPerCustomer;
+		this.burstInMicros = intervalInMicros * burstPerCustomer;
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.maxNoOfBuckets = maxNoOfBuckets;
+		this.sweepTask = sweeper.scheduleWithFixedDelay(HelperMethods.reportingFailures(this::sweep), SWEEP_INTERVAL_IN_MILLIS, SWEEP_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets the number of 'Available' seats from the service, without admission
+	 * @return the number of seats available
+	 */
+	public int numSeatsAvailable() {
+		return service.numSeatsAvailable();
+	}
+
+	/**
+	 * Finds and holds seats through the service, if the call is admitted
+	 * @param numSeats number of seats requested to be held
+	 * @param customerEmail email address of the person making the request
+	 * @return a SeatHold object, or null if not enough seats are available
+	 * @throws RejectedExecutionException if the customer is over their rate, or the service is working on too many calls
+	 */
+	public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+		return call(customerEmail, () -> service.findAndHoldSeats(numSeats, customerEmail));
+	}
+
+	/**
+	 * Reserves seats through the service, if the call is admitted
+	 * @param seatHoldId ID of the SeatHold object
+	 * @param customerEmail email address of the person making the request
+	 * @return a confirmation code, or an appropriate error message
+	 * @throws RejectedExecutionException if the customer is over their rate, or the service is working on too many calls
+	 */
+	public String reserveSeats(int seatHoldId, String customerEmail) {
+		return call(customerEmail, () -> service.reserveSeats(seatHoldId, customerEmail));
+	}
+
+	/**
+	 * Runs any call for a customer, if it's admitted: the customer has a token left and the service isn't working on too many calls
+	 * A token is spent even if the call is then turned away for the service being busy, so retrying in a loop doesn't pay
+	 * @param customerEmail email address of the customer the call is made for
+	 * @param call call to run
+	 * @return the call's result
+	 * @throws RateLimitedException if the customer is over their rate
+	 * @throws OverloadedException if the service is working on too many calls
+	 */
+	public <T> T call(String customerEmail, Supplier<T> call) {
+
+		if(!tryTakeToken(customerEmail)) {
+			noOfCallsRateLimited.incrementAndGet();
+			throw new RateLimitedException(rateLimitedMessage);
+		}
+
+		if(noOfCallsInFlight.incrementAndGet() > maxConcurrentCalls) {
+			noOfCallsInFlight.decrementAndGet();
+			noOfCallsOverloaded.incrementAndGet();
+			throw new OverloadedException(overloadedMessage);
+		}
+
+		try {
+			return call.get();
+		}
+		finally {
+			noOfCallsInFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Takes a token from the customer's bucket. The bucket holds the time its next token is due: taking a token moves it on by one
+	 * interval, which is allowed as long as it doesn't run more than a burst ahead of now
+	 */
+	private boolean tryTakeToken(String customerEmail) {
+
+		long now = clock.millis() * 1000;
+
+		String key = customerEmail == null ? "" : customerEmail.toLowerCase(Locale.ROOT);
+		AtomicLong bucket = buckets.get(key);   // get first, since computeIfAbsent may lock even when the key is there
+		if(bucket == null) {
+			if(buckets.mappingCount() >= maxNoOfBuckets) {   // may go over by the no. of customers added at the same moment
+				return false;
+			}
+			AtomicLong created = new AtomicLong(now);
+			bucket = buckets.putIfAbsent(key, created);
+			bucket = bucket == null ? created : bucket;
+		}
+
+		while(true) {
+			long due = bucket.get();
+			long next = Math.max(due, now) + intervalInMicros;
+			if(next - now > burstInMicros) {
+				return false;
+			}
+			if(bucket.compareAndSet(due, next)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Drops the buckets of customers who have been idle long enough to have all their tokens back, so one-off customers (or made up
+	 * emails) don't pile up. A customer whose bucket is dropped just gets a full one again
+	 * Runs once a second in the background. It can also be called to drop idle buckets right away
+	 */
+	public void sweep() {
+		long now = clock.millis() * 1000;
+		buckets.values().removeIf(bucket -> bucket.get() <= now);
+	}
+
+	/**
+	 * Stops dropping idle buckets in the background. Calls are still admitted as before
+	 */
+	@Override
+	public void close() {
+		sweepTask.cancel(false);
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public TicketService getService() {
+		return service;
+	}
+
+	public int getNoOfCallsInFlight() {
+		return noOfCallsInFlight.get();
+	}
+
+	public long getNoOfCallsRateLimited() {
+		return noOfCallsRateLimited.get();
+	}
+
+	public long getNoOfCallsOverloaded() {
+		return noOfCallsOverloaded.get();
+	}
+
+	public int getMaxNoOfBuckets() {
+		return maxNoOfBuckets;
+	}
+
+	public int getNoOfBuckets() {
+		return buckets.size();
+	}
+
+	public String getRateLimitedMessage() {
+		return rateLimitedMessage;
+	}
+
+	public String getOverloadedMessage() {
+		return overloadedMessage;
+	}
+
+	/**
+	 * Thrown when a call is turned away because its customer is over their rate
+	 */
+	public static final class RateLimitedException extends RejectedExecutionException {
+
+		private static final long serialVersionUID = 1L;
+
+		private RateLimitedException(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * Thrown when a call is turned away because the service is working on too many calls
+	 */
+	public static final class OverloadedException extends RejectedExecutionException {
+
+		private static final long serialVersionUID = 1L;
+
+		private OverloadedException(String message) {
+			super(message);
+		}
+	}
+}
@@ -1,12 +1,26 @@
 package ak.maven;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 
+import javax.management.JMException;
+
 /**
  * This class is the entry point for the app execution, through the public static void main(String[] args) method
  * The class does the job of handling interactive command line interface with the end user
+ * Run with 'load' as the first argument, it instead drives simulated on-sale traffic against the service without any interaction (see LoadGenerator),
+ * e.g. mvn exec:java -Dexec.args="load seats=100000 customers=200000 rate=20000 party=1-6 reserve=0.7 think=2000 threads=8"
+ * Given wal=folder as well, the load runs against a venue recovered from (and logged to) a WriteAheadLog in that folder, and given
+ * snapshots=folder too, from the latest snapshot in that folder, with a new snapshot taken every 10 seconds
+ * Run with 'http' as the first argument, it serves the service over HTTP instead (see TicketHttpServer), e.g. mvn exec:java -Dexec.args="http port=8080 seats=1000"
+ * In all cases the service's metrics are registered as a JMX MBean (ak.maven:type=TicketService,name="AppRunner"), e.g. to watch them with jconsole
  */
 public class AppRunner {
 
@@ -19,7 +33,18 @@ public class AppRunner {
 	 */
 	public static void main(String[] args) {
 		
+		if(args.length > 0 && args[0].equals("load")) {
+			runLoad(args);
+			return;
+		}
+		
+		if(args.length > 0 && args[0].equals("http")) {
+			runHttp(args);
+			return;
+		}
+		
 		TicketServiceImplementor tsinstance = new TicketServiceImplementor(new Venue(50));
+		publishMetrics(tsinstance, 10000, null);
 		
 		String userInput;
 		sn = new Scanner(System.in);
@@ -34,7 +59,8 @@ public class AppRunner {
 		    System.out.println("|        1. Hold seats                   |");
 		    System.out.println("|        2. Reserve Seats                |");
 		    System.out.println("|        3. Find No. of seats available  |");	    
-		    System.out.println("|        4. Exit                         |");
+		    System.out.println("|        4. Cancel a reservation         |");
+		    System.out.println("|        5. Exit                         |");
 		    System.out.println("==========================================");
 		    System.out.println("Enter your choice: ");
 			
@@ -94,7 +120,10 @@ public class AppRunner {
 					
 					else {
 						SeatHold s = tsinstance.findAndHoldSeats(noOfSeatsInt, emailAddress);
-						if(s == null) {
+						if(s == null && tsinstance.isOverCustomerLimit(noOfSeatsInt, emailAddress)) {
+							System.out.println(tsinstance.getVenue().getCustomerLimitReachedMessage());
+						}
+						else if(s == null) {
 							System.out.println("Something went wrong during the hold operation. Please try again.");
 						}
 							
@@ -153,9 +182,10 @@ public class AppRunner {
 							break;
 						}
 						
-						else if(tsinstance.isValidHoldID(holdIDInt)) {
-							Optional<SeatHold> sh = tsinstance.getVenue().getSeatHoldByID(holdIDInt);
-							String reservationCode = tsinstance.reserveSeats(holdIDInt, sh.get().getCustomerEmail());
+						Optional<SeatHold> sh = tsinstance.getVenue().getSeatHoldByID(holdIDInt);   // read once, since the reaper may expire it at any time
+						String reservationCode = sh.isPresent() ? tsinstance.reserveSeats(holdIDInt, sh.get().getCustomerEmail()) : tsinstance.getVenue().getHoldNotFoundMessage();
+						
+						if(tsinstance.isReservationMade(reservationCode)) {
 							System.out.println(tsinstance.getVenue().getReservationSuccessMessage());
 							System.out.println("-------------------------------------------------------");
 							System.out.println("Reservation details are below:");
@@ -167,7 +197,7 @@ public class AppRunner {
 						}
 						
 						else {							
-							System.out.println(tsinstance.getVenue().getHoldNotFoundMessage());
+							System.out.println(reservationCode);   // expired or gone since it was checked
 							System.out.println("-------------------------------------------------------");
 						}
 					}
@@ -183,6 +213,12 @@ public class AppRunner {
 				break;
 				
 			case "4":
+				System.out.println("Please provide the confirmation code of the reservation:");
+				String confirmationCode = sn.next();
+				System.out.println(tsinstance.cancelReservation(confirmationCode));
+				break;
+				
+			case "5":
 				System.out.println("Exiting...");
 				System.exit(0);
 				
@@ -192,4 +228,137 @@ public class AppRunner {
 			}
 		}
 	}
-}
+	
+	/**
+	 * Runs the load generator and prints its report. Settings are given as name=value arguments, and anything left out takes its default:
+	 * seats (10000), customers (50000), rate (customers arriving per second, 10000), party (seats per customer, min-max, 1-6),
+	 * reserve (chance a customer reserves rather than walks away, 0.8), think (average milliseconds between hold and reservation, 1000),
+	 * threads (worker threads, no. of processors), and limit (max seats per customer, none by default)
+	 * @param args 'load' followed by the settings
+	 */
+	private static void runLoad(String[] args) {
+		
+		Map<String, String> settings = parseSettings(args);
+		
+		String[] partySize = settings.getOrDefault("party", "1-6").split("-", 2);
+		
+		int noOfSeats = Integer.parseInt(settings.getOrDefault("seats", "10000"));
+		Venue venue = new Venue(noOfSeats);
+		if(settings.containsKey("limit")) {
+			venue.setMaxSeatsPerCustomer(Integer.parseInt(settings.get("limit")));
+		}
+		
+		try(WriteAheadLog log = settings.containsKey("wal") ? new WriteAheadLog(Paths.get(settings.get("wal")), 64L << 20) : null;
+				VenueSnapshotter snapshots = log != null && settings.containsKey("snapshots") ? new VenueSnapshotter(Paths.get(settings.get("snapshots")), log, () -> new Venue(noOfSeats)) : null;
+				TicketServiceImplementor tsinstance = new TicketServiceImplementor(recover(venue, log, snapshots))) {   // closed before the log, so the reaper stops appending first
+			LoadGenerator generator = new LoadGenerator(tsinstance,
+					Integer.parseInt(settings.getOrDefault("customers", "50000")),
+					Double.parseDouble(settings.getOrDefault("rate", "10000")),
+					Integer.parseInt(partySize[0]),
+					Integer.parseInt(partySize[partySize.length - 1]),
+					Double.parseDouble(settings.getOrDefault("reserve", "0.8")),
+					Long.parseLong(settings.getOrDefault("think", "1000")),
+					Integer.parseInt(settings.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+			
+			publishMetrics(tsinstance, 1000, snapshot -> System.out.println(snapshot));
+			if(snapshots != null) {
+				snapshots.start(10000);
+			}
+			System.out.println("Running load with " + settings);
+			long elapsed = generator.run();
+			generator.printReport(System.out, elapsed);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch(IllegalArgumentException e) {
+			System.out.println("Invalid load settings: " + settings);
+		}
+		catch(IOException e) {
+			System.out.println("Couldn't use the log in " + settings.get("wal") + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Serves the TicketService over HTTP (see TicketHttpServer) until Enter is pressed. Settings are given as name=value arguments:
+	 * port (8080), seats (50) and limit (max seats per customer, none by default). Given rate (calls per second per customer), holds and
+	 * reservations go through an AdmissionController, with burst (calls a customer can make at once, rate by default) and concurrency
+	 * (calls worked on at once, 1024 by default)
+	 * @param args 'http' followed by the settings
+	 */
+	private static void runHttp(String[] args) {
+		
+		Map<String, String> settings = parseSettings(args);
+		
+		try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(newVenue(settings));
+				AdmissionController admission = newAdmissionController(tsinstance, settings);
+				TicketHttpServer server = new TicketHttpServer(tsinstance, admission, new InetSocketAddress(Integer.parseInt(settings.getOrDefault("port", "8080"))))) {
+			publishMetrics(tsinstance, 10000, null);
+			server.start();
+			System.out.println("Listening on http://localhost:" + server.getPort() + "/seats, /holds and /reservations. Press Enter to stop");
+			new Scanner(System.in).nextLine();
+		}
+		catch(IOException e) {
+			System.out.println("Couldn't start the HTTP server: " + e.getMessage());
+		}
+		catch(IllegalArgumentException e) {
+			System.out.println("Invalid settings: " + settings);
+		}
+	}
+	
+	private static AdmissionController newAdmissionController(TicketService service, Map<String, String> settings) {
+		if(!settings.containsKey("rate")) {
+			return null;
+		}
+		return new AdmissionController(service, Integer.parseInt(settings.get("rate")),
+				Integer.parseInt(settings.getOrDefault("burst", settings.get("rate"))),
+				Integer.parseInt(settings.getOrDefault("concurrency", "1024")));
+	}
+	
+	private static Venue newVenue(Map<String, String> settings) {
+		Venue venue = new Venue(Integer.parseInt(settings.getOrDefault("seats", "50")));
+		if(settings.containsKey("limit")) {
+			venue.setMaxSeatsPerCustomer(Integer.parseInt(settings.get("limit")));
+		}
+		return venue;
+	}
+	
+	private static Map<String, String> parseSettings(String[] args) {
+		Map<String, String> settings = new HashMap<String, String>();
+		for(int i = 1; i < args.length; i++) {
+			String[] setting = args[i].split("=", 2);
+			if(setting.length != 2) {
+				System.out.println("Ignoring '" + args[i] + "': settings are given as name=value");
+				continue;
+			}
+			settings.put(setting[0], setting[1]);
+		}
+		return settings;
+	}
+	
+	private static Venue recover(Venue venue, WriteAheadLog log, VenueSnapshotter snapshots) throws IOException {
+		if(log != null) {
+			long start = System.nanoTime();
+			venue.recover(log, snapshots);
+			System.out.println("Recovered in " + (System.nanoTime() - start) / 1000000 + " ms");
+			System.out.println("Recovered " + venue.getNoOfSeatHolds() + " holds and " + venue.getNoOfReservations() + " reservations from the log");
+		}
+		return venue;
+	}
+	
+	/**
+	 * Registers the service's metrics as a JMX MBean, and has a snapshot taken every so often for the MBean's latencies
+	 * @param tsinstance service whose metrics are published
+	 * @param periodInMillis How often a snapshot is taken, in milliseconds
+	 * @param listener Listener given each snapshot, or null
+	 */
+	private static void publishMetrics(TicketServiceImplementor tsinstance, long periodInMillis, Consumer<MetricsSnapshot> listener) {
+		try {
+			tsinstance.getMetrics().registerMBean("AppRunner");
+		}
+		catch(JMException e) {
+			System.out.println("Couldn't register the metrics MBean: " + e.getMessage());
+		}
+		tsinstance.getMetrics().startSnapshots(periodInMillis, listener);
+	}
+}
\ No newline at end of file
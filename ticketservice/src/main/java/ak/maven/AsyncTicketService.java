@@ -0,0 +1,34 @@
+package ak.maven;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+* Asynchronous companion of TicketService: calls return straight away, with a CompletableFuture of the result
+* A future may complete exceptionally with a RejectedExecutionException if the service is too busy to take the call (or is closed)
+*/
+public interface AsyncTicketService {
+/**
+* The number of seats in the venue that are neither held nor reserved
+*
+* @return the number of tickets available in the venue
+*/
+ CompletableFuture<Integer> numSeatsAvailable();
+
+/**
+* Find and hold the best available seats for a customer
+*
+* @param numSeats the number of seats to find and hold
+* @param customerEmail unique identifier for the customer
+* @return a CompletableFuture of a SeatHold object identifying the specific seats and related information, or of null if not enough seats are available
+*/
+ CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail);
+
+/**
+* Commit seats held for a specific customer
+*
+* @param seatHoldId the seat hold identifier
+* @param customerEmail the email address of the customer to which the seat hold is assigned
+* @return a CompletableFuture of a reservation confirmation code, or of an error message
+*/
+ CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail);
+}
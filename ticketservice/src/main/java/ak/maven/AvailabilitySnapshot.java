@@ -0,0 +1,56 @@
+package ak.maven;
+
+import java.util.Objects;
+
+/**
+* This class holds the availability of a venue at one version of its free seat count, as published by Venue.getAvailability
+* The version is moved on by every hold, release, reservation or cancellation that changes the no. of free seats, so two snapshots
+* with the same version have the same no. of seats available, and a reader can tell a snapshot is current from a single read
+* Section counts are read after the total, without a lock, so they can briefly trail it by the seats of holds being made right now
+* Objects of this class don't change once taken, so any no. of readers can share one
+*/
+public final class AvailabilitySnapshot {
+
+	private final long version;
+	private final int seatsAvailable;
+	private final String[] sectionNames;
+	private final int[] seatsAvailableInSections;
+
+	AvailabilitySnapshot(long version, int seatsAvailable, String[] sectionNames, int[] seatsAvailableInSections) {
+		this.version = version;
+		this.seatsAvailable = seatsAvailable;
+		this.sectionNames = sectionNames;
+		this.seatsAvailableInSections = seatsAvailableInSections;
+	}
+
+	/**
+	 * No. of seats available in a section
+	 * @param sectionName Name of the section
+	 * @return No. of seats available, or 0 if there is no such section
+	 */
+	public int getSeatsAvailable(String sectionName) {
+		for(int i = 0; i < sectionNames.length; i++) {
+			if(Objects.equals(sectionNames[i], sectionName)) {
+				return seatsAvailableInSections[i];
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		return "version=" + version + ", available=" + seatsAvailable;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int getSeatsAvailable() {
+		return seatsAvailable;
+	}
+}
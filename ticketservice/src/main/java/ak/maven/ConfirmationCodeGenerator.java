@@ -0,0 +1,126 @@
+package ak.maven;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* This class issues reservation confirmation codes that are unique by construction, so no record of issued codes is needed
+* Code number N is the sequence number N run through a keyed FeistelPermutation of all codes of that length, written out
+* in base 62 (the symbols in HelperMethods.ALPHANUMERIC_SYMBOLS). Since the shuffle is one-to-one, no two codes are the same
+* until every code of that length has been issued, and the codes don't give away how many reservations were made
+* Issuing a code costs the same however many codes came before it. The class is thread-safe
+* The key and the no. of codes issued are all it takes to carry on where a generator left off, e.g. after a restart (see Venue.recover)
+*/
+public class ConfirmationCodeGenerator {
+
+	private static final int BASE = HelperMethods.ALPHANUMERIC_SYMBOLS.length();
+
+	private final int lengthOfCode;
+	private final long key;
+	private final FeistelPermutation permutation;
+	private final AtomicLong sequence;
+
+	/**
+	 * Constructor. The shuffle is keyed randomly
+	 * @param lengthOfCode No. of characters in each code (2 to 10)
+	 */
+	public ConfirmationCodeGenerator(int lengthOfCode) {
+		this(lengthOfCode, new SecureRandom().nextLong());
+	}
+
+	/**
+	 * Constructor
+	 * @param lengthOfCode No. of characters in each code (2 to 10)
+	 * @param key key for the shuffle
+	 */
+	public ConfirmationCodeGenerator(int lengthOfCode, long key) {
+
+		if (lengthOfCode < 2 || lengthOfCode > 10) throw new IllegalArgumentException();
+
+		long noOfCodes = 1;
+		for(int i = 0; i < lengthOfCode; i++) {
+			noOfCodes *= BASE;
+		}
+
+		this.lengthOfCode = lengthOfCode;
+		this.key = key;
+		this.permutation = new FeistelPermutation(noOfCodes, key);
+		this.sequence = new AtomicLong();
+	}
+
+	/**
+	 * Issues the next confirmation code
+	 * @return an alphanumeric code of the configured length
+	 */
+	public String nextCode() {
+		long n = permutation.permute(Math.floorMod(sequence.getAndIncrement(), permutation.getDomainSize()));
+		return encode(n);
+	}
+
+	/**
+	 * Works out the sequence number a code was issued with, e.g. to tell a real code from a made-up one
+	 * @param code confirmation code
+	 * @return the sequence number, or -1 if the string isn't a code of the configured length
+	 */
+	public long decode(String code) {
+
+		if(code == null || code.length() != lengthOfCode) {
+			return -1;
+		}
+
+		long n = 0;
+		for(int i = 0; i < lengthOfCode; i++) {
+			int digit = HelperMethods.ALPHANUMERIC_SYMBOLS.indexOf(code.charAt(i));
+			if(digit < 0) {
+				return -1;
+			}
+			n = n * BASE + digit;
+		}
+		return permutation.inverse(n);
+	}
+
+	/**
+	 * Moves the sequence on past a code issued earlier with the same key, so it isn't issued again. Does nothing if the sequence is
+	 * already past it, or the string isn't a code of the configured length
+	 * @param code confirmation code
+	 */
+	public void skipPast(String code) {
+		long n = decode(code);
+		if(n >= 0) {
+			skipTo(n + 1);
+		}
+	}
+
+	/**
+	 * Moves the sequence on to the given no. of codes issued, unless it's already past it
+	 * @param noOfCodesIssued no. of codes issued earlier with the same key
+	 */
+	public void skipTo(long noOfCodesIssued) {
+		sequence.accumulateAndGet(noOfCodesIssued, Math::max);
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * No. of codes issued so far
+	 * @return count of codes
+	 */
+	public long getNoOfCodesIssued() {
+		return sequence.get();
+	}
+
+	private String encode(long n) {
+		char[] code = new char[lengthOfCode];
+		for(int i = lengthOfCode - 1; i >= 0; i--) {
+			code[i] = HelperMethods.ALPHANUMERIC_SYMBOLS.charAt((int) (n % BASE));
+			n /= BASE;
+		}
+		return new String(code);
+	}
+}
@@ -0,0 +1,207 @@
+package ak.maven;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+* This class indexes active holds and reservations by customer email, and keeps a running count of each customer's seats,
+* so that a customer's holds can be found and a per-customer seat limit checked without scanning every hold and reservation
+* Emails are matched ignoring case (a null email is indexed as an empty one). Every change to a customer is made atomically on
+* the customer's entry in a concurrent hash map, so it costs one hash lookup and customers never wait for each other
+* A customer's count is the seats of their active holds and reservations, plus the seats being claimed for them right now (see tryClaim),
+* so concurrent requests from the same customer can't together go over the limit. Customers with nothing left are dropped from the index
+*/
+public class CustomerIndex {
+
+	private final ConcurrentHashMap<String, Customer> customers = new ConcurrentHashMap<String, Customer>();
+
+	/**
+	 * Counts seats that are about to be claimed for a customer, if they keep the customer within the limit
+	 * Must be followed by unclaim once the hold is registered (or has failed)
+	 * @param customerEmail Email address of the customer
+	 * @param numSeats No. of seats being claimed
+	 * @param maxSeats Max no. of seats a customer may hold and reserve
+	 * @return true if the seats were counted, false if they would take the customer over the limit
+	 */
+	public boolean tryClaim(String customerEmail, int numSeats, int maxSeats) {
+		boolean[] claimed = new boolean[1];
+		customers.compute(keyOf(customerEmail), (k, c) -> {
+			if(c == null) {
+				c = new Customer();
+			}
+			if((long) c.noOfSeats() + numSeats <= maxSeats) {
+				c.noOfSeatsClaimed += numSeats;
+				claimed[0] = true;
+			}
+			return c.isEmpty() ? null : c;
+		});
+		return claimed[0];
+	}
+
+	/**
+	 * Stops counting seats counted by tryClaim
+	 * @param customerEmail Email address of the customer
+	 * @param numSeats No. of seats claimed
+	 */
+	public void unclaim(String customerEmail, int numSeats) {
+		customers.computeIfPresent(keyOf(customerEmail), (k, c) -> {
+			c.noOfSeatsClaimed -= numSeats;
+			return c.isEmpty() ? null : c;
+		});
+	}
+
+	/**
+	 * Indexes a hold that has been made
+	 * @param seatHold SeatHold object
+	 */
+	public void addHold(SeatHold seatHold) {
+		customers.compute(keyOf(seatHold.getCustomerEmail()), (k, c) -> {
+			if(c == null) {
+				c = new Customer();
+			}
+			if(c.seatHolds.put(seatHold.getSeatHoldID(), seatHold) == null) {
+				c.noOfSeatsHeld += seatHold.getSeatIDsHeld().size();
+			}
+			return c;
+		});
+	}
+
+	/**
+	 * Drops a hold that has expired or been released. Nothing changes if it isn't the hold indexed against its ID
+	 * @param seatHold SeatHold object
+	 */
+	public void removeHold(SeatHold seatHold) {
+		customers.computeIfPresent(keyOf(seatHold.getCustomerEmail()), (k, c) -> {
+			if(c.seatHolds.get(seatHold.getSeatHoldID()) == seatHold) {
+				c.seatHolds.remove(seatHold.getSeatHoldID());
+				c.noOfSeatsHeld -= seatHold.getSeatIDsHeld().size();
+			}
+			return c.isEmpty() ? null : c;
+		});
+	}
+
+	/**
+	 * Indexes a reservation, and drops the hold it was made from in the same step, so the customer's count never dips in between
+	 * @param reservation Reservation object
+	 * @param seatHoldID ID of the hold that was reserved, or 0 if the seats weren't held
+	 */
+	public void addReservation(Reservation reservation, int seatHoldID) {
+		customers.compute(keyOf(reservation.getCustomerEmail()), (k, c) -> {
+			if(c == null) {
+				c = new Customer();
+			}
+			SeatHold seatHold = seatHoldID == 0 ? null : c.seatHolds.remove(seatHoldID);
+			if(seatHold != null) {
+				c.noOfSeatsHeld -= seatHold.getSeatIDsHeld().size();
+			}
+			c.reservations.add(reservation);
+			c.noOfSeatsReserved += reservation.getSeatIDsReserved().size();
+			return c;
+		});
+	}
+
+	/**
+	 * Drops a reservation that has been cancelled
+	 * @param reservation Reservation object
+	 */
+	public void removeReservation(Reservation reservation) {
+		customers.computeIfPresent(keyOf(reservation.getCustomerEmail()), (k, c) -> {
+			if(c.reservations.remove(reservation)) {
+				c.noOfSeatsReserved -= reservation.getSeatIDsReserved().size();
+			}
+			return c.isEmpty() ? null : c;
+		});
+	}
+
+	/**
+	 * Indexes reservations, e.g. when restoring a snapshot
+	 * @param reservations Reservation objects
+	 */
+	public void addReservations(Collection<Reservation> reservations) {
+		for(Reservation reservation : reservations) {
+			addReservation(reservation, 0);
+		}
+	}
+
+	private static String keyOf(String customerEmail) {
+		return customerEmail == null ? "" : customerEmail.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	/**
+	 * No. of seats a customer holds, has reserved, or is claiming right now
+	 * @param customerEmail Email address of the customer
+	 * @return No. of seats counted against the customer's limit
+	 */
+	public int getNoOfSeats(String customerEmail) {
+		Customer c = customers.get(keyOf(customerEmail));
+		if(c == null) {
+			return 0;
+		}
+		return c.noOfSeats();
+	}
+
+	public int getNoOfSeatsHeld(String customerEmail) {
+		Customer c = customers.get(keyOf(customerEmail));
+		if(c == null) {
+			return 0;
+		}
+		return c.noOfSeatsHeld;
+	}
+
+	public int getNoOfSeatsReserved(String customerEmail) {
+		Customer c = customers.get(keyOf(customerEmail));
+		if(c == null) {
+			return 0;
+		}
+		return c.noOfSeatsReserved;
+	}
+
+	public List<SeatHold> getSeatHolds(String customerEmail) {
+		List<SeatHold> seatHolds = new ArrayList<SeatHold>();
+		customers.computeIfPresent(keyOf(customerEmail), (k, c) -> {
+			seatHolds.addAll(c.seatHolds.values());
+			return c;
+		});
+		return seatHolds;
+	}
+
+	public List<Reservation> getReservations(String customerEmail) {
+		List<Reservation> reservations = new ArrayList<Reservation>();
+		customers.computeIfPresent(keyOf(customerEmail), (k, c) -> {
+			reservations.addAll(c.reservations);
+			return c;
+		});
+		return reservations;
+	}
+
+	public int getNoOfCustomers() {
+		return customers.size();
+	}
+
+	/**
+	 * A customer's active holds (by ID), reservations and seat counts. Only changed inside the map's compute methods
+	 */
+	private static final class Customer {
+
+		private final IntHashMap<SeatHold> seatHolds = new IntHashMap<SeatHold>(2);
+		private final List<Reservation> reservations = new ArrayList<Reservation>(1);
+		private volatile int noOfSeatsHeld;  // volatile, so the getters can read them outside the map
+		private volatile int noOfSeatsReserved;
+		private volatile int noOfSeatsClaimed;
+
+		private int noOfSeats() {
+			return noOfSeatsHeld + noOfSeatsReserved + noOfSeatsClaimed;
+		}
+
+		private boolean isEmpty() {
+			return seatHolds.isEmpty() && reservations.isEmpty() && noOfSeatsClaimed == 0;
+		}
+	}
+}
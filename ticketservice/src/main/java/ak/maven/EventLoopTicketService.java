@@ -0,0 +1,295 @@
+package ak.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+* This class is an AsyncTicketService where a single event-loop thread owns the Venue, and every change to it is made on that thread
+* Calls are put in a bounded ring buffer, which any number of threads can add to without a lock (a slot is claimed with compare-and-swap),
+* and which only the event loop takes from. The loop takes whatever calls are waiting (up to a batch at a time) and runs them in order,
+* with runs of holds and runs of reservations going through the batch calls of TicketServiceImplementor, so that a run of reservations on
+* a logged venue waits for the log once. Expired holds are released by the loop too, once every tick, instead of by a background reaper
+* When the ring buffer is full, a call waits for a free slot for up to the offer timeout given to the constructor, and is then rejected:
+* its future completes exceptionally with a RejectedExecutionException. Callers can back off and retry, so a burst never grows an
+* unbounded queue
+* Futures are completed on the event loop. Anything slow done with a result should be done in an async stage, so as not to hold up the loop
+* numSeatsAvailable doesn't change anything, so it's answered straight away on the caller's thread
+*/
+public class EventLoopTicketService implements AsyncTicketService, AutoCloseable {
+
+	private static final int MAX_BATCH_SIZE = 256;
+	private static final int SPINS_BEFORE_PARKING = 100;
+	private static final long CLOSED = Long.MIN_VALUE;  // set on the tail once the service is closed, so no slot can be claimed after
+
+	private final TicketServiceImplementor service;
+	private final long offerTimeoutInNanos;
+	private final long tickInNanos;
+	private final AtomicReferenceArray<Call<?>> slots;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();  // next slot to be claimed by a caller, with the CLOSED bit once closed
+	private volatile long head;  // next slot to be taken by the loop, only written by the loop
+	private volatile boolean sleeping;  // the loop is parked, and needs unparking when a call is added
+	private final AtomicLong noOfCallsRejected = new AtomicLong();
+	private final Thread loop;
+
+	/**
+	 * constructor. Starts the event loop thread
+	 * @param venue: instance of Venue class, owned by the event loop from now on
+	 * @param capacity: no. of calls the ring buffer holds, rounded up to a power of two
+	 * @param offerTimeoutInMillis: how long a call waits for a free slot when the ring buffer is full before being rejected, 0 to reject straight away
+	 */
+	public EventLoopTicketService(Venue venue, int capacity, long offerTimeoutInMillis) {
+
+		if (capacity < 1 || offerTimeoutInMillis < 0) throw new IllegalArgumentException();
+
+		int size = 1;
+		while(size < capacity) {
+			size <<= 1;
+		}
+		this.service = new TicketServiceImplementor(venue, false);
+		this.offerTimeoutInNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutInMillis);
+		this.tickInNanos = TimeUnit.MILLISECONDS.toNanos(venue.getHoldExpiryTickInMillis());
+		this.slots = new AtomicReferenceArray<Call<?>>(size);
+		this.mask = size - 1;
+		this.loop = new Thread(this::runLoop, "ticket-event-loop");
+		this.loop.setDaemon(true);
+		this.loop.start();
+	}
+
+	/**
+	 * Gets the number of 'Available' seats, straight away and without going through the event loop
+	 * @return a completed CompletableFuture of the number of seats available
+	 */
+	public CompletableFuture<Integer> numSeatsAvailable() {
+		return CompletableFuture.completedFuture(service.numSeatsAvailable());
+	}
+
+	/**
+	 * Finds the next best seats and holds them for the customer, on the event loop
+	 * @param numSeats: number of seats requested to be held
+	 * @param customerEmail: email address of the person making the request
+	 * @return a CompletableFuture of the SeatHold object, or of null if not enough seats are available
+	 */
+	public CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail) {
+		Call<SeatHold> call = new Call<SeatHold>(new HoldRequest(numSeats, customerEmail), null);
+		offer(call);
+		return call.result;
+	}
+
+	/**
+	 * Reserves seats contained in a SeatHold object, on the event loop
+	 * @param seatHoldId: ID of the SeatHold object
+	 * @param customerEmail: email address of the person making the request
+	 * @return a CompletableFuture of the confirmation code, or of an appropriate error message
+	 */
+	public CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail) {
+		Call<String> call = new Call<String>(null, new ReserveRequest(seatHoldId, customerEmail));
+		offer(call);
+		return call.result;
+	}
+
+	/**
+	 * Stops taking calls, lets the event loop run the calls already in the ring buffer, then stops it and closes the service
+	 */
+	@Override
+	public void close() {
+		long t;
+		do {
+			t = tail.get();
+		} while(t >= 0 && !tail.compareAndSet(t, t | CLOSED));
+		LockSupport.unpark(loop);
+		try {
+			loop.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		service.close();
+	}
+
+	/**
+	 * Puts a call in the ring buffer, waiting for a free slot if it's full, or completes it exceptionally if it can't be taken
+	 * A slot is claimed by moving the tail on with compare-and-swap, and the call is then published into it. The loop only moves past
+	 * a slot once a call has been published into it
+	 */
+	private void offer(Call<?> call) {
+
+		long deadline = 0;
+		for(;;) {
+			long t = tail.get();
+			if(t < 0) {
+				call.result.completeExceptionally(new RejectedExecutionException("The service is closed"));
+				return;
+			}
+			if(t - head < slots.length()) {
+				if(tail.compareAndSet(t, t + 1)) {
+					slots.set((int) t & mask, call);
+					if(sleeping) {
+						LockSupport.unpark(loop);
+					}
+					return;
+				}
+				continue;  // another caller took the slot, try the next one
+			}
+			if(deadline == 0) {
+				deadline = System.nanoTime() + offerTimeoutInNanos;
+			}
+			if(System.nanoTime() - deadline >= 0) {
+				noOfCallsRejected.incrementAndGet();
+				call.result.completeExceptionally(new RejectedExecutionException("The service is too busy, try again later"));
+				return;
+			}
+			LockSupport.parkNanos(10000);  // the loop is behind, give it a moment
+		}
+	}
+
+	/**
+	 * The event loop. Takes up to a batch of calls at a time and runs them, and releases expired holds once every tick
+	 * When there is nothing to do, it spins for a while, then parks until the next tick or until a call is added
+	 * Once the service is closed, it stops when every slot claimed before that has been run
+	 */
+	private void runLoop() {
+
+		List<Call<?>> batch = new ArrayList<Call<?>>(MAX_BATCH_SIZE);
+		long nextTick = System.nanoTime() + tickInNanos;
+		int idleSpins = 0;
+
+		for(;;) {
+			takeBatch(batch);
+
+			if(!batch.isEmpty()) {
+				run(batch);
+				batch.clear();
+				idleSpins = 0;
+			}
+
+			long now = System.nanoTime();
+			if(now - nextTick >= 0) {
+				service.checkAndRemoveExpiredHolds();
+				nextTick = now + tickInNanos;
+			}
+
+			long t = tail.get();
+			if(t < 0 && head == (t & ~CLOSED)) {
+				return;
+			}
+
+			if(head == t) {
+				if(++idleSpins < SPINS_BEFORE_PARKING) {
+					continue;
+				}
+				sleeping = true;
+				if(head == tail.get()) {   // checked again after saying we're sleeping, so a call added meanwhile isn't missed
+					LockSupport.parkNanos(Math.max(0, nextTick - System.nanoTime()));
+				}
+				sleeping = false;
+			}
+		}
+	}
+
+	/**
+	 * Takes the calls published in the ring buffer, in order, up to a batch. Stops at a slot that is claimed but not yet published
+	 */
+	private void takeBatch(List<Call<?>> batch) {
+		long h = head;
+		while(batch.size() < MAX_BATCH_SIZE) {
+			int index = (int) h & mask;
+			Call<?> call = slots.get(index);
+			if(call == null) {
+				break;
+			}
+			slots.lazySet(index, null);
+			batch.add(call);
+			h++;
+		}
+		head = h;
+	}
+
+	/**
+	 * Runs a batch of calls in order: each run of holds and each run of reservations goes through a single batch call
+	 */
+	@SuppressWarnings("unchecked")
+	private void run(List<Call<?>> batch) {
+
+		int start = 0;
+		while(start < batch.size()) {
+
+			boolean holds = batch.get(start).holdRequest != null;
+			int end = start;
+			while(end < batch.size() && (batch.get(end).holdRequest != null) == holds) {
+				end++;
+			}
+			List<Call<?>> calls = batch.subList(start, end);
+
+			try {
+				if(holds) {
+					List<HoldRequest> requests = new ArrayList<HoldRequest>(calls.size());
+					for(Call<?> call : calls) {
+						requests.add(call.holdRequest);
+					}
+					List<SeatHold> results = service.findAndHoldSeats(requests);
+					for(int i = 0; i < calls.size(); i++) {
+						((Call<SeatHold>) calls.get(i)).result.complete(results.get(i));
+					}
+				}
+				else {
+					List<ReserveRequest> requests = new ArrayList<ReserveRequest>(calls.size());
+					for(Call<?> call : calls) {
+						requests.add(call.reserveRequest);
+					}
+					List<String> results = service.reserveSeats(requests);
+					for(int i = 0; i < calls.size(); i++) {
+						((Call<String>) calls.get(i)).result.complete(results.get(i));
+					}
+				}
+			}
+			catch (RuntimeException ex) {
+				for(Call<?> call : calls) {
+					call.result.completeExceptionally(ex);  // e.g. the log couldn't be written; keep the loop alive for the calls after
+				}
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public TicketServiceImplementor getService() {
+		return service;
+	}
+
+	public int getCapacity() {
+		return slots.length();
+	}
+
+	public int getNoOfCallsWaiting() {
+		return (int) Math.max(0, (tail.get() & ~CLOSED) - head);
+	}
+
+	public long getNoOfCallsRejected() {
+		return noOfCallsRejected.get();
+	}
+
+	/**
+	 * A call waiting in the ring buffer: either a hold or a reservation, and the future of its result
+	 */
+	private static final class Call<T> {
+
+		private final HoldRequest holdRequest;
+		private final ReserveRequest reserveRequest;
+		private final CompletableFuture<T> result = new CompletableFuture<T>();
+
+		private Call(HoldRequest holdRequest, ReserveRequest reserveRequest) {
+			this.holdRequest = holdRequest;
+			this.reserveRequest = reserveRequest;
+		}
+	}
+}
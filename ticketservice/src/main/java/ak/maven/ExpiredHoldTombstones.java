@@ -0,0 +1,117 @@
+package ak.maven;
+
+/**
+* This class remembers the IDs of expired seat holds for a limited window of time, so that a customer trying to reserve
+* an expired hold is told it has expired, rather than that it wasn't found
+* IDs are kept in a few generations, each covering a slice of the window. When the newest generation gets too old, or too full,
+* the oldest generation is dropped in one go. Memory therefore stays flat however long the venue runs
+* Lookups check every generation, which is a small constant number of hash lookups
+* Public methods are synchronized, since holds are expired by the background reaper while requests look them up
+*/
+public class ExpiredHoldTombstones {
+
+	private final IntHashMap<Boolean>[] generations;
+	private final long generationLengthInMillis;
+	private final int maxIDsPerGeneration;
+	private int newest;
+	private long newestStartInMillis;
+
+	/**
+	 * Constructor
+	 * @param retentionInMillis How long an expired hold ID is remembered for (at least), in milliseconds
+	 * @param noOfGenerations No. of generations the window is split into
+	 * @param maxIDs Max no. of expired hold IDs remembered at any time. Older IDs are forgotten early once this is reached
+	 * @param startTimeInMillis Time at which the first generation starts
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ExpiredHoldTombstones(long retentionInMillis, int noOfGenerations, int maxIDs, long startTimeInMillis) {
+
+		if (retentionInMillis < 1 || noOfGenerations < 1 || maxIDs < noOfGenerations) throw new IllegalArgumentException();
+
+		this.generations = new IntHashMap[noOfGenerations + 1];  // one extra generation, so that IDs are kept for the full window
+		for(int i = 0; i < generations.length; i++) {
+			generations[i] = new IntHashMap<Boolean>();
+		}
+		this.generationLengthInMillis = Math.max(1, retentionInMillis / noOfGenerations);
+		this.maxIDsPerGeneration = maxIDs / generations.length;
+		this.newestStartInMillis = startTimeInMillis;
+	}
+
+	/**
+	 * Remembers an expired hold ID
+	 * @param seatHoldID SeatHold ID
+	 * @param nowInMillis Current time
+	 */
+	public synchronized void add(int seatHoldID, long nowInMillis) {
+
+		rotate(nowInMillis);
+
+		if(contains(seatHoldID)) {
+			return;
+		}
+
+		if(generations[newest].size() >= maxIDsPerGeneration) {
+			startNewGeneration(nowInMillis);
+		}
+		generations[newest].put(seatHoldID, Boolean.TRUE);
+	}
+
+	/**
+	 * Checks if a hold ID is remembered as expired
+	 * @param seatHoldID SeatHold ID
+	 * @return true if the hold expired within the window, false otherwise
+	 */
+	public synchronized boolean contains(int seatHoldID) {
+		for(IntHashMap<Boolean> generation : generations) {
+			if(generation.containsKey(seatHoldID)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Forgets a hold ID, e.g. when the ID is given to a new hold
+	 * @param seatHoldID SeatHold ID
+	 */
+	public synchronized void remove(int seatHoldID) {
+		for(IntHashMap<Boolean> generation : generations) {
+			generation.remove(seatHoldID);
+		}
+	}
+
+	/**
+	 * Drops the generations that have gone out of the window
+	 * @param nowInMillis Current time
+	 */
+	public synchronized void rotate(long nowInMillis) {
+
+		long generationsPassed = (nowInMillis - newestStartInMillis) / generationLengthInMillis;
+
+		for(long i = 0; i < Math.min(generationsPassed, generations.length); i++) {
+			startNewGeneration(newestStartInMillis + generationLengthInMillis);
+		}
+
+		if(generationsPassed > generations.length) {
+			newestStartInMillis = nowInMillis;
+		}
+	}
+
+	private void startNewGeneration(long startTimeInMillis) {
+		newest = (newest + 1) % generations.length;
+		generations[newest].clear();  // the oldest generation is reused as the newest
+		newestStartInMillis = startTimeInMillis;
+	}
+
+	/**
+	 * No. of expired hold IDs currently remembered
+	 * @return count of IDs
+	 */
+	public synchronized int size() {
+		int size = 0;
+		for(IntHashMap<Boolean> generation : generations) {
+			size += generation.size();
+		}
+		return size;
+	}
+}
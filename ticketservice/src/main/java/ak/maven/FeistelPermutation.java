@@ -0,0 +1,108 @@
+package ak.maven;
+
+import java.util.SplittableRandom;
+
+/**
+* This class is a keyed, reversible shuffle of the numbers 0 to N-1, used to turn a sequence into IDs and codes that can't be guessed
+* It is a balanced Feistel network over the smallest even number of bits that covers N. Results that fall outside the domain
+* are fed back through the network ("cycle walking") until they land inside it, which keeps the mapping one-to-one on 0 to N-1
+* Permuting a number doesn't allocate anything, and takes a handful of multiplications
+*/
+public class FeistelPermutation {
+
+	private static final int ROUNDS = 4;
+
+	private final long domainSize;
+	private final int halfBits;
+	private final long halfMask;
+	private final long[] roundKeys;
+
+	/**
+	 * Constructor
+	 * @param domainSize N, the size of the domain being shuffled (at least 2, and less than 2^62)
+	 * @param key key for the shuffle. The same key always gives the same shuffle
+	 */
+	public FeistelPermutation(long domainSize, long key) {
+
+		if (domainSize < 2 || domainSize >= (1L << 62)) throw new IllegalArgumentException();
+
+		int bits = 64 - Long.numberOfLeadingZeros(domainSize - 1);
+		this.domainSize = domainSize;
+		this.halfBits = (bits + 1) / 2;
+		this.halfMask = (1L << halfBits) - 1;
+		this.roundKeys = new long[ROUNDS];
+
+		SplittableRandom random = new SplittableRandom(key);
+		for(int i = 0; i < ROUNDS; i++) {
+			roundKeys[i] = random.nextLong();
+		}
+	}
+
+	/**
+	 * Maps a number in the domain to its place in the shuffle
+	 * @param n number from 0 to N-1
+	 * @return a number from 0 to N-1. Different inputs always give different outputs
+	 */
+	public long permute(long n) {
+
+		if (n < 0 || n >= domainSize) throw new IllegalArgumentException();
+
+		long x = n;
+		do {
+			x = encrypt(x);
+		} while(x >= domainSize);
+		return x;
+	}
+
+	/**
+	 * Maps a shuffled number back to the number it came from
+	 * @param n number from 0 to N-1
+	 * @return the number that permute() maps to n
+	 */
+	public long inverse(long n) {
+
+		if (n < 0 || n >= domainSize) throw new IllegalArgumentException();
+
+		long x = n;
+		do {
+			x = decrypt(x);
+		} while(x >= domainSize);
+		return x;
+	}
+
+	private long encrypt(long x) {
+		long left = x >>> halfBits;
+		long right = x & halfMask;
+		for(int i = 0; i < ROUNDS; i++) {
+			long next = left ^ round(right, roundKeys[i]);
+			left = right;
+			right = next;
+		}
+		return (left << halfBits) | right;
+	}
+
+	private long decrypt(long x) {
+		long left = x >>> halfBits;
+		long right = x & halfMask;
+		for(int i = ROUNDS - 1; i >= 0; i--) {
+			long previous = right ^ round(left, roundKeys[i]);
+			right = left;
+			left = previous;
+		}
+		return (left << halfBits) | right;
+	}
+
+	/**
+	 * Round function: mixes half a block with the round key (the finalizer of SplitMix64)
+	 */
+	private long round(long half, long roundKey) {
+		long z = half ^ roundKey;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (z ^ (z >>> 31)) & halfMask;
+	}
+
+	public long getDomainSize() {
+		return domainSize;
+	}
+}
@@ -0,0 +1,123 @@
+package ak.maven;
+
+/**
+* This class is a segment tree over a range of seats that tracks runs of consecutive free seats
+* Every node knows the longest free run within its range, as well as the free runs touching either end of its range,
+* so the leftmost block of N consecutive free seats can be found in logarithmic time
+* Marking a seat free or taken updates the nodes on its path to the root, also in logarithmic time
+* Positions are numbered from 0. The class isn't thread-safe; SeatStateIndex keeps one per stripe and only uses it with the stripe locked
+*/
+public class FreeRunIndex {
+
+	private final int size;
+	private final int leaves;
+	private final int[] longestRun;
+	private final int[] prefixRun;
+	private final int[] suffixRun;
+
+	/**
+	 * Constructor. All positions start out as free
+	 * @param size No. of positions indexed
+	 */
+	public FreeRunIndex(int size) {
+
+		if (size < 1) throw new IllegalArgumentException();
+
+		int leaves = 1;
+		while(leaves < size) {
+			leaves <<= 1;
+		}
+		this.size = size;
+		this.leaves = leaves;
+		this.longestRun = new int[2 * leaves];
+		this.prefixRun = new int[2 * leaves];
+		this.suffixRun = new int[2 * leaves];
+
+		for(int i = 0; i < size; i++) {
+			setLeaf(leaves + i, true);  // padding positions past the end stay taken, so runs never cross the end
+		}
+		for(int node = leaves - 1; node >= 1; node--) {
+			pull(node, leaves >> (31 - Integer.numberOfLeadingZeros(node)) >> 1);
+		}
+	}
+
+	/**
+	 * Marks a position free or taken
+	 * @param position position, from 0
+	 * @param free true if the position is now free, false if it's taken
+	 */
+	public void set(int position, boolean free) {
+
+		if (position < 0 || position >= size) throw new IllegalArgumentException();
+
+		int node = leaves + position;
+		setLeaf(node, free);
+		for(int width = 1; node > 1; width <<= 1) {
+			node >>= 1;
+			pull(node, width);
+		}
+	}
+
+	/**
+	 * Finds the leftmost run of at least N consecutive free positions
+	 * @param length N, the length of the run needed
+	 * @return the first position of the run, or -1 if there is no run that long
+	 */
+	public int findFirstRun(int length) {
+
+		if(length < 1 || longestRun[1] < length) {
+			return -1;
+		}
+
+		int node = 1;
+		int start = 0;
+		int width = leaves;
+
+		while(node < leaves) {
+			width >>= 1;
+			int left = 2 * node;
+			int right = left + 1;
+			if(longestRun[left] >= length) {
+				node = left;
+			}
+			else if(suffixRun[left] + prefixRun[right] >= length) {
+				return start + width - suffixRun[left];  // the run straddles the middle of this node
+			}
+			else {
+				node = right;
+				start += width;
+			}
+		}
+		return start;
+	}
+
+	/**
+	 * Length of the longest run of consecutive free positions
+	 * @return length of the run
+	 */
+	public int getLongestRun() {
+		return longestRun[1];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void setLeaf(int node, boolean free) {
+		int value = free ? 1 : 0;
+		longestRun[node] = value;
+		prefixRun[node] = value;
+		suffixRun[node] = value;
+	}
+
+	/**
+	 * Recomputes a node from its two children, each covering childWidth positions
+	 */
+	private void pull(int node, int childWidth) {
+		int left = 2 * node;
+		int right = left + 1;
+		prefixRun[node] = prefixRun[left] == childWidth ? childWidth + prefixRun[right] : prefixRun[left];
+		suffixRun[node] = suffixRun[right] == childWidth ? childWidth + suffixRun[left] : suffixRun[right];
+		longestRun[node] = Math.max(Math.max(longestRun[left], longestRun[right]), suffixRun[left] + prefixRun[right]);
+	}
+}
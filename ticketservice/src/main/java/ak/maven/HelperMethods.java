@@ -1,10 +1,22 @@
 package ak.maven;
 
-import java.util.Locale;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class HelperMethods {
 	
+	/**
+	 * Symbols used in random strings and confirmation codes: uppercase and lowercase letters, and digits
+	 */
+	public static final String ALPHANUMERIC_SYMBOLS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+	
 	/**
 	 * Checks if the option provided by the user (as string) is a positive integer
 	 * @param s the string representation of the user selection
@@ -31,7 +43,7 @@ public class HelperMethods {
 	 * @return a 6-digit random positive integer
 	 */
 	public static int generateID() {
-		Random rnd = new Random();
+		Random rnd = ThreadLocalRandom.current();
 		int n = 100000 + rnd.nextInt(900000);
 		return n;
 	}
@@ -44,7 +56,7 @@ public class HelperMethods {
 		
 		if (length < 1) throw new IllegalArgumentException();
 		
-		Random rnd = new Random();
+		Random rnd = ThreadLocalRandom.current();
 		return (int) (Math.pow(10, length-1) + rnd.nextInt((int) (9 * Math.pow(10, length-1))));		
 	}
 	
@@ -57,17 +69,82 @@ public class HelperMethods {
 		
 		if (length < 1) throw new IllegalArgumentException();
 		
-		 String upper = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-		 String lower = upper.toLowerCase(Locale.ROOT);
-		 String digits = "0123456789";
-		 char[] symbols = (upper + lower + digits).toCharArray();
-		 Random random = new Random();
+		 Random random = ThreadLocalRandom.current();
 		 char[] bufs = new char[length];
 		 
 		 for (int idx = 0; idx < bufs.length; ++idx) {
-			 bufs[idx] = symbols[random.nextInt(symbols.length)];
+			 bufs[idx] = ALPHANUMERIC_SYMBOLS.charAt(random.nextInt(ALPHANUMERIC_SYMBOLS.length()));
 			 }
 		 
 		 return new String(bufs);
 	}
+	
+	/**
+	 * Converts a local timestamp to milliseconds since the epoch, in the system time zone, e.g. to write it to a log or snapshot
+	 * @param timestamp local timestamp
+	 * @return milliseconds since the epoch
+	 */
+	public static long toEpochMillis(LocalDateTime timestamp) {
+		return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+	
+	/**
+	 * Converts milliseconds since the epoch back to a local timestamp, in the system time zone
+	 * @param epochMillis milliseconds since the epoch
+	 * @return local timestamp
+	 */
+	public static LocalDateTime fromEpochMillis(long epochMillis) {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+	}
+	
+	/**
+	 * Forces a directory itself to disk, so that files created, moved or deleted in it survive a crash. Windows can't open a directory,
+	 * but doesn't need to: a change to a directory there is on disk once it's done
+	 * @param directory directory to force
+	 * @throws IOException if the directory can't be forced
+	 */
+	public static void syncDirectory(Path directory) throws IOException {
+		if(System.getProperty("os.name", "").startsWith("Windows")) {
+			return;
+		}
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+	}
+	
+	/**
+	 * Wraps a task that is run every so often in the background (e.g. by scheduleAtFixedRate), so that a failed run is reported
+	 * (see reportFailure) and the runs after it still go ahead. Otherwise the executor would cancel them all, without a word
+	 * @param task task to run
+	 * @return a Runnable that runs the task, and reports it if it fails
+	 */
+	public static Runnable reportingFailures(BackgroundTask task) {
+		return () -> {
+			try {
+				task.run();
+			}
+			catch (Exception ex) {
+				reportFailure(ex);
+			}
+		};
+	}
+	
+	/**
+	 * Reports a failure that happened in the background, where there's no caller to throw it to, to the current thread's
+	 * UncaughtExceptionHandler. So it goes wherever the application sends uncaught exceptions (see Thread.setDefaultUncaughtExceptionHandler),
+	 * rather than library code deciding where it's written
+	 * @param ex the failure
+	 */
+	public static void reportFailure(Throwable ex) {
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+	}
+	
+	/**
+	 * A task run in the background, which may fail
+	 */
+	@FunctionalInterface
+	public interface BackgroundTask {
+		void run() throws Exception;
+	}
 }
@@ -0,0 +1,28 @@
+package ak.maven;
+
+/**
+* This interface is the time source seat holds expire by, in milliseconds
+* Only the time between readings matters, so a clock doesn't have to follow the wall clock, but it must never go backwards
+* MONOTONIC follows System.nanoTime, so a jump of the wall clock (e.g. an NTP correction) neither expires holds early nor keeps them
+* late. It starts at the wall clock time it was first read, so its readings look like epoch milliseconds and are never negative
+* A Venue reads its clock once per hold and once per expiry tick. Tests and benchmarks can give it a ManualHoldClock instead, and move
+* time on when they need holds to expire, rather than waiting for them to
+*/
+public interface HoldClock {
+
+	HoldClock MONOTONIC = new HoldClock() {
+
+		private final long startInMillis = System.currentTimeMillis();
+		private final long startInNanos = System.nanoTime();
+
+		@Override
+		public long millis() {
+			return startInMillis + (System.nanoTime() - startInNanos) / 1000000;
+		}
+	};
+
+	/**
+	 * @return the current time in milliseconds
+	 */
+	long millis();
+}
@@ -0,0 +1,48 @@
+package ak.maven;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+* This class releases expired seat holds in the background, so that request threads never have to look for them
+* Every tick (as configured on the Venue), it turns the Venue's hold expiry wheels up to the current time
+* It can also run the expiry task of another engine, such as LockFreeTicketService
+* All reapers share a single daemon thread, which doesn't keep the application from exiting
+*/
+public class HoldExpiryReaper implements AutoCloseable {
+
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "hold-expiry-reaper");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final ScheduledFuture<?> task;
+
+	/**
+	 * Constructor. Starts releasing expired holds for the venue right away
+	 * @param venue Venue whose holds need to be expired
+	 */
+	public HoldExpiryReaper(Venue venue) {
+		this(venue.getHoldExpiryTickInMillis(), venue::expireDueHolds);
+	}
+	
+	/**
+	 * Constructor. Starts running the expiry task right away, once every tick
+	 * @param tickInMillis How often the task runs, in milliseconds
+	 * @param expireDueHolds Task that expires the holds that have fallen due
+	 */
+	public HoldExpiryReaper(long tickInMillis, Runnable expireDueHolds) {
+		this.task = scheduler.scheduleAtFixedRate(HelperMethods.reportingFailures(expireDueHolds::run), tickInMillis, tickInMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops releasing expired holds for the venue
+	 */
+	@Override
+	public void close() {
+		task.cancel(false);
+	}
+}
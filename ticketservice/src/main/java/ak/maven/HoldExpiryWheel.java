@@ -0,0 +1,116 @@
+package ak.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* This class is a hashed timing wheel that keeps track of when seat holds are due to expire
+* Time is divided into ticks of a configurable length, and every hold is placed in the bucket for the first tick after its deadline
+* Advancing the wheel only visits the buckets for the ticks that have passed, so the cost of expiry is proportional to the
+* number of holds falling due, and not to the total number of holds
+* Holds that are reserved before their deadline are left in the wheel, and are skipped by the Venue when they fall due
+* The wheel isn't thread-safe; the Venue keeps one wheel per hold segment, and calls it while holding the segment's lock
+*/
+public class HoldExpiryWheel {
+
+	private final long tickInMillis;
+	private final List<List<Entry>> buckets;
+	private final int bucketMask;
+	private long currentTick;
+	private int size;
+
+	/**
+	 * Constructor
+	 * @param tickInMillis Length of a tick in milliseconds, i.e. how accurate expiry is
+	 * @param noOfBuckets No. of buckets in the wheel (rounded up to a power of two)
+	 * @param startTimeInMillis Time at which the wheel starts turning
+	 */
+	public HoldExpiryWheel(long tickInMillis, int noOfBuckets, long startTimeInMillis) {
+
+		if (tickInMillis < 1 || noOfBuckets < 1) throw new IllegalArgumentException();
+
+		int capacity = Integer.highestOneBit(noOfBuckets);
+		if(capacity < noOfBuckets) {
+			capacity <<= 1;
+		}
+
+		this.tickInMillis = tickInMillis;
+		this.bucketMask = capacity - 1;
+		this.buckets = new ArrayList<List<Entry>>(capacity);
+		for(int i = 0; i < capacity; i++) {
+			buckets.add(new ArrayList<Entry>());
+		}
+		this.currentTick = startTimeInMillis / tickInMillis;
+	}
+
+	/**
+	 * Schedules a seat hold to expire once its deadline has passed
+	 * @param seatHold SeatHold object
+	 * @param deadlineInMillis Time after which the hold is expired
+	 */
+	public void schedule(SeatHold seatHold, long deadlineInMillis) {
+		long tick = Math.max(deadlineInMillis / tickInMillis + 1, currentTick + 1);  // first tick strictly after the deadline
+		buckets.get((int) (tick & bucketMask)).add(new Entry(seatHold, deadlineInMillis));
+		size++;
+	}
+
+	/**
+	 * Turns the wheel up to the time provided, and collects the holds whose deadline has passed
+	 * If more than a full turn has passed since the last call, every bucket is visited just once
+	 * @param nowInMillis Current time
+	 * @return a list of SeatHold objects that are due to expire
+	 */
+	public List<SeatHold> advance(long nowInMillis) {
+
+		List<SeatHold> dueHolds = new ArrayList<SeatHold>();
+		long nowTick = nowInMillis / tickInMillis;
+		long ticksToVisit = Math.min(nowTick - currentTick, buckets.size());
+
+		for(long tick = nowTick - ticksToVisit + 1; tick <= nowTick; tick++) {
+
+			List<Entry> bucket = buckets.get((int) (tick & bucketMask));
+
+			for(int i = bucket.size() - 1; i >= 0; i--) {
+				Entry e = bucket.get(i);
+				if(e.deadlineInMillis < nowInMillis) {
+					bucket.set(i, bucket.get(bucket.size() - 1));  // swap with last entry, so that removal doesn't shift the bucket
+					bucket.remove(bucket.size() - 1);
+					dueHolds.add(e.seatHold);
+					size--;
+				}
+			}
+		}
+
+		if(nowTick > currentTick) {
+			currentTick = nowTick;
+		}
+
+		return dueHolds;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public long getTickInMillis() {
+		return tickInMillis;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * A hold scheduled in the wheel, along with its deadline
+	 */
+	private static final class Entry {
+
+		private final SeatHold seatHold;
+		private final long deadlineInMillis;
+
+		private Entry(SeatHold seatHold, long deadlineInMillis) {
+			this.seatHold = seatHold;
+			this.deadlineInMillis = deadlineInMillis;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package ak.maven;
+
+/**
+* This class represents one request to find and hold seats, as passed to the batch form of findAndHoldSeats
+*/
+public class HoldRequest {
+
+	private final int numSeats;
+	private final String customerEmail;
+
+	/**
+	 * Constructor
+	 * @param numSeats number of seats requested to be held
+	 * @param customerEmail email address of the person making the request
+	 */
+	public HoldRequest(int numSeats, String customerEmail) {
+		this.numSeats = numSeats;
+		this.customerEmail = customerEmail;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public int getNumSeats() {
+		return numSeats;
+	}
+
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+}
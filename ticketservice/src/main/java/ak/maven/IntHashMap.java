@@ -0,0 +1,201 @@
+package ak.maven;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+* This class is a hash map from primitive int keys to objects, so that lookups don't box the key
+* It uses open addressing with linear probing, and removals shift later entries back instead of leaving markers,
+* so lookups stay short however many entries come and go
+* Null values aren't allowed (a null value marks an empty slot). The class isn't thread-safe
+* @param <V> type of the values
+*/
+public class IntHashMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] keys;
+	private Object[] values;
+	private int mask;
+	private int size;
+
+	/**
+	 * Constructor
+	 */
+	public IntHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 * @param expectedSize No. of entries the map should hold without growing
+	 */
+	public IntHashMap(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	/**
+	 * Finds the value mapped to a key
+	 * @param key key to look up
+	 * @return the value, or null if the key isn't mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		for(int i = indexFor(key); values[i] != null; i = (i + 1) & mask) {
+			if(keys[i] == key) {
+				return (V) values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if a key is mapped
+	 * @param key key to look up
+	 * @return true if the key is mapped, false otherwise
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps a key to a value, replacing any previous value
+	 * @param key key
+	 * @param value value (can't be null)
+	 * @return the previous value, or null if the key wasn't mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+
+		if (value == null) throw new IllegalArgumentException();
+
+		int i = indexFor(key);
+		for(; values[i] != null; i = (i + 1) & mask) {
+			if(keys[i] == key) {
+				V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+		if(++size > (keys.length >> 1) + (keys.length >> 2)) {  // keep the load factor under 3/4
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the mapping for a key, if one exists
+	 * @param key key
+	 * @return the value that was mapped, or null if the key wasn't mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+
+		int i = indexFor(key);
+		for(; values[i] != null; i = (i + 1) & mask) {
+			if(keys[i] == key) {
+				break;
+			}
+		}
+
+		if(values[i] == null) {
+			return null;
+		}
+
+		V removed = (V) values[i];
+		size--;
+
+		/*
+		 * Shift back any later entries of the probe sequence that would no longer be reachable once this slot is empty
+		 */
+		int gap = i;
+		for(int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			int home = indexFor(keys[j]);
+			if(((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+		}
+		values[gap] = null;
+
+		return removed;
+	}
+
+	/**
+	 * Removes all entries. Memory taken up by a map that had grown large is given back
+	 */
+	public void clear() {
+		if(keys.length > DEFAULT_CAPACITY) {
+			allocate(DEFAULT_CAPACITY);
+		}
+		else {
+			Arrays.fill(values, null);
+		}
+		size = 0;
+	}
+
+	/**
+	 * Copies the values in the map into a list, in no particular order
+	 * @return a list of values
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> list = new ArrayList<V>(size);
+		for(Object v : values) {
+			if(v != null) {
+				list.add((V) v);
+			}
+		}
+		return list;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private int indexFor(int key) {
+		int h = key * 0x9E3779B9;  // spread sequential keys across the table
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private void rehash(int newCapacity) {
+
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(newCapacity);
+
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldValues[i] != null) {
+				int j = indexFor(oldKeys[i]);
+				while(values[j] != null) {
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+		while(capacity < expectedSize + (expectedSize / 3) + 1) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
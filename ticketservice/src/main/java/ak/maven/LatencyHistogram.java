@@ -0,0 +1,166 @@
+package ak.maven;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+* This class records latencies (or any non-negative values) into log-linear buckets, to report percentiles such as p50, p99 and p99.9
+* Every power of two is split into 32 buckets of equal width, so a value is reported to within about 3% of what was recorded,
+* whatever its size. Values below 32 have a bucket each
+* Recording a value is a single atomic increment on a fixed array (plus a compare-and-swap when it's a new maximum), so any
+* number of threads can record at once without locking and without allocating anything
+*/
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NO_OF_BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong max;
+
+	/**
+	 * Constructor. The histogram starts out empty
+	 */
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(NO_OF_BUCKETS);
+		this.max = new AtomicLong();
+	}
+
+	/**
+	 * Records a value. Negative values are recorded as 0
+	 * @param value value recorded, e.g. a latency in nanoseconds
+	 */
+	public void record(long value) {
+
+		long v = Math.max(value, 0);
+		counts.getAndIncrement(bucketOf(v));
+
+		long currentMax;
+		while(v > (currentMax = max.get()) && !max.compareAndSet(currentMax, v)) {
+			// another thread recorded a new maximum in the meantime, so check again
+		}
+	}
+
+	/**
+	 * Moves everything recorded so far into a new histogram, leaving this one empty, e.g. to report on one interval at a time
+	 * Values recorded while this runs end up in one of the two histograms, never in both or neither
+	 * @return histogram with the values recorded since the last reset
+	 */
+	public LatencyHistogram snapshotAndReset() {
+
+		LatencyHistogram snapshot = new LatencyHistogram();
+		for(int i = 0; i < NO_OF_BUCKETS; i++) {
+			if(counts.get(i) != 0) {
+				snapshot.counts.set(i, counts.getAndSet(i, 0));
+			}
+		}
+		snapshot.max.set(max.getAndSet(0));
+		return snapshot;
+	}
+
+	/**
+	 * Adds the values recorded in another histogram to this one
+	 * @param other histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for(int i = 0; i < NO_OF_BUCKETS; i++) {
+			long count = other.counts.get(i);
+			if(count != 0) {
+				counts.getAndAdd(i, count);
+			}
+		}
+		long otherMax = other.max.get();
+		long currentMax;
+		while(otherMax > (currentMax = max.get()) && !max.compareAndSet(currentMax, otherMax)) {
+			// another thread recorded a new maximum in the meantime, so check again
+		}
+	}
+
+	/**
+	 * No. of values recorded
+	 * @return count of values
+	 */
+	public long getCount() {
+		long count = 0;
+		for(int i = 0; i < NO_OF_BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Largest value recorded
+	 * @return the value, exactly as recorded, or 0 if nothing was recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Mean of the values recorded, taking every value as the middle of its bucket
+	 * @return the mean, or 0 if nothing was recorded
+	 */
+	public double getMean() {
+		long count = 0;
+		double total = 0;
+		for(int i = 0; i < NO_OF_BUCKETS; i++) {
+			long c = counts.get(i);
+			if(c != 0) {
+				count += c;
+				total += c * (lowestValueOf(i) + highestValueOf(i)) / 2.0;
+			}
+		}
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * Value at or below which the given percentage of the values recorded fall
+	 * @param percentile percentage, from 0 to 100 (e.g. 99.9)
+	 * @return the highest value of the bucket the percentile falls in (never more than the maximum), or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+
+		if(percentile < 0 || percentile > 100) throw new IllegalArgumentException();
+
+		long count = getCount();
+		if(count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for(int i = 0; i < NO_OF_BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= rank) {
+				return Math.min(highestValueOf(i), getMax());
+			}
+		}
+		return getMax();  // only reached if values were recorded while counting
+	}
+
+	private static int bucketOf(long value) {
+		if(value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	private static long lowestValueOf(int bucket) {
+		if(bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+	}
+
+	private static long highestValueOf(int bucket) {
+		if(bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		return lowestValueOf(bucket) + (1L << shift) - 1;
+	}
+}
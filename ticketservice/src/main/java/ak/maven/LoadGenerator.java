@@ -0,0 +1,221 @@
+package ak.maven;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* This class drives simulated on-sale traffic against a TicketServiceImplementor, without any user interaction
+* Customers arrive at random (a Poisson process) at the configured rate. Each customer holds a random number of seats, waits a while,
+* and then either reserves the hold or walks away from it, in which case the hold expires in the background like any other
+* Arrivals are scheduled on a pool of worker threads, so thousands of customers can be between their hold and their reservation at once
+* while only a handful of threads do the work. The time taken by every findAndHoldSeats and reserveSeats call is recorded in a LatencyHistogram
+* Arrivals are on a fixed timetable, independent of how long calls take, so a slow service shows up as higher latency rather than fewer calls
+* A call that throws (e.g. once the venue's log has failed) ends that customer's visit and is counted as failed, so the run still finishes
+*/
+public class LoadGenerator {
+
+	private static final long DRAIN_TIMEOUT_IN_MILLIS = 60000;  // time allowed after the last arrival, on top of 20 average think times
+
+	private final TicketServiceImplementor ticketService;
+	private final int noOfCustomers;
+	private final double arrivalsPerSecond;
+	private final int minPartySize;
+	private final int maxPartySize;
+	private final double reserveProbability;
+	private final long thinkTimeInMillis;
+	private final int noOfThreads;
+
+	private final LatencyHistogram holdLatencies = new LatencyHistogram();
+	private final LatencyHistogram reserveLatencies = new LatencyHistogram();
+	private final AtomicLong noOfHolds = new AtomicLong();
+	private final AtomicLong noOfHoldsRefused = new AtomicLong();
+	private final AtomicLong noOfReservations = new AtomicLong();
+	private final AtomicLong noOfReservationsRefused = new AtomicLong();
+	private final AtomicLong noOfHoldsAbandoned = new AtomicLong();
+	private final AtomicLong noOfCallsFailed = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param ticketService service the traffic is sent to
+	 * @param noOfCustomers No. of customers arriving over the whole run
+	 * @param arrivalsPerSecond Average no. of customers arriving per second
+	 * @param minPartySize Smallest no. of seats a customer asks for
+	 * @param maxPartySize Largest no. of seats a customer asks for
+	 * @param reserveProbability Chance that a customer reserves their hold rather than walking away from it, from 0 to 1
+	 * @param thinkTimeInMillis Average time between a customer's hold and their reservation (or walking away), in milliseconds
+	 * @param noOfThreads No. of worker threads making the calls
+	 */
+	public LoadGenerator(TicketServiceImplementor ticketService, int noOfCustomers, double arrivalsPerSecond, int minPartySize, int maxPartySize,
+			double reserveProbability, long thinkTimeInMillis, int noOfThreads) {
+
+		if (noOfCustomers < 0 || arrivalsPerSecond <= 0 || minPartySize < 1 || maxPartySize < minPartySize
+				|| reserveProbability < 0 || reserveProbability > 1 || thinkTimeInMillis < 0 || noOfThreads < 1) throw new IllegalArgumentException();
+
+		this.ticketService = ticketService;
+		this.noOfCustomers = noOfCustomers;
+		this.arrivalsPerSecond = arrivalsPerSecond;
+		this.minPartySize = minPartySize;
+		this.maxPartySize = maxPartySize;
+		this.reserveProbability = reserveProbability;
+		this.thinkTimeInMillis = thinkTimeInMillis;
+		this.noOfThreads = noOfThreads;
+	}
+
+	/**
+	 * Runs the simulation, and waits for every customer to finish (reserve, walk away, or have a call fail). Customers that haven't
+	 * finished by DRAIN_TIMEOUT_IN_MILLIS (plus 20 average think times) after the last arrival are given up on, and the run ends anyway
+	 * @return time taken, in nanoseconds
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public long run() throws InterruptedException {
+
+		ScheduledExecutorService workers = Executors.newScheduledThreadPool(noOfThreads);
+		long start = System.nanoTime();
+		long arrivalInNanos = 0;
+
+		for(int i = 0; i < noOfCustomers; i++) {
+			arrivalInNanos += (long) (nextExponential(1.0 / arrivalsPerSecond) * 1e9);
+			long customer = i;
+			workers.schedule(() -> arrive(customer, workers), arrivalInNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+		}
+
+		/*
+		 * Every customer is scheduled by now, but those still thinking schedule their reservation later, so wait until they're all done
+		 */
+		long deadline = start + arrivalInNanos + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_IN_MILLIS + 20 * thinkTimeInMillis);
+		while(getNoOfCustomersFinished() < noOfCustomers && System.nanoTime() - deadline < 0) {
+			Thread.sleep(10);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		workers.shutdownNow();   // nothing is left to run, unless the run timed out
+		workers.awaitTermination(1, TimeUnit.MINUTES);
+		return elapsed;
+	}
+
+	/**
+	 * A customer arrives: holds seats, then reserves or walks away after thinking about it
+	 */
+	private void arrive(long customer, ScheduledExecutorService workers) {
+
+		String customerEmail = "customer" + customer + "@example.com";
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int partySize = random.nextInt(minPartySize, maxPartySize + 1);
+
+		long start = System.nanoTime();
+		SeatHold hold;
+		try {
+			hold = ticketService.findAndHoldSeats(partySize, customerEmail);
+		}
+		catch (RuntimeException ex) {
+			noOfCallsFailed.incrementAndGet();
+			return;
+		}
+		holdLatencies.record(System.nanoTime() - start);
+
+		if(hold == null) {
+			noOfHoldsRefused.incrementAndGet();
+			return;
+		}
+		noOfHolds.incrementAndGet();
+
+		long thinkTimeInNanos = (long) (nextExponential(thinkTimeInMillis) * 1000000);
+		if(random.nextDouble() >= reserveProbability) {
+			noOfHoldsAbandoned.incrementAndGet();
+			return;
+		}
+
+		workers.schedule(() -> {
+			long reserveStart = System.nanoTime();
+			String result;
+			try {
+				result = ticketService.reserveSeats(hold.getSeatHoldID(), customerEmail);
+			}
+			catch (RuntimeException ex) {
+				noOfCallsFailed.incrementAndGet();
+				return;
+			}
+			reserveLatencies.record(System.nanoTime() - reserveStart);
+			if(result.equals(ticketService.getVenue().getHoldExpiredMessage()) || result.equals(ticketService.getVenue().getHoldNotFoundMessage())) {
+				noOfReservationsRefused.incrementAndGet();  // the hold expired while the customer was thinking
+			}
+			else {
+				noOfReservations.incrementAndGet();
+			}
+		}, thinkTimeInNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static double nextExponential(double mean) {
+		return -mean * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+	}
+
+	/**
+	 * Prints throughput and latency percentiles for each operation
+	 * @param out stream to print to
+	 * @param elapsedInNanos time the run took, as returned by run()
+	 */
+	public void printReport(PrintStream out, long elapsedInNanos) {
+		double seconds = elapsedInNanos / 1e9;
+		out.println(String.format("Customers: %d in %.2f s. Holds: %d made, %d refused (not enough seats). Reservations: %d made, %d refused (hold expired). Holds abandoned: %d. Calls failed: %d",
+				noOfCustomers, seconds, noOfHolds.get(), noOfHoldsRefused.get(), noOfReservations.get(), noOfReservationsRefused.get(), noOfHoldsAbandoned.get(), noOfCallsFailed.get()));
+		if(getNoOfCustomersFinished() < noOfCustomers) {
+			out.println(String.format("Gave up on %d customers that hadn't finished", noOfCustomers - getNoOfCustomersFinished()));
+		}
+		out.println(String.format("%-18s %10s %12s %10s %10s %10s %10s", "operation", "calls", "calls/s", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)"));
+		printLine(out, "findAndHoldSeats", holdLatencies, seconds);
+		printLine(out, "reserveSeats", reserveLatencies, seconds);
+	}
+
+	private static void printLine(PrintStream out, String operation, LatencyHistogram latencies, double seconds) {
+		out.println(String.format("%-18s %10d %12.1f %10.1f %10.1f %10.1f %10.1f", operation, latencies.getCount(), latencies.getCount() / seconds,
+				latencies.getValueAtPercentile(50) / 1e3, latencies.getValueAtPercentile(99) / 1e3, latencies.getValueAtPercentile(99.9) / 1e3, latencies.getMax() / 1e3));
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public LatencyHistogram getHoldLatencies() {
+		return holdLatencies;
+	}
+
+	public LatencyHistogram getReserveLatencies() {
+		return reserveLatencies;
+	}
+
+	public long getNoOfHolds() {
+		return noOfHolds.get();
+	}
+
+	public long getNoOfHoldsRefused() {
+		return noOfHoldsRefused.get();
+	}
+
+	public long getNoOfReservations() {
+		return noOfReservations.get();
+	}
+
+	public long getNoOfReservationsRefused() {
+		return noOfReservationsRefused.get();
+	}
+
+	public long getNoOfHoldsAbandoned() {
+		return noOfHoldsAbandoned.get();
+	}
+
+	public long getNoOfCallsFailed() {
+		return noOfCallsFailed.get();
+	}
+
+	/**
+	 * No. of customers done: refused a hold, reserved, refused a reservation, walked away, or had a call fail
+	 * @return count of customers
+	 */
+	public long getNoOfCustomersFinished() {
+		return noOfHoldsRefused.get() + noOfReservations.get() + noOfReservationsRefused.get() + noOfHoldsAbandoned.get() + noOfCallsFailed.get();
+	}
+}
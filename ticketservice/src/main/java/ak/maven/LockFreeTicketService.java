@@ -0,0 +1,312 @@
+package ak.maven;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.inject.Inject;
+
+/**
+* This class is an alternative TicketService engine for the hottest on-sales, where even striped locks end up convoying
+* The state of every seat, along with the ID of the hold or reservation that owns it, is packed into one slot of an AtomicLongArray
+* Seats are claimed one by one with compare-and-swap. If a hold can't get all the seats it asked for (other holds got to them first),
+* it gives back every seat it did claim, so partially held seats never leak
+* Holds are kept in a ConcurrentHashMap, and in a queue in the order they were made. Since every hold has the same timeout, that is
+* also the order in which they expire, so the background reaper only ever looks at the head of the queue
+* The Venue provides the number of seats and the configuration (hold timeout, messages etc.). Seats, holds and reservations are kept here,
+* not in the Venue
+* Dependency Injection is used by providing an instance of Venue class to the constructor of this class, the same way as TicketServiceImplementor
+*/
+public class LockFreeTicketService implements TicketService, AutoCloseable {
+
+	private static final long FREE = 0L;
+	private static final long HELD = 1L;
+	private static final long RESERVED = 2L;
+
+	@Inject private final Venue venue;
+	private final AtomicLongArray seats;
+	private final AtomicInteger noOfFreeSeats;
+	private final AtomicInteger firstPossiblyFreeSeat;  // index below which every seat is known to be taken
+	private final ConcurrentHashMap<Integer, SeatHold> seatHolds;
+	private final Set<Integer> seatHoldIDsInUse;  // an ID is taken before its seats are claimed, since seat slots carry the ID
+	private final SeatHoldIDAllocator seatHoldIDAllocator;
+	private final ConcurrentLinkedQueue<HoldDeadline> holdDeadlines;
+	private final ExpiredHoldTombstones expiredSeatHoldIDs;
+	private final ConcurrentLinkedQueue<Reservation> reservations;
+	private final ConfirmationCodeGenerator confirmationCodeGenerator;
+	private final HoldExpiryReaper holdExpiryReaper;
+
+	/**
+	 * constructor
+	 * @param venue: instance of Venue class, injected
+	 */
+	@Inject
+	public LockFreeTicketService(Venue venue) {
+		this.venue = venue;
+		this.seats = new AtomicLongArray(venue.getNoOfSeats());  // all slots start out as FREE
+		this.noOfFreeSeats = new AtomicInteger(venue.getNoOfSeats());
+		this.firstPossiblyFreeSeat = new AtomicInteger(0);
+		this.seatHolds = new ConcurrentHashMap<Integer, SeatHold>();
+		this.seatHoldIDsInUse = ConcurrentHashMap.newKeySet();
+		this.seatHoldIDAllocator = new SeatHoldIDAllocator(venue.getLengthOfSeatHoldID());
+		this.holdDeadlines = new ConcurrentLinkedQueue<HoldDeadline>();
+		this.expiredSeatHoldIDs = new ExpiredHoldTombstones(venue.getExpiredHoldRetentionInSeconds() * 1000L, 4, venue.getMaxExpiredSeatHoldIDs(), venue.getHoldClock().millis());
+		this.reservations = new ConcurrentLinkedQueue<Reservation>();
+		this.confirmationCodeGenerator = new ConfirmationCodeGenerator(venue.getLengthOfReservationConfirmationCode());
+		this.holdExpiryReaper = new HoldExpiryReaper(venue.getHoldExpiryTickInMillis(), this::checkAndRemoveExpiredHolds);
+	}
+
+	/**
+	 * Gets the number of 'Available' seats, which is all seats that are not held or reserved
+	 * @return the number of seats available
+	 */
+	public int numSeatsAvailable() {
+		return noOfFreeSeats.get();
+	}
+
+	/**
+	 * Finds the next best seats and holds them for the customer
+	 * Returns null if not enough seats are free, including when concurrent holds took the last seats first
+	 * @param numSeats: number of seats requested to be held
+	 * @param customerEmail: email address of the person making the request
+	 * @return a SeatHold object that represents the seat hold
+	 */
+	public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+
+		if (numSeats < 1 || numSeatsAvailable() < numSeats) {
+			return null;
+		}
+
+		int seatHoldID;
+		do {
+			seatHoldID = seatHoldIDAllocator.nextID();   // only comes round to an ID in use after the allocator wraps around
+		} while(!seatHoldIDsInUse.add(seatHoldID));
+
+		List<Integer> seatNumbers = claimSeats(seatHoldID, numSeats);
+
+		if (seatNumbers == null) {
+			seatHoldIDsInUse.remove(seatHoldID);
+			return null;
+		}
+
+		SeatHold hold = new SeatHold(seatHoldID, seatNumbers, customerEmail, LocalDateTime.now());
+		hold.setHoldDeadlineInMillis(venue.newHoldDeadlineInMillis());
+		seatHolds.put(seatHoldID, hold);
+		holdDeadlines.add(new HoldDeadline(hold, hold.getHoldDeadlineInMillis()));
+		return hold;
+	}
+
+	/**
+	 * Reserves seats contained in a SeatHold object
+	 * The hold is taken out of the map atomically, so it can only be reserved (or expired) once
+	 * @param seatHoldId: ID of the SeatHold object
+	 * @param customerEmail: email address of the person making the request
+	 * @return a string confirmation code for successful reservation, or appropriate error message otherwise
+	 */
+	public String reserveSeats(int seatHoldId, String customerEmail) {
+
+		SeatHold s = seatHolds.remove(seatHoldId);
+
+		if (s == null) {
+			return isHoldExpired(seatHoldId) ? venue.getHoldExpiredMessage() : venue.getHoldNotFoundMessage();
+		}
+
+		if (isPastDeadline(s)) {   // the reaper may not have got to it yet
+			releaseSeats(seatHoldId, s.getSeatIDsHeld());
+			expiredSeatHoldIDs.add(seatHoldId, venue.getHoldClock().millis());
+			seatHoldIDsInUse.remove(seatHoldId);
+			return venue.getHoldExpiredMessage();
+		}
+
+		for (int seatNumber : s.getSeatIDsHeld()) {
+			seats.set(seatNumber - 1, pack(RESERVED, seatHoldId));   // the seats belong to this hold, so no other thread can change them
+		}
+		seatHoldIDsInUse.remove(seatHoldId);
+
+		String confirmationCode = confirmationCodeGenerator.nextCode();
+
+		reservations.add(new Reservation(confirmationCode, s.getSeatIDsHeld(), s.getCustomerEmail(), LocalDateTime.now()));
+		return confirmationCode;
+	}
+
+	/**
+	 * Checks for holds that have gone past their deadline, and frees up their seats
+	 * Only the head of the deadline queue is looked at, and holds that were reserved in the meantime are skipped
+	 * This is done every tick by the background reaper
+	 */
+	public void checkAndRemoveExpiredHolds() {
+
+		long now = venue.getHoldClock().millis();
+		HoldDeadline head;
+
+		while ((head = holdDeadlines.peek()) != null && head.deadlineInMillis < now) {
+			if (holdDeadlines.remove(head) && seatHolds.remove(head.seatHold.getSeatHoldID(), head.seatHold)) {
+				releaseSeats(head.seatHold.getSeatHoldID(), head.seatHold.getSeatIDsHeld());
+				expiredSeatHoldIDs.add(head.seatHold.getSeatHoldID(), now);
+				seatHoldIDsInUse.remove(head.seatHold.getSeatHoldID());
+			}
+		}
+
+		expiredSeatHoldIDs.rotate(now);
+	}
+
+	/**
+	 * Checks if provided SeatHold is expired, i.e. it has been marked expired by the background reaper
+	 * @param seatHoldId ID for SeatHold object
+	 * @return true if the hold is expired, false otherwise
+	 */
+	public boolean isHoldExpired(int seatHoldId) {
+		return expiredSeatHoldIDs.contains(seatHoldId);
+	}
+
+	/**
+	 * Checks if provided SeatHold ID is valid (i.e. a SeatHold exists for it)
+	 * @param seatHoldId ID for SeatHold object
+	 * @return true if the SeatHold ID is valid, false otherwise
+	 */
+	public boolean isValidHoldID(int seatHoldId) {
+		return seatHolds.containsKey(seatHoldId);
+	}
+
+	/**
+	 * Stops the background reaper that releases expired holds
+	 */
+	@Override
+	public void close() {
+		holdExpiryReaper.close();
+	}
+
+	/**
+	 * Claims the first N free seats for a hold, by swapping their slots from FREE to HELD by the hold
+	 * Scanning starts from the first seat that might be free, and wraps around to the start of the venue if needed
+	 * If not enough seats can be claimed, because concurrent holds took them first, the seats claimed so far are rolled back
+	 * @param seatHoldID ID of the hold claiming the seats
+	 * @param numSeats Number of seats requested for hold
+	 * @return a list of seat numbers claimed, or null if not enough seats could be claimed
+	 */
+	private List<Integer> claimSeats(int seatHoldID, int numSeats) {
+
+		long heldByHold = pack(HELD, seatHoldID);
+		List<Integer> claimed = new ArrayList<Integer>(numSeats);
+		int start = firstPossiblyFreeSeat.get();
+		int i = start;
+
+		for (; i < seats.length() && claimed.size() < numSeats; i++) {
+			claimSeat(i, heldByHold, claimed);
+		}
+
+		if (claimed.size() == numSeats) {
+			if (firstPossiblyFreeSeat.compareAndSet(start, i)) {   // every seat between start and i was seen taken
+				lowerToFirstFreeSeat(start, i);
+			}
+			return claimed;
+		}
+
+		/*
+		 * A seat freed just behind a concurrent scan can end up below the starting point, so look there before giving up
+		 */
+		for (int j = 0; j < start && claimed.size() < numSeats; j++) {
+			claimSeat(j, heldByHold, claimed);
+		}
+
+		if (claimed.size() < numSeats) {
+			releaseSeats(seatHoldID, claimed);
+			return null;
+		}
+
+		Collections.sort(claimed);
+		return claimed;
+	}
+
+	private void claimSeat(int index, long heldByHold, List<Integer> claimed) {
+		if (seats.get(index) == FREE && seats.compareAndSet(index, FREE, heldByHold)) {
+			noOfFreeSeats.decrementAndGet();
+			claimed.add(index + 1);
+		}
+	}
+
+	/**
+	 * Frees up seats held by a hold. Seats that the hold no longer owns are left alone
+	 * @param seatHoldID ID of the hold
+	 * @param seatNumbers Seat Numbers held
+	 */
+	private void releaseSeats(int seatHoldID, List<Integer> seatNumbers) {
+
+		long heldByHold = pack(HELD, seatHoldID);
+
+		for (int seatNumber : seatNumbers) {
+			if (seats.compareAndSet(seatNumber - 1, heldByHold, FREE)) {
+				noOfFreeSeats.incrementAndGet();
+				lowerFirstPossiblyFreeSeat(seatNumber - 1);
+			}
+		}
+	}
+
+	/**
+	 * Looks again at the seats the hint was just moved past. A seat freed behind the scan, before the hint moved, saw the hint still
+	 * at or below it and left it alone, so the hint is lowered to it here. Seats freed after this look lower the hint themselves
+	 * @param from Seat index the hint was moved from
+	 * @param to Seat index the hint was moved to
+	 */
+	private void lowerToFirstFreeSeat(int from, int to) {
+		for (int j = from; j < to; j++) {
+			if (seats.get(j) == FREE) {
+				lowerFirstPossiblyFreeSeat(j);
+				return;
+			}
+		}
+	}
+
+	private void lowerFirstPossiblyFreeSeat(int index) {
+		for (;;) {
+			int current = firstPossiblyFreeSeat.get();
+			if (current <= index || firstPossiblyFreeSeat.compareAndSet(current, index)) {
+				return;
+			}
+		}
+	}
+
+	private boolean isPastDeadline(SeatHold s) {
+		return s.getHoldDeadlineInMillis() < venue.getHoldClock().millis();
+	}
+
+	/**
+	 * Packs a seat state and the ID of the hold owning the seat into one slot: the state goes in the high 32 bits
+	 */
+	private static long pack(long state, int seatHoldID) {
+		return (state << 32) | (seatHoldID & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public Venue getVenue() {
+		return this.venue;
+	}
+
+	public List<Reservation> getReservations() {
+		return new ArrayList<Reservation>(reservations);
+	}
+
+	public boolean isSeatFree(int seatNumber) {
+		return seats.get(seatNumber - 1) == FREE;
+	}
+
+	/**
+	 * A hold queued for expiry, along with its deadline
+	 */
+	private static final class HoldDeadline {
+
+		private final SeatHold seatHold;
+		private final long deadlineInMillis;
+
+		private HoldDeadline(SeatHold seatHold, long deadlineInMillis) {
+			this.seatHold = seatHold;
+			this.deadlineInMillis = deadlineInMillis;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package ak.maven;
+
+/**
+* This class is one event read back from a WriteAheadLog: a hold made, a hold expired, a hold released, a hold reserved, a reservation cancelled,
+* or the key confirmation codes are issued with
+* Fields that don't apply to the type of event are left empty (0, null or an empty array)
+* Objects of this class don't change once read
+*/
+public final class LogRecord {
+
+	/**
+	 * Kinds of events logged
+	 */
+	public enum Type { HOLD, EXPIRE, RELEASE, RESERVE, CANCEL, CODE_KEY }  // stored by ordinal, so new kinds go at the end
+
+	private final long lsn;
+	private final Type type;
+	private final int seatHoldID;
+	private final long timestampInMillis;
+	private final String customerEmail;
+	private final String confirmationCode;
+	private final int[] seatNumbers;
+	private final long confirmationCodeKey;
+
+	/**
+	 * Constructor
+	 * @param lsn Log sequence number: the position in the log just past the end of the record
+	 * @param type Kind of event
+	 * @param seatHoldID ID of the hold the event is about (0 for a cancellation)
+	 * @param timestampInMillis Time of the hold or reservation, in milliseconds since the epoch
+	 * @param customerEmail Email address of the customer
+	 * @param confirmationCode Confirmation code of the reservation
+	 * @param seatNumbers Seat Numbers held or reserved
+	 */
+	public LogRecord(long lsn, Type type, int seatHoldID, long timestampInMillis, String customerEmail, String confirmationCode, int[] seatNumbers) {
+		this(lsn, type, seatHoldID, timestampInMillis, customerEmail, confirmationCode, seatNumbers, 0);
+	}
+
+	/**
+	 * Constructor
+	 * @param lsn Log sequence number: the position in the log just past the end of the record
+	 * @param type Kind of event
+	 * @param seatHoldID ID of the hold the event is about (0 for a cancellation)
+	 * @param timestampInMillis Time of the hold or reservation, in milliseconds since the epoch
+	 * @param customerEmail Email address of the customer
+	 * @param confirmationCode Confirmation code of the reservation
+	 * @param seatNumbers Seat Numbers held or reserved
+	 * @param confirmationCodeKey Key of the ConfirmationCodeGenerator, for a CODE_KEY record
+	 */
+	public LogRecord(long lsn, Type type, int seatHoldID, long timestampInMillis, String customerEmail, String confirmationCode, int[] seatNumbers, long confirmationCodeKey) {
+		this.lsn = lsn;
+		this.type = type;
+		this.seatHoldID = seatHoldID;
+		this.timestampInMillis = timestampInMillis;
+		this.customerEmail = customerEmail;
+		this.confirmationCode = confirmationCode;
+		this.seatNumbers = seatNumbers;
+		this.confirmationCodeKey = confirmationCodeKey;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public long getLsn() {
+		return lsn;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public int getSeatHoldID() {
+		return seatHoldID;
+	}
+
+	public long getTimestampInMillis() {
+		return timestampInMillis;
+	}
+
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+
+	public String getConfirmationCode() {
+		return confirmationCode;
+	}
+
+	public int[] getSeatNumbers() {
+		return seatNumbers.clone();
+	}
+
+	public SeatNumbers getSeatNumbersAsList() {
+		return SeatNumbers.of(seatNumbers);
+	}
+
+	public long getConfirmationCodeKey() {
+		return confirmationCodeKey;
+	}
+}
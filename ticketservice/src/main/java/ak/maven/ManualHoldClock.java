@@ -0,0 +1,37 @@
+package ak.maven;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* This class is a HoldClock that only moves when it's told to, so tests and benchmarks can expire holds deterministically
+* It's safe to read from the background reaper while another thread moves it on
+*/
+public class ManualHoldClock implements HoldClock {
+
+	private final AtomicLong nowInMillis;
+
+	/**
+	 * Constructor
+	 * @param startInMillis Time the clock starts at
+	 */
+	public ManualHoldClock(long startInMillis) {
+		this.nowInMillis = new AtomicLong(startInMillis);
+	}
+
+	@Override
+	public long millis() {
+		return nowInMillis.get();
+	}
+
+	/**
+	 * Moves the clock on
+	 * @param millis No. of milliseconds to move on by
+	 * @return the new time
+	 */
+	public long advance(long millis) {
+
+		if (millis < 0) throw new IllegalArgumentException("The clock can't go backwards");
+
+		return nowInMillis.addAndGet(millis);
+	}
+}
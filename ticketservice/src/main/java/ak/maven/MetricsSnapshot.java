@@ -0,0 +1,102 @@
+package ak.maven;
+
+/**
+* This class holds the metrics of a TicketServiceImplementor at one point in time, as taken by TicketServiceMetrics
+* Counters are totals since the service started, so the difference between two snapshots gives the rates for the time in between
+* The latency histograms only hold the calls made since the snapshot before, and are in nanoseconds
+* Objects of this class don't change once taken
+*/
+public final class MetricsSnapshot {
+
+	private final long timestampInMillis;
+	private final long holdsMade;
+	private final long holdsRefused;
+	private final long reservationsMade;
+	private final long reservationsRefused;
+	private final long holdsExpired;
+	private final long reservationsCancelled;
+	private final int seatsAvailable;
+	private final int activeSeatHolds;
+	private final int reservations;
+	private final LatencyHistogram findAndHoldSeatsLatencies;
+	private final LatencyHistogram reserveSeatsLatencies;
+
+	MetricsSnapshot(long timestampInMillis, long holdsMade, long holdsRefused, long reservationsMade, long reservationsRefused, long holdsExpired,
+			long reservationsCancelled, int seatsAvailable, int activeSeatHolds, int reservations, LatencyHistogram findAndHoldSeatsLatencies, LatencyHistogram reserveSeatsLatencies) {
+		this.timestampInMillis = timestampInMillis;
+		this.holdsMade = holdsMade;
+		this.holdsRefused = holdsRefused;
+		this.reservationsMade = reservationsMade;
+		this.reservationsRefused = reservationsRefused;
+		this.holdsExpired = holdsExpired;
+		this.reservationsCancelled = reservationsCancelled;
+		this.seatsAvailable = seatsAvailable;
+		this.activeSeatHolds = activeSeatHolds;
+		this.reservations = reservations;
+		this.findAndHoldSeatsLatencies = findAndHoldSeatsLatencies;
+		this.reserveSeatsLatencies = reserveSeatsLatencies;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("holds made=%d refused=%d expired=%d, reservations made=%d refused=%d cancelled=%d, seats available=%d, active holds=%d, reservations=%d, "
+				+ "findAndHoldSeats calls=%d p50=%.1fus p99=%.1fus p999=%.1fus, reserveSeats calls=%d p50=%.1fus p99=%.1fus p999=%.1fus",
+				holdsMade, holdsRefused, holdsExpired, reservationsMade, reservationsRefused, reservationsCancelled, seatsAvailable, activeSeatHolds, reservations,
+				findAndHoldSeatsLatencies.getCount(), findAndHoldSeatsLatencies.getValueAtPercentile(50) / 1e3,
+				findAndHoldSeatsLatencies.getValueAtPercentile(99) / 1e3, findAndHoldSeatsLatencies.getValueAtPercentile(99.9) / 1e3,
+				reserveSeatsLatencies.getCount(), reserveSeatsLatencies.getValueAtPercentile(50) / 1e3,
+				reserveSeatsLatencies.getValueAtPercentile(99) / 1e3, reserveSeatsLatencies.getValueAtPercentile(99.9) / 1e3);
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public long getTimestampInMillis() {
+		return timestampInMillis;
+	}
+
+	public long getHoldsMade() {
+		return holdsMade;
+	}
+
+	public long getHoldsRefused() {
+		return holdsRefused;
+	}
+
+	public long getReservationsMade() {
+		return reservationsMade;
+	}
+
+	public long getReservationsRefused() {
+		return reservationsRefused;
+	}
+
+	public long getHoldsExpired() {
+		return holdsExpired;
+	}
+
+	public long getReservationsCancelled() {
+		return reservationsCancelled;
+	}
+
+	public int getSeatsAvailable() {
+		return seatsAvailable;
+	}
+
+	public int getActiveSeatHolds() {
+		return activeSeatHolds;
+	}
+
+	public int getReservations() {
+		return reservations;
+	}
+
+	public LatencyHistogram getFindAndHoldSeatsLatencies() {
+		return findAndHoldSeatsLatencies;
+	}
+
+	public LatencyHistogram getReserveSeatsLatencies() {
+		return reserveSeatsLatencies;
+	}
+}
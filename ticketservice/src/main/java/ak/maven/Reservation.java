@@ -1,29 +1,30 @@
 package ak.maven;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
 * This class represents information about a reservation
 * The Venue class maintains a collection of Reservation objects
+* Seat numbers are kept as a compact SeatNumbers list rather than one boxed Integer per seat
 */
 public class Reservation {
 	
 	private String reservationID;
-	private ArrayList<Integer> seatIDsReserved;
+	private SeatNumbers seatIDsReserved;
 	private String customerEmail;
 	private LocalDateTime reservationTimestamp;
 	
 	/**
 	 * Constructor
 	 * @param reservationID ID generated for the reservation
-	 * @param seatIDsReserved Seat Numbers reserved
+	 * @param seatIDsReserved Seat Numbers reserved (copied)
 	 * @param customerEmail Email address of the person making the hold (not really used in this application)
 	 * @param reservationTimestamp Timestamp of the reservation (not really used in this application)
 	 */
-	public Reservation(String reservationID, ArrayList<Integer> seatIDsReserved, String customerEmail, LocalDateTime reservationTimestamp) {
+	public Reservation(String reservationID, List<Integer> seatIDsReserved, String customerEmail, LocalDateTime reservationTimestamp) {
 		this.reservationID = reservationID;
-		this.seatIDsReserved = seatIDsReserved;
+		this.seatIDsReserved = SeatNumbers.of(seatIDsReserved);
 		this.customerEmail = customerEmail;
 		this.reservationTimestamp = reservationTimestamp;
 	}	
@@ -36,7 +37,15 @@ public class Reservation {
 		return this.reservationID;
 	}
 	
-	public ArrayList<Integer> getSeatIDsReserved() {
+	public SeatNumbers getSeatIDsReserved() {
 		return seatIDsReserved;
 	}	
+	
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+	
+	public LocalDateTime getReservationTimestamp() {
+		return reservationTimestamp;
+	}
 }
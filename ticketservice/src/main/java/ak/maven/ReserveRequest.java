@@ -0,0 +1,32 @@
+package ak.maven;
+
+/**
+* This class represents one request to reserve the seats of a hold, as passed to the batch form of reserveSeats
+*/
+public class ReserveRequest {
+
+	private final int seatHoldId;
+	private final String customerEmail;
+
+	/**
+	 * Constructor
+	 * @param seatHoldId ID of the SeatHold object
+	 * @param customerEmail email address of the person making the request
+	 */
+	public ReserveRequest(int seatHoldId, String customerEmail) {
+		this.seatHoldId = seatHoldId;
+		this.customerEmail = customerEmail;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public int getSeatHoldId() {
+		return seatHoldId;
+	}
+
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+}
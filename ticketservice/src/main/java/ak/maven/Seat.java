@@ -3,18 +3,36 @@ package ak.maven;
 /**
 * This class represents information about a seat
 * Other classes maintain a collection of Seat objects
-* The only relevant data in this class for this application is the seat number, but in other scenarios, we could have seat type, price etc.
+* Besides the seat number, a seat knows its section and row, and its rank: its place in the venue's best-seat ranking (1 is the best seat)
+* In other scenarios, we could have seat type, price etc.
 */
 public class Seat {
 	
 	private int seatNumber;	
+	private String sectionName;
+	private int rowNumber;
+	private int rank;
 	
 	/**
-	 * Constructor
+	 * Constructor, for a venue without sections. Seats are ranked by seat number
 	 * @param seatNumber Seat Number
 	 */
 	public Seat(int seatNumber) {
-		this.seatNumber = seatNumber;		
+		this(seatNumber, null, 1, seatNumber);
+	}
+	
+	/**
+	 * Constructor
+	 * @param seatNumber Seat Number
+	 * @param sectionName Name of the section the seat is in
+	 * @param rowNumber Row of the seat within its section, 1 being the front row
+	 * @param rank Place of the seat in the best-seat ranking, 1 being the best seat
+	 */
+	public Seat(int seatNumber, String sectionName, int rowNumber, int rank) {
+		this.seatNumber = seatNumber;
+		this.sectionName = sectionName;
+		this.rowNumber = rowNumber;
+		this.rank = rank;
 	}
 	
 	/**
@@ -27,5 +45,29 @@ public class Seat {
 
 	public void setSeatNumber(int seatNumber) {
 		this.seatNumber = seatNumber;
+	}
+
+	public String getSectionName() {
+		return sectionName;
+	}
+
+	public void setSectionName(String sectionName) {
+		this.sectionName = sectionName;
+	}
+
+	public int getRowNumber() {
+		return rowNumber;
+	}
+
+	public void setRowNumber(int rowNumber) {
+		this.rowNumber = rowNumber;
+	}
+
+	public int getRank() {
+		return rank;
+	}
+
+	public void setRank(int rank) {
+		this.rank = rank;
 	}	
-}
\ No newline at end of file
+}
@@ -7,25 +7,28 @@ import java.util.*;
 * This class represents information about a Seat Hold
 * The Venue class maintains a collection of SeatHold objects
 * Most methods are getters/setters
+* Seat numbers are kept as a compact SeatNumbers list rather than one boxed Integer per seat
+* Besides its timestamp, a hold carries its deadline as a primitive time on the Venue's HoldClock, so checking it never allocates
 */
 public class SeatHold {
 	
 	private int seatHoldID;
-	private ArrayList<Integer> seatIDsHeld;
+	private SeatNumbers seatIDsHeld;
 	private String customerEmail;
 	private LocalDateTime holdTimestamp;
+	private long holdDeadlineInMillis = Long.MIN_VALUE;  // on the venue's HoldClock, worked out by the venue if not set beforehand
 	
 	
 	/**
 	 * Constructor
 	 * @param seatHoldID ID for the Seat Hold
-	 * @param seatIDsHeld Seat Numbers held
+	 * @param seatIDsHeld Seat Numbers held (copied)
 	 * @param customerEmail Email address of the person making the hold
 	 * @param localDateTime Timestamp of the hold (to be used to chek for expired holds)
 	 */
-	public SeatHold(int seatHoldID, ArrayList<Integer> seatIDsHeld, String customerEmail, LocalDateTime localDateTime){
+	public SeatHold(int seatHoldID, List<Integer> seatIDsHeld, String customerEmail, LocalDateTime localDateTime){
 		this.seatHoldID = seatHoldID;
-		this.seatIDsHeld = seatIDsHeld;
+		this.seatIDsHeld = SeatNumbers.of(seatIDsHeld);
 		this.customerEmail = customerEmail;
 		this.holdTimestamp = localDateTime;
 	}
@@ -42,12 +45,12 @@ public class SeatHold {
 		this.seatHoldID = seatHoldID;
 	}
 	
-	public ArrayList<Integer> getSeatIDsHeld() {
+	public SeatNumbers getSeatIDsHeld() {
 		return seatIDsHeld;
 	}
 	
-	public void setSeatIDsHeld(ArrayList<Integer> seatIDsHeld) {
-		this.seatIDsHeld = seatIDsHeld;
+	public void setSeatIDsHeld(List<Integer> seatIDsHeld) {
+		this.seatIDsHeld = SeatNumbers.of(seatIDsHeld);
 	}
 	
 	public String getCustomerEmail() {
@@ -65,4 +68,16 @@ public class SeatHold {
 	public void setHoldTimestamp(LocalDateTime holdTimestamp) {
 		this.holdTimestamp = holdTimestamp;
 	}
+	
+	public boolean hasHoldDeadline() {
+		return holdDeadlineInMillis != Long.MIN_VALUE;
+	}
+	
+	public long getHoldDeadlineInMillis() {
+		return holdDeadlineInMillis;
+	}
+	
+	public void setHoldDeadlineInMillis(long holdDeadlineInMillis) {
+		this.holdDeadlineInMillis = holdDeadlineInMillis;
+	}
 }
@@ -0,0 +1,57 @@
+package ak.maven;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* This class hands out SeatHold IDs of a fixed number of digits, without ever having to check whether an ID was used before
+* IDs come from a counter run through a keyed FeistelPermutation of all IDs of that length, so consecutive holds get IDs
+* that can't be guessed from each other, and no ID comes up twice until every other ID has been handed out
+* After that the counter wraps around and the IDs of long expired or reserved holds are handed out again, in the same order
+* The class is thread-safe and doesn't allocate anything per ID
+*/
+public class SeatHoldIDAllocator {
+
+	private final long firstID;
+	private final FeistelPermutation permutation;
+	private final AtomicLong sequence;
+
+	/**
+	 * Constructor. The shuffle is keyed randomly
+	 * @param lengthOfID No. of digits in each ID (1 to 9)
+	 */
+	public SeatHoldIDAllocator(int lengthOfID) {
+		this(lengthOfID, new SecureRandom().nextLong());
+	}
+
+	/**
+	 * Constructor
+	 * @param lengthOfID No. of digits in each ID (1 to 9)
+	 * @param key key for the shuffle
+	 */
+	public SeatHoldIDAllocator(int lengthOfID, long key) {
+
+		if (lengthOfID < 1 || lengthOfID > 9) throw new IllegalArgumentException();
+
+		this.firstID = lengthOfID == 1 ? 1 : (long) Math.pow(10, lengthOfID - 1);
+		this.permutation = new FeistelPermutation((long) Math.pow(10, lengthOfID) - firstID, key);
+		this.sequence = new AtomicLong();
+	}
+
+	/**
+	 * Hands out the next ID
+	 * @return a positive integer of the configured length
+	 */
+	public int nextID() {
+		long n = Math.floorMod(sequence.getAndIncrement(), permutation.getDomainSize());
+		return (int) (firstID + permutation.permute(n));
+	}
+
+	/**
+	 * No. of distinct IDs handed out before they start coming round again
+	 * @return count of IDs
+	 */
+	public long getNoOfIDs() {
+		return permutation.getDomainSize();
+	}
+}
@@ -0,0 +1,111 @@
+package ak.maven;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+* This class is a compact, read-only list of seat numbers, as held by a SeatHold or reserved by a Reservation
+* Seats are stored as runs of consecutive seat numbers, in a single int array, instead of one boxed Integer per seat. Holds are
+* mostly blocks of seats next to each other, so a hold of any size usually takes one run, i.e. two ints
+* The order of the seats is kept as given. Seats are only boxed when read through the List methods; getInt reads them without boxing
+*/
+public final class SeatNumbers extends AbstractList<Integer> implements RandomAccess {
+
+	private static final SeatNumbers EMPTY = new SeatNumbers(new int[0]);
+
+	private final int[] runs;  // pairs of (first seat of the run, no. of seats up to and including the run)
+
+	private SeatNumbers(int[] runs) {
+		this.runs = runs;
+	}
+
+	/**
+	 * Makes a compact copy of a list of seat numbers
+	 * @param seatNumbers Seat Numbers, in order
+	 * @return the seat numbers as a SeatNumbers, or the same list if it already is one
+	 */
+	public static SeatNumbers of(List<Integer> seatNumbers) {
+		if(seatNumbers instanceof SeatNumbers) {
+			return (SeatNumbers) seatNumbers;
+		}
+		int[] seats = new int[seatNumbers.size()];
+		for(int i = 0; i < seats.length; i++) {
+			seats[i] = seatNumbers.get(i);
+		}
+		return of(seats);
+	}
+
+	/**
+	 * Makes a compact copy of an array of seat numbers
+	 * @param seatNumbers Seat Numbers, in order
+	 * @return the seat numbers as a SeatNumbers
+	 */
+	public static SeatNumbers of(int[] seatNumbers) {
+
+		if(seatNumbers.length == 0) {
+			return EMPTY;
+		}
+
+		int noOfRuns = 1;
+		for(int i = 1; i < seatNumbers.length; i++) {
+			if(seatNumbers[i] != seatNumbers[i - 1] + 1) {
+				noOfRuns++;
+			}
+		}
+
+		int[] runs = new int[2 * noOfRuns];
+		int run = 0;
+		runs[0] = seatNumbers[0];
+		for(int i = 1; i < seatNumbers.length; i++) {
+			if(seatNumbers[i] != seatNumbers[i - 1] + 1) {
+				runs[run + 1] = i;
+				run += 2;
+				runs[run] = seatNumbers[i];
+			}
+		}
+		runs[run + 1] = seatNumbers.length;
+		return new SeatNumbers(runs);
+	}
+
+	/**
+	 * Gets a seat number without boxing it
+	 * @param index Position of the seat in the list
+	 * @return the seat number
+	 */
+	public int getInt(int index) {
+
+		if(index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+
+		int low = 0;
+		int high = runs.length / 2 - 1;
+		while(low < high) {   // first run whose end is past the index
+			int mid = (low + high) >>> 1;
+			if(runs[2 * mid + 1] <= index) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		int start = low == 0 ? 0 : runs[2 * low - 1];
+		return runs[2 * low] + index - start;
+	}
+
+	@Override
+	public Integer get(int index) {
+		return getInt(index);
+	}
+
+	@Override
+	public int size() {
+		return runs.length == 0 ? 0 : runs[runs.length - 1];
+	}
+
+	/**
+	 * @return the no. of runs of consecutive seat numbers
+	 */
+	public int getNoOfRuns() {
+		return runs.length / 2;
+	}
+}
@@ -0,0 +1,655 @@
+package ak.maven;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+* This class keeps a live index of the state of every seat in the venue (free, held or reserved)
+* Seats are split into stripes, one per row of each Section. Each stripe has its own lock and its own bitsets, so that
+* changes to different parts of the venue go ahead in parallel. No operation holds more than one stripe lock at a time
+* The best-seat ranking is worked out once, when the index is built: sections from the highest quality down, rows front to back,
+* and seats from the start of the row. Stripes are kept in that order, so searching them in order finds the best seats first
+* A running count of free seats is kept in an atomic counter, for the venue and for each section, so that availability can be read
+* in constant time without taking any lock, and sold out sections are skipped without looking at their rows. Reserved seats are counted too. Holding seats first
+* takes the seats off the counter, which guarantees that enough free seats exist, and then claims them stripe by stripe
+* The venue's counter also carries a version, moved on in the same atomic step by every change to it, so a snapshot of availability
+* can tell whether it's still current from a single read
+* Every stripe also keeps a FreeRunIndex over its seats, and the longest free run of every stripe is kept in a max-tree over the
+* stripes, so a block of N seats next to each other can be found in logarithmic time. The max-tree is updated with
+* compare-and-swap, without a lock of its own: it can briefly be behind the stripes, so what it points to is checked again
+* with the stripe locked
+*/
+public class SeatStateIndex {
+
+	private static final long VERSION = 1L << 32;  // one change, in the version bits of the free count
+
+	private final int noOfSeats;
+	private final SectionRange[] sections;  // in ranking order
+	private final Stripe[] stripes;  // in ranking order
+	private final int[] firstSeatOfRows;  // first seat number of every row, in seat number order
+	private final Stripe[] stripesOfRows;  // stripe of every row, in seat number order
+	private final AtomicLong freeSeatsAndVersion;  // version (changed with every change to the count) in the high 32 bits, no. of free seats in the low 32 bits
+	private final AtomicInteger noOfReservedSeats = new AtomicInteger();
+	private final int firstRunLeaf;
+	private final AtomicIntegerArray longestRuns;  // max-tree over the longest free run of every stripe, root at 1
+
+	/**
+	 * Constructor for a venue without sections: seats are ranked by seat number. All seats start out as free
+	 * @param noOfSeats No. of seats to be indexed
+	 * @param seatsPerStripe No. of consecutive seats sharing a lock
+	 */
+	public SeatStateIndex(int noOfSeats, int seatsPerStripe) {
+		this(Collections.singletonList(new Section(null, noOfSeats, seatsPerStripe, 0)));
+	}
+
+	/**
+	 * Constructor. Seats are numbered from 1, section by section in the order given, and row by row within a section
+	 * All seats start out as free
+	 * @param sections Sections of the venue
+	 */
+	public SeatStateIndex(List<Section> sections) {
+
+		List<Integer> sectionsByQuality = new ArrayList<Integer>();
+		int[] firstSeatOfSection = new int[sections.size()];
+		int noOfSeats = 0;
+		int noOfRows = 0;
+		for(int i = 0; i < sections.size(); i++) {
+			sectionsByQuality.add(i);
+			firstSeatOfSection[i] = noOfSeats + 1;
+			noOfSeats += sections.get(i).getNoOfSeats();
+			noOfRows += sections.get(i).getNoOfRows();
+		}
+		Collections.sort(sectionsByQuality, (a, b) -> Integer.compare(sections.get(b).getQuality(), sections.get(a).getQuality()));  // stable, so ties keep their order
+
+		this.noOfSeats = noOfSeats;
+		this.sections = new SectionRange[sections.size()];
+		this.stripes = new Stripe[noOfRows];
+		this.stripesOfRows = new Stripe[noOfRows];
+		this.firstSeatOfRows = new int[noOfRows];
+
+		int stripeIndex = 0;
+		int rank = 1;
+		for(int i = 0; i < sectionsByQuality.size(); i++) {
+			int sectionIndex = sectionsByQuality.get(i);
+			Section section = sections.get(sectionIndex);
+			SectionRange range = new SectionRange(sectionIndex, section.getNoOfSeats(), stripeIndex);
+			for(int row = 0; row < section.getNoOfRows(); row++) {
+				int firstSeat = firstSeatOfSection[sectionIndex] + row * section.getSeatsPerRow();
+				int seatsInRow = Math.min(section.getSeatsPerRow(), section.getNoOfSeats() - row * section.getSeatsPerRow());
+				stripes[stripeIndex] = new Stripe(stripeIndex, firstSeat, seatsInRow, row + 1, rank, range.noOfFree);
+				stripeIndex++;
+				rank += seatsInRow;
+			}
+			range.endStripe = stripeIndex;
+			this.sections[i] = range;
+		}
+
+		Stripe[] bySeatNumber = stripes.clone();
+		Arrays.sort(bySeatNumber, Comparator.comparingInt((Stripe stripe) -> stripe.firstSeat));
+		for(int i = 0; i < noOfRows; i++) {
+			stripesOfRows[i] = bySeatNumber[i];
+			firstSeatOfRows[i] = bySeatNumber[i].firstSeat;
+		}
+		this.freeSeatsAndVersion = new AtomicLong(noOfSeats);
+
+		int firstRunLeaf = 1;
+		while(firstRunLeaf < stripes.length) {
+			firstRunLeaf <<= 1;
+		}
+		this.firstRunLeaf = firstRunLeaf;
+		this.longestRuns = new AtomicIntegerArray(2 * firstRunLeaf);
+		for(Stripe stripe : stripes) {
+			longestRuns.set(firstRunLeaf + stripe.index, stripe.publishedRun);
+		}
+		for(int node = firstRunLeaf - 1; node >= 1; node--) {
+			longestRuns.set(node, Math.max(longestRuns.get(2 * node), longestRuns.get(2 * node + 1)));
+		}
+	}
+
+	/**
+	 * Finds the best N free seats and marks them as held, in one step
+	 * The best ranked block of N seats next to each other (within a row) is taken if there is one
+	 * Otherwise seats are taken in ranking order, wherever they are. Sold out sections and rows are skipped by their free counts,
+	 * so the work done grows with the seats returned rather than the size of the venue. A row that is busy with another hold is
+	 * passed over on the first pass, so that concurrent holds spread across the venue instead of queuing on the same row
+	 * @param numSeats No. of seats requested
+	 * @return a list of seat numbers now held, or null if not enough seats are free
+	 */
+	public List<Integer> claim(int numSeats) {
+
+		if(numSeats < 1 || !takeFromFreeCount(numSeats)) {
+			return null;
+		}
+
+		List<Integer> claimed = new ArrayList<Integer>(numSeats);
+
+		if(claimBlock(numSeats, claimed)) {
+			return claimed;
+		}
+
+		for(int pass = 0; pass < 2 && claimed.size() < numSeats; pass++) {
+			for(SectionRange section : sections) {
+
+				if(claimed.size() == numSeats) {
+					break;
+				}
+				if(section.noOfFree.get() == 0) {
+					continue;
+				}
+
+				for(int i = section.firstStripe; i < section.endStripe && claimed.size() < numSeats; i++) {
+
+					Stripe stripe = stripes[i];
+					if(stripe.noOfFree == 0) {
+						continue;
+					}
+					if(pass == 0) {
+						if(!stripe.lock.tryLock()) {
+							continue;
+						}
+					}
+					else {
+						stripe.lock.lock();
+					}
+
+					try {
+						stripe.claim(numSeats - claimed.size(), claimed);
+						publishLongestRun(stripe);
+					}
+					finally {
+						stripe.lock.unlock();
+					}
+				}
+			}
+		}
+
+		/*
+		 * This can only happen if seats were held or reserved by number (not through claim()) while we were looking.
+		 * Give back the seats found so far, along with the rest of the count taken for them
+		 */
+		if(claimed.size() < numSeats) {
+			release(claimed);
+			addToFreeCount(numSeats - claimed.size());
+			return null;
+		}
+
+		return claimed;
+	}
+
+	/**
+	 * Marks seats as held by number. Only seats that are currently free change state
+	 * @param seatNumbers Seat Numbers being held
+	 */
+	public void hold(List<Integer> seatNumbers) {
+		for(int seatNumber : seatNumbers) {
+			Stripe stripe = stripeFor(seatNumber);
+			if(stripe == null) {
+				continue;
+			}
+			stripe.lock.lock();
+			try {
+				if(stripe.setState(seatNumber, SeatState.FREE, SeatState.HELD)) {
+					addToFreeCount(-1);
+				}
+				publishLongestRun(stripe);
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Marks held seats as free again, e.g. when a hold expires or is removed. Seats that aren't held are left alone
+	 * @param seatNumbers Seat Numbers being released
+	 */
+	public void release(List<Integer> seatNumbers) {
+		for(int seatNumber : seatNumbers) {
+			Stripe stripe = stripeFor(seatNumber);
+			if(stripe == null) {
+				continue;
+			}
+			stripe.lock.lock();
+			try {
+				if(stripe.setState(seatNumber, SeatState.HELD, SeatState.FREE)) {
+					addToFreeCount(1);  // only counted once the seat can actually be claimed
+				}
+				publishLongestRun(stripe);
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Marks seats as reserved, whether they were free or held before
+	 * @param seatNumbers Seat Numbers being reserved
+	 */
+	public void reserve(List<Integer> seatNumbers) {
+		for(int seatNumber : seatNumbers) {
+			Stripe stripe = stripeFor(seatNumber);
+			if(stripe == null) {
+				continue;
+			}
+			stripe.lock.lock();
+			try {
+				if(stripe.setState(seatNumber, SeatState.FREE, SeatState.RESERVED)) {
+					addToFreeCount(-1);
+					noOfReservedSeats.incrementAndGet();
+				}
+				else if(stripe.setState(seatNumber, SeatState.HELD, SeatState.RESERVED)) {
+					noOfReservedSeats.incrementAndGet();
+				}
+				publishLongestRun(stripe);
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Marks reserved seats as free again, when a reservation is cancelled. Seats that aren't reserved are left alone
+	 * @param seatNumbers Seat Numbers being given back
+	 */
+	public void unreserve(List<Integer> seatNumbers) {
+		for(int seatNumber : seatNumbers) {
+			Stripe stripe = stripeFor(seatNumber);
+			if(stripe == null) {
+				continue;
+			}
+			stripe.lock.lock();
+			try {
+				if(stripe.setState(seatNumber, SeatState.RESERVED, SeatState.FREE)) {
+					addToFreeCount(1);
+					noOfReservedSeats.decrementAndGet();
+				}
+				publishLongestRun(stripe);
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Copies out which seats are reserved, e.g. to write them to a snapshot. Each stripe is locked in turn while it is copied
+	 * @return a set with bit (seat number - 1) set for every reserved seat
+	 */
+	public BitSet getReservedSeats() {
+		BitSet reserved = new BitSet(noOfSeats);
+		for(Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				for(int i = stripe.reservedSeats.nextSetBit(0); i >= 0; i = stripe.reservedSeats.nextSetBit(i + 1)) {
+					reserved.set(stripe.firstSeat - 1 + i);
+				}
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+		}
+		return reserved;
+	}
+
+	/**
+	 * Marks free seats as reserved in bulk, e.g. when restoring a snapshot. Works like reserve, but the max-tree and the free count
+	 * are only brought up to date once per stripe rather than once per seat
+	 * @param reserved a set with bit (seat number - 1) set for every seat to reserve
+	 */
+	public void restoreReservedSeats(BitSet reserved) {
+		for(Stripe stripe : stripes) {
+			int taken = 0;
+			stripe.lock.lock();
+			try {
+				int end = stripe.firstSeat - 1 + stripe.freeRuns.size();
+				for(int i = reserved.nextSetBit(stripe.firstSeat - 1); i >= 0 && i < end; i = reserved.nextSetBit(i + 1)) {
+					if(stripe.setState(i + 1, SeatState.FREE, SeatState.RESERVED)) {
+						taken++;
+					}
+				}
+				publishLongestRun(stripe);
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+			addToFreeCount(-taken);
+			noOfReservedSeats.addAndGet(taken);
+		}
+	}
+
+	/**
+	 * Claims the best ranked block of N free seats next to each other, if some row has one
+	 * The max-tree is followed down to the first stripe that seems to have a long enough run. If the stripe turns out not to
+	 * have one once it is locked (another hold got there first), the search starts over, a few times at most
+	 * @param numSeats No. of seats requested
+	 * @param claimed list the seat numbers claimed are added to
+	 * @return true if a block was claimed, false if the seats need to be found some other way
+	 */
+	private boolean claimBlock(int numSeats, List<Integer> claimed) {
+
+		for(int attempt = 0; attempt < 3; attempt++) {
+
+			int node = 1;
+			if(longestRuns.get(node) < numSeats) {
+				return false;
+			}
+			while(node < firstRunLeaf) {
+				node = longestRuns.get(2 * node) >= numSeats ? 2 * node : 2 * node + 1;
+			}
+
+			Stripe stripe = stripes[node - firstRunLeaf];
+			stripe.lock.lock();
+			try {
+				boolean found = stripe.claimBlock(numSeats, claimed);
+				publishLongestRun(stripe);
+				if(found) {
+					return true;
+				}
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Brings the max-tree up to date with the longest free run of a stripe. Called with the stripe locked
+	 * Each node on the way up is recomputed from its children and swapped in with compare-and-swap. A swap only fails if another
+	 * stripe changed the node in the meantime, in which case the node is recomputed from fresh values, so no update is lost
+	 * @param stripe stripe whose seats changed
+	 */
+	private void publishLongestRun(Stripe stripe) {
+
+		int run = stripe.freeRuns.getLongestRun();
+		if(run == stripe.publishedRun) {
+			return;
+		}
+		stripe.publishedRun = run;
+
+		int node = firstRunLeaf + stripe.index;
+		longestRuns.set(node, run);
+		while(node > 1) {
+			node >>= 1;
+			for(;;) {
+				int current = longestRuns.get(node);
+				int updated = Math.max(longestRuns.get(2 * node), longestRuns.get(2 * node + 1));
+				if(current == updated || longestRuns.compareAndSet(node, current, updated)) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes seats off the free count, if that many are free
+	 * @param numSeats No. of seats
+	 * @return true if the seats were taken off, false if not enough seats are free
+	 */
+	private boolean takeFromFreeCount(int numSeats) {
+		for(;;) {
+			long freeAndVersion = freeSeatsAndVersion.get();
+			if((int) freeAndVersion < numSeats) {
+				return false;
+			}
+			if(freeSeatsAndVersion.compareAndSet(freeAndVersion, freeAndVersion + VERSION - numSeats)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Adds to the free count, and moves its version on in the same atomic step, so no change is made without one
+	 * The count never goes below 0, so it doesn't borrow from the version
+	 */
+	private void addToFreeCount(int numSeats) {
+		freeSeatsAndVersion.addAndGet(VERSION + numSeats);
+	}
+
+	private Stripe stripeFor(int seatNumber) {
+		if(seatNumber < 1 || seatNumber > noOfSeats) {
+			return null;
+		}
+		int row = Arrays.binarySearch(firstSeatOfRows, seatNumber);
+		return stripesOfRows[row >= 0 ? row : -row - 2];
+	}
+
+	private SeatState stateOf(int seatNumber) {
+		Stripe stripe = stripeFor(seatNumber);
+		if(stripe == null) {
+			return null;
+		}
+		stripe.lock.lock();
+		try {
+			return stripe.stateOf(seatNumber);
+		}
+		finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public int getNoOfFreeSeats() {
+		return (int) freeSeatsAndVersion.get();
+	}
+
+	/**
+	 * No. of free seats, along with a version that is changed by every change to it, read in one atomic step
+	 * @return the version in the high 32 bits, and the no. of free seats in the low 32 bits
+	 */
+	public long getNoOfFreeSeatsAndVersion() {
+		return freeSeatsAndVersion.get();
+	}
+
+	public int getNoOfReservedSeats() {
+		return noOfReservedSeats.get();
+	}
+
+	public int getNoOfStripes() {
+		return stripes.length;
+	}
+
+	/**
+	 * No. of free seats in a section, read without taking any lock
+	 * @param sectionIndex position of the section in the list the index was built with
+	 * @return No. of free seats
+	 */
+	public int getNoOfFreeSeats(int sectionIndex) {
+		for(SectionRange section : sections) {
+			if(section.sectionIndex == sectionIndex) {
+				return section.noOfFree.get();
+			}
+		}
+		throw new IllegalArgumentException();
+	}
+
+	/**
+	 * Place of a seat in the best-seat ranking
+	 * @param seatNumber Seat Number
+	 * @return 1 for the best seat of the venue, 2 for the next best and so on
+	 */
+	public int getRank(int seatNumber) {
+		Stripe stripe = stripeFor(seatNumber);
+		if(stripe == null) throw new IllegalArgumentException();
+		return stripe.firstRank + seatNumber - stripe.firstSeat;
+	}
+
+	/**
+	 * Row of a seat within its section
+	 * @param seatNumber Seat Number
+	 * @return 1 for the front row, 2 for the one behind it and so on
+	 */
+	public int getRowNumber(int seatNumber) {
+		Stripe stripe = stripeFor(seatNumber);
+		if(stripe == null) throw new IllegalArgumentException();
+		return stripe.rowNumber;
+	}
+
+	/**
+	 * Length of the longest block of free seats next to each other within a stripe, as last published to the max-tree
+	 * @return No. of seats in the block
+	 */
+	public int getLongestFreeRun() {
+		return longestRuns.get(1);
+	}
+
+	public boolean isFree(int seatNumber) {
+		return stateOf(seatNumber) == SeatState.FREE;
+	}
+
+	public boolean isHeld(int seatNumber) {
+		return stateOf(seatNumber) == SeatState.HELD;
+	}
+
+	public boolean isReserved(int seatNumber) {
+		return stateOf(seatNumber) == SeatState.RESERVED;
+	}
+
+	/**
+	 * States a seat can be in
+	 */
+	private enum SeatState { FREE, HELD, RESERVED }
+
+	/**
+	 * The stripes of a section, which are next to each other in ranking order, along with the section's count of free seats
+	 */
+	private static final class SectionRange {
+
+		private final int sectionIndex;
+		private final int firstStripe;
+		private int endStripe;
+		private final AtomicInteger noOfFree;
+
+		private SectionRange(int sectionIndex, int noOfSeats, int firstStripe) {
+			this.sectionIndex = sectionIndex;
+			this.firstStripe = firstStripe;
+			this.noOfFree = new AtomicInteger(noOfSeats);
+		}
+	}
+
+	/**
+	 * A row of consecutive seats sharing a lock. Bits are indexed by position within the stripe
+	 * All fields other than the lock and noOfFree are only touched with the lock held
+	 */
+	private static final class Stripe {
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private final int index;
+		private final int firstSeat;
+		private final int rowNumber;
+		private final int firstRank;
+		private final AtomicInteger noOfFreeInSection;
+		private final BitSet freeSeats;
+		private final BitSet heldSeats;
+		private final BitSet reservedSeats;
+		private final FreeRunIndex freeRuns;
+		private volatile int noOfFree;  // read without the lock, to skip stripes with nothing free
+		private int publishedRun;  // longest free run last put in the max-tree
+
+		private Stripe(int index, int firstSeat, int noOfSeats, int rowNumber, int firstRank, AtomicInteger noOfFreeInSection) {
+			this.index = index;
+			this.firstSeat = firstSeat;
+			this.rowNumber = rowNumber;
+			this.firstRank = firstRank;
+			this.noOfFreeInSection = noOfFreeInSection;
+			this.freeSeats = new BitSet(noOfSeats);
+			this.heldSeats = new BitSet(noOfSeats);
+			this.reservedSeats = new BitSet(noOfSeats);
+			this.freeSeats.set(0, noOfSeats);
+			this.freeRuns = new FreeRunIndex(noOfSeats);
+			this.noOfFree = noOfSeats;
+			this.publishedRun = noOfSeats;
+		}
+
+		/**
+		 * Marks the first block of N free seats of this stripe as held, if there is one
+		 * @return true if the block was claimed
+		 */
+		private boolean claimBlock(int numSeats, List<Integer> claimed) {
+			int start = freeRuns.findFirstRun(numSeats);
+			if(start < 0) {
+				return false;
+			}
+			for(int i = start; i < start + numSeats; i++) {
+				take(i, claimed);
+			}
+			noOfFree -= numSeats;
+			noOfFreeInSection.addAndGet(-numSeats);
+			return true;
+		}
+
+		/**
+		 * Marks up to N free seats of this stripe as held, lowest seat numbers first
+		 */
+		private void claim(int numSeats, List<Integer> claimed) {
+			int taken = 0;
+			for(int i = freeSeats.nextSetBit(0); i >= 0 && taken < numSeats; i = freeSeats.nextSetBit(i + 1)) {
+				take(i, claimed);
+				taken++;
+			}
+			noOfFree -= taken;
+			noOfFreeInSection.addAndGet(-taken);
+		}
+
+		private void take(int i, List<Integer> claimed) {
+			freeSeats.clear(i);
+			heldSeats.set(i);
+			freeRuns.set(i, false);
+			claimed.add(firstSeat + i);
+		}
+
+		/**
+		 * Moves a seat from one state to another, if it is in the expected state
+		 * @return true if the seat changed state, false otherwise
+		 */
+		private boolean setState(int seatNumber, SeatState from, SeatState to) {
+			int i = seatNumber - firstSeat;
+			if(!bitsFor(from).get(i)) {
+				return false;
+			}
+			bitsFor(from).clear(i);
+			bitsFor(to).set(i);
+			if(from == SeatState.FREE || to == SeatState.FREE) {
+				freeRuns.set(i, to == SeatState.FREE);
+			}
+			if(from == SeatState.FREE) {
+				noOfFree--;
+				noOfFreeInSection.decrementAndGet();
+			}
+			else if(to == SeatState.FREE) {
+				noOfFree++;
+				noOfFreeInSection.incrementAndGet();
+			}
+			return true;
+		}
+
+		private SeatState stateOf(int seatNumber) {
+			int i = seatNumber - firstSeat;
+			return freeSeats.get(i) ? SeatState.FREE : heldSeats.get(i) ? SeatState.HELD : SeatState.RESERVED;
+		}
+
+		private BitSet bitsFor(SeatState state) {
+			switch(state) {
+			case FREE:
+				return freeSeats;
+			case HELD:
+				return heldSeats;
+			default:
+				return reservedSeats;
+			}
+		}
+	}
+}
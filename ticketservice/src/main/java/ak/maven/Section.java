@@ -0,0 +1,55 @@
+package ak.maven;
+
+/**
+* This class describes a section of the venue: a block of seats laid out in rows of equal width, with a quality shared by all its seats
+* Seats of a section are numbered row by row, front row first. If the number of seats isn't a multiple of the row width, the back row is shorter
+* Sections with a higher quality are better. The best seats of a section are in its front row, and within a row, at the start of the row
+*/
+public class Section {
+
+	private final String name;
+	private final int noOfSeats;
+	private final int seatsPerRow;
+	private final int quality;
+
+	/**
+	 * Constructor
+	 * @param name Name of the section, e.g. "Orchestra"
+	 * @param noOfSeats No. of seats in the section
+	 * @param seatsPerRow No. of seats in each row
+	 * @param quality Quality of the section. Sections with a higher quality are offered first
+	 */
+	public Section(String name, int noOfSeats, int seatsPerRow, int quality) {
+
+		if (noOfSeats < 0 || seatsPerRow < 1) throw new IllegalArgumentException();
+
+		this.name = name;
+		this.noOfSeats = noOfSeats;
+		this.seatsPerRow = seatsPerRow;
+		this.quality = quality;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public String getName() {
+		return name;
+	}
+
+	public int getNoOfSeats() {
+		return noOfSeats;
+	}
+
+	public int getSeatsPerRow() {
+		return seatsPerRow;
+	}
+
+	public int getNoOfRows() {
+		return (noOfSeats + seatsPerRow - 1) / seatsPerRow;
+	}
+
+	public int getQuality() {
+		return quality;
+	}
+}
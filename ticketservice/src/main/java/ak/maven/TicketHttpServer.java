@@ -0,0 +1,350 @@
+package ak.maven;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+* This class exposes a TicketServiceImplementor over HTTP, using the HTTP server built into the JDK, so no servlet container is needed
+* GET /seats returns {"available":N}, with the version of the venue's AvailabilitySnapshot as its ETag. A client that sends the ETag
+* back in If-None-Match gets 304 with no body while no seats have been freed or taken
+* POST /holds with seats and email returns {"seatHoldId":N,"seats":[...],"email":"..."}, or 409 if not enough seats are available, or
+* the seats available are being kept for customers waiting in line (each with its own message)
+* (or the customer would go over the venue's limit on seats per customer)
+* POST /reservations with holdId and email returns {"confirmationCode":"..."}, or 404 if the hold isn't found and 410 if it has expired
+* GET /reservations with code and email returns {"confirmationCode":"...","seats":[...],"email":"..."}, and DELETE /reservations with
+* code and email cancels the reservation and returns {"cancelled":"..."}. Both return 404 if no reservation of that customer has the code
+* Requests to /holds and /reservations can be put behind an AdmissionController: calls it turns away get 429 if the customer is over their rate,
+* and 503 if the service is working on too many calls
+* Parameters are read from the query string, or from a form-encoded body. Errors come back as {"error":"..."} with a 4xx status
+* Every request runs on a thread of its own: a virtual thread when the JDK has them (Java 21 on), otherwise a pooled platform thread,
+* so a request waiting for the log (see WriteAheadLog) never holds up the others
+*/
+public class TicketHttpServer implements AutoCloseable {
+
+	private final TicketServiceImplementor service;
+	private final AdmissionController admission;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Constructor. Binds the server, but doesn't start taking requests until start is called
+	 * @param service TicketServiceImplementor to expose
+	 * @param address address to listen on, e.g. new InetSocketAddress(8080), or port 0 for any free port
+	 * @throws IOException if the address can't be bound
+	 */
+	public TicketHttpServer(TicketServiceImplementor service, InetSocketAddress address) throws IOException {
+		this(service, null, address);
+	}
+
+	/**
+	 * Constructor. Binds the server, but doesn't start taking requests until start is called
+	 * @param service TicketServiceImplementor to expose
+	 * @param admission AdmissionController that holds and reservations have to get through, or null to let every request through
+	 * @param address address to listen on, e.g. new InetSocketAddress(8080), or port 0 for any free port
+	 * @throws IOException if the address can't be bound
+	 */
+	public TicketHttpServer(TicketServiceImplementor service, AdmissionController admission, InetSocketAddress address) throws IOException {
+		if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");   // otherwise headers and body go out in two packets, and the second waits for a delayed ACK (about 40ms)
+		}
+		this.service = service;
+		this.admission = admission;
+		this.server = HttpServer.create(address, 1024);
+		this.executor = newThreadPerRequestExecutor();
+		this.server.setExecutor(executor);
+		Map<String, Handler> seatHandlers = Collections.singletonMap("GET", this::getSeats);
+		Map<String, Handler> holdHandlers = Collections.singletonMap("POST", admitted(this::postHold));
+		Map<String, Handler> reservationHandlers = new LinkedHashMap<String, Handler>();
+		reservationHandlers.put("POST", admitted(this::postReservation));
+		reservationHandlers.put("GET", admitted(this::getReservation));
+		reservationHandlers.put("DELETE", admitted(this::deleteReservation));
+		this.server.createContext("/seats", exchange -> handle(exchange, seatHandlers));
+		this.server.createContext("/holds", exchange -> handle(exchange, holdHandlers));
+		this.server.createContext("/reservations", exchange -> handle(exchange, reservationHandlers));
+	}
+
+	/**
+	 * Starts taking requests
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops taking requests, closes open connections and stops the request threads. The service isn't closed
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private Response getSeats(Map<String, String> parameters) {
+		AvailabilitySnapshot availability = service.getAvailability();
+		return new Response(200, "{\"available\":" + availability.getSeatsAvailable() + "}", "\"" + availability.getVersion() + "\"");
+	}
+
+	private Response postHold(Map<String, String> parameters) {
+
+		String seats = parameters.get("seats");
+		String email = parameters.get("email");
+		if(!HelperMethods.isPositiveInteger(seats) || email == null) {
+			return error(400, "seats (a positive number) and email are needed");
+		}
+
+		int numSeats = Integer.parseInt(seats);
+		SeatHold hold = service.findAndHoldSeats(numSeats, email);
+		if(hold == null) {
+			if(service.isOverCustomerLimit(numSeats, email)) {
+				return error(409, service.getVenue().getCustomerLimitReachedMessage());
+			}
+			return error(409, service.numSeatsAvailable() >= numSeats ?
+					service.getVenue().getSeatsKeptForWaitlistMessage() : service.getVenue().getNotEnoughSeatsAvailableMessage());
+		}
+
+		StringBuilder json = new StringBuilder(64 + 8 * hold.getSeatIDsHeld().size());
+		json.append("{\"seatHoldId\":").append(hold.getSeatHoldID()).append(',');
+		appendSeatsAndEmail(json, hold.getSeatIDsHeld(), hold.getCustomerEmail());
+		return new Response(200, json.append('}').toString());
+	}
+
+	private Response postReservation(Map<String, String> parameters) {
+
+		String holdId = parameters.get("holdId");
+		String email = parameters.get("email");
+		if(!HelperMethods.isPositiveInteger(holdId) || email == null) {
+			return error(400, "holdId (a positive number) and email are needed");
+		}
+
+		String result = service.reserveSeats(Integer.parseInt(holdId), email);
+		if(result.equals(service.getVenue().getHoldNotFoundMessage())) {
+			return error(404, result);
+		}
+		if(result.equals(service.getVenue().getHoldExpiredMessage())) {
+			return error(410, result);
+		}
+		StringBuilder json = new StringBuilder("{\"confirmationCode\":");
+		appendString(json, result);
+		return new Response(200, json.append('}').toString());
+	}
+
+	private Response getReservation(Map<String, String> parameters) {
+
+		String code = parameters.get("code");
+		String email = parameters.get("email");
+		if(code == null || email == null) {
+			return error(400, "code and email are needed");
+		}
+
+		Reservation reservation = service.findReservation(code, email).orElse(null);
+		if(reservation == null) {
+			return error(404, service.getVenue().getReservationNotFoundMessage());
+		}
+
+		StringBuilder json = new StringBuilder(64 + 8 * reservation.getSeatIDsReserved().size());
+		json.append("{\"confirmationCode\":");
+		appendString(json, reservation.getReservationID());
+		json.append(',');
+		appendSeatsAndEmail(json, reservation.getSeatIDsReserved(), reservation.getCustomerEmail());
+		return new Response(200, json.append('}').toString());
+	}
+
+	private Response deleteReservation(Map<String, String> parameters) {
+
+		String code = parameters.get("code");
+		String email = parameters.get("email");
+		if(code == null || email == null) {
+			return error(400, "code and email are needed");
+		}
+
+		String result = service.cancelReservation(code, email);
+		if(!result.equals(service.getVenue().getReservationCancelledMessage())) {
+			return error(404, result);
+		}
+		StringBuilder json = new StringBuilder("{\"cancelled\":");
+		appendString(json, code);
+		return new Response(200, json.append('}').toString());
+	}
+
+	/**
+	 * Puts a handler behind the admission controller, if there is one. Requests are admitted by their email
+	 */
+	private Handler admitted(Handler handler) {
+		if(admission == null) {
+			return handler;
+		}
+		return parameters -> {
+			try {
+				return admission.call(parameters.get("email"), () -> handler.handle(parameters));
+			}
+			catch (AdmissionController.RateLimitedException ex) {
+				return error(429, ex.getMessage());
+			}
+			catch (AdmissionController.OverloadedException ex) {
+				return error(503, ex.getMessage());
+			}
+		};
+	}
+
+	/**
+	 * Checks the path and method of a request, reads its parameters, runs the handler for its method and writes its response
+	 */
+	private void handle(HttpExchange exchange, Map<String, Handler> handlers) throws IOException {
+		Response response;
+		try {
+			Handler handler = handlers.get(exchange.getRequestMethod());
+			if(!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+				response = error(404, "Not found");
+			}
+			else if(handler == null) {
+				String methods = String.join(", ", handlers.keySet());
+				exchange.getResponseHeaders().set("Allow", methods);
+				response = error(405, "Use " + methods);
+			}
+			else {
+				response = handler.handle(readParameters(exchange));
+			}
+		}
+		catch (RuntimeException ex) {
+			response = error(500, String.valueOf(ex.getMessage()));
+		}
+
+		if(response.etag != null) {
+			exchange.getResponseHeaders().set("ETag", response.etag);
+			if(response.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);   // the client's copy is still current
+				exchange.close();
+				return;
+			}
+		}
+
+		byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(response.status, body.length);
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> readParameters(HttpExchange exchange) throws IOException {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parseParameters(exchange.getRequestURI().getRawQuery(), parameters);
+		try(InputStream in = exchange.getRequestBody()) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			for(int n; (n = in.read(buffer)) > 0; ) {
+				body.write(buffer, 0, n);
+			}
+			parseParameters(new String(body.toByteArray(), StandardCharsets.UTF_8), parameters);
+		}
+		return parameters;
+	}
+
+	private static void parseParameters(String encoded, Map<String, String> parameters) throws UnsupportedEncodingException {
+		if(encoded == null || encoded.isEmpty()) {
+			return;
+		}
+		for(String pair : encoded.split("&")) {
+			int equals = pair.indexOf('=');
+			if(equals > 0) {
+				parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+			}
+		}
+	}
+
+	private static Response error(int status, String message) {
+		StringBuilder json = new StringBuilder("{\"error\":");
+		appendString(json, message);
+		return new Response(status, json.append('}').toString());
+	}
+
+	private static void appendSeatsAndEmail(StringBuilder json, List<Integer> seatNumbers, String email) {
+		json.append("\"seats\":[");
+		for(int i = 0; i < seatNumbers.size(); i++) {
+			json.append(i == 0 ? "" : ",").append(seatNumbers.get(i));
+		}
+		json.append("],\"email\":");
+		appendString(json, email);
+	}
+
+	private static void appendString(StringBuilder json, String s) {
+		json.append('"');
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			}
+			else if(c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * One virtual thread per request if the JDK has them, looked up by reflection since the code is built for Java 8.
+	 * Otherwise a cached pool of daemon threads, which also grows with the no. of requests in flight
+	 */
+	private static ExecutorService newThreadPerRequestExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException ex) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "ticket-http");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Handles the parameters of a request
+	 */
+	private interface Handler {
+		Response handle(Map<String, String> parameters);
+	}
+
+	/**
+	 * Status and JSON body of a response, and its ETag if it has one
+	 */
+	private static final class Response {
+
+		private final int status;
+		private final String body;
+		private final String etag;
+
+		private Response(int status, String body) {
+			this(status, body, null);
+		}
+
+		private Response(int status, String body, String etag) {
+			this.status = status;
+			this.body = body;
+			this.etag = etag;
+		}
+	}
+}
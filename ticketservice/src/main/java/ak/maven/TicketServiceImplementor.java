@@ -1,24 +1,30 @@
 package ak.maven;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
 
 /**
 * This is the central class for the application, and implements critical functionality for holding and reserving seats
 * It implements methods for checking available seats and expired holds, in addition to committing holds and reservations
+* Expired holds are released in the background by a HoldExpiryReaper, started by the constructor and stopped by close()
+* Every hold and reservation request is timed and counted in TicketServiceMetrics, along with the holds that expire
+* Customers who can't get seats during a sellout can wait for them (waitForSeats) instead of retrying: seats freed by expiries and
+* cancellations are handed to a first come, first served Waitlist
+* The class is thread-safe. Seats are claimed through the Venue's striped seat state index, and a hold is handed over to a
+* reservation atomically, so requests on different parts of the venue run in parallel, and numSeatsAvailable never blocks
 * Dependency Injection is used by providing an instance of Venue class to the constructor of this class, making it extensible to other Venue types
 */
-public class TicketServiceImplementor implements TicketService {
+public class TicketServiceImplementor implements TicketService, AutoCloseable {
 	
-	private ArrayList<Integer> IDsGenerated;
-	private ArrayList<String> confirmationCodesGenerated;
+	private SeatHoldIDAllocator seatHoldIDAllocator;
 	
 	@Inject private final Venue venue;
+	private final TicketServiceMetrics metrics;
+	private final HoldExpiryReaper holdExpiryReaper;
+	private final Waitlist waitlist;
 	
 	/**
 	 * constructor
@@ -26,86 +32,197 @@ public class TicketServiceImplementor implements TicketService {
 	 */
 	@Inject
 	public TicketServiceImplementor(Venue venue) {
+		this(venue, true);
+	}
+	
+	/**
+	 * constructor
+	 * @param venue: instance of Venue class
+	 * @param expireInBackground: true to start a background reaper, false if the caller runs checkAndRemoveExpiredHolds itself every tick
+	 * (e.g. an event loop that owns the venue)
+	 */
+	public TicketServiceImplementor(Venue venue, boolean expireInBackground) {
 		this.venue = venue;
-		IDsGenerated = new ArrayList<Integer>();
-		confirmationCodesGenerated = new ArrayList<String>();
+		seatHoldIDAllocator = new SeatHoldIDAllocator(venue.getLengthOfSeatHoldID());
+		metrics = new TicketServiceMetrics(venue);
+		waitlist = new Waitlist(this);
+		venue.setSeatsFreedListener(waitlist::serve);   // every path that frees seats hands them to the line first
+		holdExpiryReaper = expireInBackground ? new HoldExpiryReaper(venue.getHoldExpiryTickInMillis(), this::checkAndRemoveExpiredHolds) : null;
 	}
 	
 	/**
 	 * Checks for 'expired' holds and mark them as such
 	 * Frees up seats held against them
+	 * This is done every tick by the background reaper, so request methods don't call it. It can be called to expire holds that are due right away
+	 * Seats freed up are handed to customers waiting for them first (by the venue, see Venue.setSeatsFreedListener)
 	 */
 	public void checkAndRemoveExpiredHolds() {
-		
-		ArrayList<SeatHold> holdsToBeRemoved = new ArrayList<SeatHold>();
-		
-		for(SeatHold s : venue.getSeatHolds()) {
-			
-			long difference = Duration.between(s.getHoldTimestamp(), LocalDateTime.now()).getSeconds();   // time since hold request	
-			
-			if(difference > venue.getHoldTimeout()) {
-				holdsToBeRemoved.add(s);	
-			}
+		int noOfHoldsExpired = venue.expireDueHolds();
+		metrics.recordHoldsExpired(noOfHoldsExpired);
+		if(noOfHoldsExpired == 0) {
+			waitlist.serve();   // nothing was freed, but the request at the head of the line may have waited too long
 		}
-		
-		for (SeatHold s : holdsToBeRemoved) {
-			venue.markHoldExpired(s.getSeatHoldID());
-			venue.getSeatHolds().remove(s);
+	}
+	
+	/**
+	 * Stops the background reaper that releases expired holds, along with any background metrics snapshots and the metrics MBean
+	 * Customers still waiting for seats are given null
+	 */
+	@Override
+	public void close() {
+		if(holdExpiryReaper != null) {
+			holdExpiryReaper.close();
 		}
+		venue.setSeatsFreedListener(null);
+		waitlist.clear();
+		metrics.close();
 	}
 
 	/**
-	 * Gets the number of 'Available' seats, which is all seats that are not held or reserved	
+	 * Gets the number of 'Available' seats, which is all seats that are not held or reserved
+	 * The count is read from the seat state index kept by the venue, rather than worked out from holds and reservations
 	 * @return the number of seats available 
 	 */
 	public int numSeatsAvailable() {
-		
-		checkAndRemoveExpiredHolds();
-		Set<Integer> heldSeatIDs = venue.getSeatHolds().stream().map(s -> s.getSeatIDsHeld()).flatMap(Collection::stream).collect(Collectors.toSet());
-		Set<Integer> reservedSeatIDs = venue.getReservations().stream().map(s -> s.getSeatIDsReserved()).flatMap(Collection::stream).collect(Collectors.toSet());
-		
-		return (int) Arrays.stream(venue.getSeatsChart())
-				.map(s -> s.getSeatNumber())
-				.filter(s -> !heldSeatIDs.contains(s))
-				.filter(s -> !reservedSeatIDs.contains(s))
-				.count();
+		return venue.getNoOfSeatsAvailable();
+	}
+	
+	/**
+	 * Gets the availability of the venue, by section too, as a versioned snapshot shared by every reader until seats are freed or taken
+	 * Meant for read-heavy callers, e.g. to tell a client whether what it last saw is still current
+	 * @return the current AvailabilitySnapshot
+	 */
+	public AvailabilitySnapshot getAvailability() {
+		return venue.getAvailability();
 	}
 	
 	/**
 	 * Find next best seats (by calling a method for that), and creates a seat hold
 	 * Calls method 'getNextBestSeatNumbers' to get next best seats
-	 * Returns null if no seats are available
-	 * Generates a unique 6-digit positive number and uses it as its ID (which is needed to reserve the held seats)
+	 * Returns null if no seats are available, or if the venue limits seats per customer and the hold would take the customer over the limit
+	 * While customers are waiting for seats (see waitForSeats), returns null too if the hold would take seats the head of the line needs
+	 * Gets a unique 6-digit positive number from the hold ID allocator and uses it as its ID (which is needed to reserve the held seats)
 	 * @param numSeats: number of seats requested to be held
 	 * @param customerEmail: email address of the person making the request
 	 * @return a SeatHold object that represents the seat hold
 	 */
 	public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
-		
-		checkAndRemoveExpiredHolds();
+		long start = System.nanoTime();
+		SeatHold hold = waitlist.canHoldDirectly(numSeats) ? holdSeats(numSeats, customerEmail, LocalDateTime.now(), venue.newHoldDeadlineInMillis()) : null;
+		metrics.recordFindAndHoldSeats(System.nanoTime() - start, hold != null);
+		return hold;
+	}
+	
+	/**
+	 * Finds next best seats and holds them, like findAndHoldSeats, but if they can't be held now, waits in line for them instead of
+	 * returning null. Customers are served first come, first served as seats are freed by expiries and cancellations (see Waitlist)
+	 * The future can be cancelled to leave the line, or waited on with a timeout
+	 * @param numSeats: number of seats requested to be held
+	 * @param customerEmail: email address of the person making the request
+	 * @return a CompletableFuture of the SeatHold object, or of null if the seats can never be held (more than aren't reserved,
+	 * or than a customer may hold), the customer is already waiting, or the request is turned away while waiting (see Waitlist)
+	 */
+	public CompletableFuture<SeatHold> waitForSeats(int numSeats, String customerEmail) {
+		return waitlist.add(numSeats, customerEmail);
+	}
+	
+	/**
+	 * Holds seats for a request in the waitlist, which keeps its own order. Only holds that are made are counted in the metrics,
+	 * since the waitlist tries again whenever seats are freed
+	 * @return a SeatHold object, or null if the seats can't be held yet
+	 */
+	SeatHold holdSeatsForWaitlist(int numSeats, String customerEmail) {
+		long start = System.nanoTime();
+		SeatHold hold = holdSeats(numSeats, customerEmail, LocalDateTime.now(), venue.newHoldDeadlineInMillis());
+		if(hold != null) {
+			metrics.recordFindAndHoldSeats(System.nanoTime() - start, true);
+		}
+		return hold;
+	}
+	
+	/**
+	 * Finds and holds seats for many requests in one call, e.g. a burst handed over by an upstream queue
+	 * Requests are processed in order, so the results are the same as calling findAndHoldSeats for each request one by one. The batch
+	 * shares one timestamp and one deadline (so all its holds expire together) and one timing, and each request is counted in the metrics with its share
+	 * of the batch's time
+	 * @param requests hold requests, in the order they're to be processed
+	 * @return a SeatHold object (or null) for every request, in the same order
+	 */
+	public List<SeatHold> findAndHoldSeats(List<HoldRequest> requests) {
+		long start = System.nanoTime();
+		LocalDateTime now = LocalDateTime.now();
+		long deadline = venue.newHoldDeadlineInMillis();
+		List<SeatHold> holds = new ArrayList<SeatHold>(requests.size());
+		for(HoldRequest request : requests) {
+			holds.add(waitlist.canHoldDirectly(request.getNumSeats()) ? holdSeats(request.getNumSeats(), request.getCustomerEmail(), now, deadline) : null);
+		}
+		long latency = (System.nanoTime() - start) / Math.max(1, requests.size());
+		for(SeatHold hold : holds) {
+			metrics.recordFindAndHoldSeats(latency, hold != null);
+		}
+		return holds;
+	}
+	
+	/**
+	 * Does the work of findAndHoldSeats, which times it
+	 * If the venue limits seats per customer, the seats are counted against the customer before they're claimed, so that concurrent
+	 * holds by the same customer can't together go over the limit. Once registered, the hold is counted in their place
+	 */
+	private SeatHold holdSeats(int numSeats, String customerEmail, LocalDateTime now, long deadline) {
 		
 		if (numSeatsAvailable() < numSeats || numSeats == 0) {
 			return null;
 		}
 		
+		int maxSeats = venue.getMaxSeatsPerCustomer();
+		if (maxSeats == Integer.MAX_VALUE) {
+			return claimAndRegisterHold(numSeats, customerEmail, now, deadline);
+		}
+		
+		if (!venue.getCustomers().tryClaim(customerEmail, numSeats, maxSeats)) {
+			return null;
+		}
+		try {
+			return claimAndRegisterHold(numSeats, customerEmail, now, deadline);
+		}
+		finally {
+			venue.getCustomers().unclaim(customerEmail, numSeats);
+		}
+	}
+	
+	/**
+	 * Claims the next best seats and registers a hold for them, with a unique ID
+	 * @param deadline deadline of the hold, from venue.newHoldDeadlineInMillis (read off the venue's monotonic clock, rather than worked out from the timestamp)
+	 */
+	private SeatHold claimAndRegisterHold(int numSeats, String customerEmail, LocalDateTime now, long deadline) {
+		
+		List<Integer> seatNumbers = getNextBestSeatNumbers(numSeats);
+		
+		if (seatNumbers == null) {   // other holds got to the seats first
+			return null;
+		}
+		
 		else {
 			
-			int randomSeatHoldID = 0;
+			SeatHold hold = null;
 			boolean isIDUnique = false;
 			
 			/*
-			 * This is done to handle a rare scenario where a random number generated was generated and used previously.
-			 * In such a case, the application will keep fetching new random numbers, until it finds one not used previously
+			 * The allocator only hands out an ID again once every other ID has been handed out. If a hold from that long ago
+			 * is somehow still active, the Venue refuses the ID, and the next one is taken
 			 */  
-			while(!isIDUnique) {
-				randomSeatHoldID = HelperMethods.generateID(venue.getLengthOfSeatHoldID());				
-				if(!IDsGenerated.contains(randomSeatHoldID)) {
-					isIDUnique = true;
+			try {
+				while(!isIDUnique) {
+					hold = new SeatHold(seatHoldIDAllocator.nextID(), seatNumbers, customerEmail, now);
+					hold.setHoldDeadlineInMillis(deadline);
+					isIDUnique = venue.registerHold(hold);
 				}
 			}
+			catch (RuntimeException ex) {   // the hold couldn't be logged, so give back the seats claimed for it
+				venue.getSeatStates().release(seatNumbers);
+				throw ex;
+			}
 			
-			SeatHold hold = new SeatHold(randomSeatHoldID, (ArrayList<Integer>) getNextBestSeatNumbers(numSeats), customerEmail, LocalDateTime.now());
-			venue.addHold(hold);
 			return hold;
 		}
 	}
@@ -113,51 +230,120 @@ public class TicketServiceImplementor implements TicketService {
 	/**
 	 * Reserves seats contained in a SeatHold object
 	 * Ensures that the Seat Hold isn't expired 
-	 * Generates a unique alphanumeric confirmation code, of preconfigured length
+	 * Gets a unique alphanumeric confirmation code, of preconfigured length, from the venue's confirmation code generator
 	 * @param seatHoldId: ID of the SeatHold object
 	 * @param customerEmail: email address of the person making the request
 	 * @return a string confirmation code for successful reservation, or appropriate error message otherwise
 	 */
 	public String reserveSeats(int seatHoldId, String customerEmail) {
-		
-		checkAndRemoveExpiredHolds();
+		long start = System.nanoTime();
+		long[] lsn = new long[1];
+		List<Reservation> made = new ArrayList<Reservation>(1);
+		String result = reserve(seatHoldId, customerEmail, LocalDateTime.now(), lsn, made);
+		awaitDurable(lsn[0], made);   // if the venue is logged, the code isn't given out until the reservation is on disk, along with any others made meanwhile
+		metrics.recordReserveSeats(System.nanoTime() - start, isReservationMade(result));
+		return result;
+	}
+	
+	/**
+	 * Reserves the seats of many holds in one call, e.g. a burst handed over by an upstream queue
+	 * Requests are processed in order, so the results are the same as calling reserveSeats for each request one by one. The batch
+	 * shares one timestamp and one timing, and if the venue is logged, the whole batch waits for the log once, after the last reservation,
+	 * instead of once per reservation. No confirmation code is given out before then
+	 * @param requests reserve requests, in the order they're to be processed
+	 * @return a confirmation code (or error message) for every request, in the same order
+	 */
+	public List<String> reserveSeats(List<ReserveRequest> requests) {
+		long start = System.nanoTime();
+		LocalDateTime now = LocalDateTime.now();
+		long[] lsn = new long[1];
+		List<Reservation> made = new ArrayList<Reservation>(requests.size());
+		List<String> results = new ArrayList<String>(requests.size());
+		for(ReserveRequest request : requests) {
+			results.add(reserve(request.getSeatHoldId(), request.getCustomerEmail(), now, lsn, made));
+		}
+		awaitDurable(lsn[0], made);
+		long latency = (System.nanoTime() - start) / Math.max(1, requests.size());
+		for(String result : results) {
+			metrics.recordReserveSeats(latency, isReservationMade(result));
+		}
+		return results;
+	}
+	
+	/**
+	 * Tells a confirmation code returned by reserveSeats from one of its error messages
+	 * @param result string returned by reserveSeats
+	 * @return true if the result is a confirmation code, i.e. the seats were reserved
+	 */
+	public boolean isReservationMade(String result) {
+		return !result.equals(venue.getHoldExpiredMessage()) && !result.equals(venue.getHoldNotFoundMessage());
+	}
+	
+	/**
+	 * Waits for the reservations just made to be durable. If they can't be, they're taken back before the error is passed on, so no
+	 * seats stay reserved under a confirmation code that was never given out
+	 */
+	private void awaitDurable(long lsn, List<Reservation> made) {
+		try {
+			venue.awaitDurable(lsn);
+		}
+		catch (RuntimeException ex) {
+			for(Reservation reservation : made) {
+				venue.revokeReservation(reservation);
+			}
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Does the work of reserveSeats, which times it and waits for the log
+	 * @param lsn set to the LSN of the reservation in the venue's log, if it's logged and later than the LSN already there
+	 * @param made the reservation is added to it, so it can be taken back if it can't be made durable
+	 */
+	private String reserve(int seatHoldId, String customerEmail, LocalDateTime now, long[] lsn, List<Reservation> made) {
 		
 		if(isHoldExpired(seatHoldId)) {
 			return venue.getHoldExpiredMessage();
 		}
 		
-		else if(!isValidHoldID(seatHoldId)){
-			return venue.getHoldNotFoundMessage();
+		Optional<SeatHold> s = venue.takeHold(seatHoldId); //take hold, whether or not it's valid, since reserving seats should remove the hold too
+		
+		if(!s.isPresent()){
+			return isHoldExpired(seatHoldId) ? venue.getHoldExpiredMessage() : venue.getHoldNotFoundMessage();   // the reaper may have expired it in the meantime
 		}
 		
 		else {
-			Optional<SeatHold> s = venue.getSeatHoldByID(seatHoldId);
-			venue.removeHold(s.get()); //remove hold, whether or not it's valid, since reserving seats should remove the hold too
 			
-			long difference = Duration.between(s.get().getHoldTimestamp(), LocalDateTime.now()).getSeconds();
-			
-			if(difference > venue.getHoldTimeout()) {
+			if(venue.isHoldPastDeadline(s.get())) {   // the reaper may not have got to it yet
+				venue.markHoldExpired(seatHoldId);   // marked (and logged) before the seats can go to another hold
+				venue.releaseSeats(s.get());
+				metrics.recordHoldsExpired(1);
 				return venue.getHoldExpiredMessage();
 			}
 		
 			else {
 				
-				String confirmationCode = null;
-				Boolean randomCodeFound = false;
+				String confirmationCode;
+				Reservation reservation;
+				long reservationLsn;
 				
 				/*
-				 * This is done to handle a rare scenario where a random string generated was generated and used previously.
-				 * In such a case, the application will keep fetching new random strings, until it finds one not used previously
+				 * Codes are unique by construction, and carry on where they left off after a restart. If a reservation somehow already
+				 * has the code, the Venue refuses it, and the next one is taken
 				 */
-				while(!randomCodeFound) {
-					confirmationCode = HelperMethods.generateRandomString(venue.getLengthOfReservationConfirmationCode());
-					if(!confirmationCodesGenerated.contains(confirmationCode)) {
-						randomCodeFound = true;
-						confirmationCodesGenerated.add(confirmationCode);
-					}
+				try {
+					do {
+						confirmationCode = venue.nextConfirmationCode();
+						reservation = new Reservation(confirmationCode, s.get().getSeatIDsHeld(), s.get().getCustomerEmail(), now);
+						reservationLsn = venue.addReservation(reservation, seatHoldId);   // seats go straight from held to reserved
+					} while(reservationLsn < 0);
 				}
-				
-				venue.addReservation(new Reservation(confirmationCode, s.get().getSeatIDsHeld(), s.get().getCustomerEmail(), LocalDateTime.now()));
+				catch (RuntimeException ex) {   // the reservation couldn't be logged, so nothing was added: give back the hold's seats
+					venue.releaseSeats(s.get());
+					throw ex;
+				}
+				lsn[0] = Math.max(lsn[0], reservationLsn);
+				made.add(reservation);
 				
 				return confirmationCode;
 			}
@@ -165,14 +351,62 @@ public class TicketServiceImplementor implements TicketService {
 	}
 	
 	/**
-	 * Checks if provided SeatHold is expired. Calls the 'checkAndRemoveExpiredHolds()' method first, which detects and marks expired holds invalid
+	 * Cancels a reservation, and gives its seats back straight away (to customers waiting for seats first). Costs the same as a hold: the reservation is found by its
+	 * confirmation code in constant time, and only its own seats are touched
+	 * If the venue is logged, the cancellation isn't confirmed until it's on disk
+	 * @param confirmationCode: confirmation code given out by reserveSeats
+	 * @return a message saying the reservation was cancelled, or that no reservation has the confirmation code
+	 */
+	public String cancelReservation(String confirmationCode) {
+		long lsn = venue.cancelReservation(confirmationCode);
+		if(lsn < 0) {
+			return venue.getReservationNotFoundMessage();
+		}
+		venue.awaitDurable(lsn);
+		metrics.recordReservationCancelled();
+		return venue.getReservationCancelledMessage();
+	}
+	
+	/**
+	 * Cancels a reservation, like cancelReservation(confirmationCode), but only if it was made by the given customer (ignoring case),
+	 * so a confirmation code alone isn't enough to cancel someone else's reservation
+	 * @param confirmationCode: confirmation code given out by reserveSeats
+	 * @param customerEmail: email address of the person making the request
+	 * @return a message saying the reservation was cancelled, or that no reservation of the customer has the confirmation code
+	 */
+	public String cancelReservation(String confirmationCode, String customerEmail) {
+		if(!findReservation(confirmationCode, customerEmail).isPresent()) {
+			return venue.getReservationNotFoundMessage();
+		}
+		return cancelReservation(confirmationCode);
+	}
+	
+	/**
+	 * Finds a reservation of the given customer (ignoring case) by its confirmation code, in constant time
+	 * @param confirmationCode: confirmation code given out by reserveSeats
+	 * @param customerEmail: email address of the person making the request
+	 * @return Optional Reservation object, empty if no reservation of the customer has the code
+	 */
+	public Optional<Reservation> findReservation(String confirmationCode, String customerEmail) {
+		return findReservation(confirmationCode).filter(r -> r.getCustomerEmail() != null && r.getCustomerEmail().equalsIgnoreCase(customerEmail));
+	}
+	
+	/**
+	 * Finds a reservation by its confirmation code, in constant time
+	 * @param confirmationCode: confirmation code given out by reserveSeats
+	 * @return Optional Reservation object, empty if no reservation has the code (or it has been cancelled)
+	 */
+	public Optional<Reservation> findReservation(String confirmationCode) {
+		return venue.getReservationByCode(confirmationCode);
+	}
+	
+	/**
+	 * Checks if provided SeatHold is expired, i.e. it has been marked expired by the background reaper
 	 * @param seatHoldId ID for SeatHold object
 	 * @return true if the hold is expired, false otherwise
 	 */
 	public boolean isHoldExpired(int seatHoldId) {		
 		
-		checkAndRemoveExpiredHolds();
-		
 		if(venue.getExpiredSeatHoldIDs().contains(seatHoldId)) {
 			return true;
 		}
@@ -181,6 +415,17 @@ public class TicketServiceImplementor implements TicketService {
 		}
 	}
 	
+	/**
+	 * Checks if holding more seats would take a customer over the venue's limit on seats per customer, e.g. to tell why a hold was refused
+	 * The customer's seats are looked up in the venue's CustomerIndex, in constant time
+	 * @param numSeats: number of seats to be held
+	 * @param customerEmail: email address of the customer
+	 * @return true if the hold would go over the limit, false otherwise (always false if there is no limit)
+	 */
+	public boolean isOverCustomerLimit(int numSeats, String customerEmail) {
+		return (long) venue.getCustomers().getNoOfSeats(customerEmail) + numSeats > venue.getMaxSeatsPerCustomer();
+	}
+	
 	/**
 	 * Checks if provided SeatHold ID is valid (i.e. a SeatHold exists for it)
 	 * @param seatHoldId ID for SeatHold object
@@ -199,24 +444,24 @@ public class TicketServiceImplementor implements TicketService {
 	
 	/**
 	 * Finds and returns next best N seat numbers. Employs a simple greedy logic to get next available seats from a list of seats
+	 * Only free seats in the venue's seat state index are visited, and the seats returned are already marked held
 	 * Called internally by method findAndHoldSeats. Not available for public use.
 	 * @param numSeats Number of seats requested for hold
-	 * @return a list of integer values representing seat numbers
+	 * @return a list of integer values representing seat numbers, or null if not enough seats are free
 	 */
 	private List<Integer> getNextBestSeatNumbers(int numSeats){
-		
-		Set<Integer> heldSeatIDs = venue.getSeatHolds().stream().map(s -> s.getSeatIDsHeld()).flatMap(Collection::stream).collect(Collectors.toSet());
-		Set<Integer> reservedSeatIDs = venue.getReservations().stream().map(s -> s.getSeatIDsReserved()).flatMap(Collection::stream).collect(Collectors.toSet());
-		
-		return  Arrays.stream(venue.getSeatsChart())
-				.map(s -> s.getSeatNumber())
-				.filter(s -> !heldSeatIDs.contains(s))
-				.filter(s -> !reservedSeatIDs.contains(s))
-				.limit(numSeats)
-				.collect(Collectors.toList());
+		return venue.getSeatStates().claim(numSeats);
 	}
 	
 	public Venue getVenue() {
 		return this.venue;
 	}
+	
+	public TicketServiceMetrics getMetrics() {
+		return this.metrics;
+	}
+	
+	public Waitlist getWaitlist() {
+		return this.waitlist;
+	}
 }
@@ -0,0 +1,246 @@
+package ak.maven;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+* This class keeps the metrics of a TicketServiceImplementor: how many holds and reservations were made or refused, how many holds
+* expired without being reserved, how many reservations were cancelled, how long findAndHoldSeats and reserveSeats take, and how many holds and reservations the Venue has
+* Counters are LongAdders and latencies go into LatencyHistograms, so recording an event never takes a lock or allocates anything
+* A snapshot (see MetricsSnapshot) can be taken at any time, or every so often in the background. Taking one empties the latency
+* histograms, so each snapshot shows the calls made since the last one
+* The metrics can also be registered as a JMX MBean (see TicketServiceMetricsMBean), which shows the live counters and the latencies of
+* the latest snapshot
+*/
+public class TicketServiceMetrics implements TicketServiceMetricsMBean, AutoCloseable {
+
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "metrics-snapshots");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final Venue venue;
+	private final LongAdder holdsMade = new LongAdder();
+	private final LongAdder holdsRefused = new LongAdder();
+	private final LongAdder reservationsMade = new LongAdder();
+	private final LongAdder reservationsRefused = new LongAdder();
+	private final LongAdder holdsExpired = new LongAdder();
+	private final LongAdder reservationsCancelled = new LongAdder();
+	private final LatencyHistogram findAndHoldSeatsLatencies = new LatencyHistogram();
+	private final LatencyHistogram reserveSeatsLatencies = new LatencyHistogram();
+
+	private volatile MetricsSnapshot lastSnapshot;
+	private ScheduledFuture<?> snapshotTask;
+	private ObjectName objectName;
+
+	/**
+	 * Constructor
+	 * @param venue Venue of the service, whose holds and reservations are counted in snapshots
+	 */
+	public TicketServiceMetrics(Venue venue) {
+		this.venue = venue;
+		this.lastSnapshot = takeSnapshot();
+	}
+
+	/**
+	 * Records a findAndHoldSeats call
+	 * @param latencyInNanos time the call took
+	 * @param held true if seats were held, false if the hold was refused
+	 */
+	public void recordFindAndHoldSeats(long latencyInNanos, boolean held) {
+		findAndHoldSeatsLatencies.record(latencyInNanos);
+		(held ? holdsMade : holdsRefused).increment();
+	}
+
+	/**
+	 * Records a reserveSeats call
+	 * @param latencyInNanos time the call took
+	 * @param reserved true if the seats were reserved, false if the reservation was refused
+	 */
+	public void recordReserveSeats(long latencyInNanos, boolean reserved) {
+		reserveSeatsLatencies.record(latencyInNanos);
+		(reserved ? reservationsMade : reservationsRefused).increment();
+	}
+
+	/**
+	 * Records holds that expired without being reserved
+	 * @param noOfHolds No. of holds expired
+	 */
+	public void recordHoldsExpired(int noOfHolds) {
+		if(noOfHolds > 0) {
+			holdsExpired.add(noOfHolds);
+		}
+	}
+
+	/**
+	 * Records a reservation being cancelled
+	 */
+	public void recordReservationCancelled() {
+		reservationsCancelled.increment();
+	}
+
+	/**
+	 * Takes a snapshot of the metrics, and empties the latency histograms so the next snapshot starts afresh
+	 * The snapshot is also kept for the MBean to show
+	 * @return the snapshot
+	 */
+	public synchronized MetricsSnapshot takeSnapshot() {
+		MetricsSnapshot snapshot = new MetricsSnapshot(System.currentTimeMillis(), holdsMade.sum(), holdsRefused.sum(), reservationsMade.sum(),
+				reservationsRefused.sum(), holdsExpired.sum(), reservationsCancelled.sum(), venue.getNoOfSeatsAvailable(), venue.getNoOfSeatHolds(), venue.getNoOfReservations(),
+				findAndHoldSeatsLatencies.snapshotAndReset(), reserveSeatsLatencies.snapshotAndReset());
+		lastSnapshot = snapshot;
+		return snapshot;
+	}
+
+	/**
+	 * Takes a snapshot every so often in the background, and hands it to a listener, e.g. to log it or send it to a monitoring system
+	 * Any snapshots already being taken in the background are stopped
+	 * @param periodInMillis How often a snapshot is taken, in milliseconds
+	 * @param listener Listener given each snapshot, or null if snapshots are only needed for the MBean
+	 */
+	public synchronized void startSnapshots(long periodInMillis, Consumer<MetricsSnapshot> listener) {
+		stopSnapshots();
+		snapshotTask = scheduler.scheduleAtFixedRate(HelperMethods.reportingFailures(() -> {
+			MetricsSnapshot snapshot = takeSnapshot();
+			if(listener != null) {
+				listener.accept(snapshot);
+			}
+		}), periodInMillis, periodInMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops taking snapshots in the background
+	 */
+	public synchronized void stopSnapshots() {
+		if(snapshotTask != null) {
+			snapshotTask.cancel(false);
+			snapshotTask = null;
+		}
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server, as ak.maven:type=TicketService,name=(the name given)
+	 * @param name Name telling this service apart from others in the same JVM
+	 * @throws JMException if the MBean can't be registered, e.g. the name is already taken
+	 */
+	public synchronized void registerMBean(String name) throws JMException {
+		unregisterMBean();
+		ObjectName objectName = new ObjectName("ak.maven:type=TicketService,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Removes the MBean from the platform MBean server, if it was registered
+	 */
+	public synchronized void unregisterMBean() {
+		if(objectName == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		}
+		catch (JMException ex) {
+			HelperMethods.reportFailure(ex);   // closing goes ahead, the MBean is only left behind
+		}
+		objectName = null;
+	}
+
+	/**
+	 * Stops taking snapshots and removes the MBean
+	 */
+	@Override
+	public void close() {
+		stopSnapshots();
+		unregisterMBean();
+	}
+
+	/**
+	 * Getter methods follow. These are the attributes of the MBean
+	 */
+
+	public MetricsSnapshot getLastSnapshot() {
+		return lastSnapshot;
+	}
+
+	public long getHoldsMade() {
+		return holdsMade.sum();
+	}
+
+	public long getHoldsRefused() {
+		return holdsRefused.sum();
+	}
+
+	public long getReservationsMade() {
+		return reservationsMade.sum();
+	}
+
+	public long getReservationsRefused() {
+		return reservationsRefused.sum();
+	}
+
+	public long getHoldsExpired() {
+		return holdsExpired.sum();
+	}
+
+	public long getReservationsCancelled() {
+		return reservationsCancelled.sum();
+	}
+
+	public int getSeatsAvailable() {
+		return venue.getNoOfSeatsAvailable();
+	}
+
+	public int getActiveSeatHolds() {
+		return venue.getNoOfSeatHolds();
+	}
+
+	public int getReservations() {
+		return venue.getNoOfReservations();
+	}
+
+	public long getFindAndHoldSeatsCalls() {
+		return lastSnapshot.getFindAndHoldSeatsLatencies().getCount();
+	}
+
+	public double getFindAndHoldSeatsP50Micros() {
+		return lastSnapshot.getFindAndHoldSeatsLatencies().getValueAtPercentile(50) / 1e3;
+	}
+
+	public double getFindAndHoldSeatsP99Micros() {
+		return lastSnapshot.getFindAndHoldSeatsLatencies().getValueAtPercentile(99) / 1e3;
+	}
+
+	public double getFindAndHoldSeatsP999Micros() {
+		return lastSnapshot.getFindAndHoldSeatsLatencies().getValueAtPercentile(99.9) / 1e3;
+	}
+
+	public long getReserveSeatsCalls() {
+		return lastSnapshot.getReserveSeatsLatencies().getCount();
+	}
+
+	public double getReserveSeatsP50Micros() {
+		return lastSnapshot.getReserveSeatsLatencies().getValueAtPercentile(50) / 1e3;
+	}
+
+	public double getReserveSeatsP99Micros() {
+		return lastSnapshot.getReserveSeatsLatencies().getValueAtPercentile(99) / 1e3;
+	}
+
+	public double getReserveSeatsP999Micros() {
+		return lastSnapshot.getReserveSeatsLatencies().getValueAtPercentile(99.9) / 1e3;
+	}
+}
@@ -0,0 +1,42 @@
+package ak.maven;
+
+/**
+* JMX view of TicketServiceMetrics. Counters are totals since the service started, and are read live
+* Latency percentiles (in microseconds) cover the latest snapshot interval, so they show the current cost of each call rather than an all-time average
+*/
+public interface TicketServiceMetricsMBean {
+
+	long getHoldsMade();
+
+	long getHoldsRefused();
+
+	long getReservationsMade();
+
+	long getReservationsRefused();
+
+	long getHoldsExpired();
+
+	long getReservationsCancelled();
+
+	int getSeatsAvailable();
+
+	int getActiveSeatHolds();
+
+	int getReservations();
+
+	long getFindAndHoldSeatsCalls();
+
+	double getFindAndHoldSeatsP50Micros();
+
+	double getFindAndHoldSeatsP99Micros();
+
+	double getFindAndHoldSeatsP999Micros();
+
+	long getReserveSeatsCalls();
+
+	double getReserveSeatsP50Micros();
+
+	double getReserveSeatsP99Micros();
+
+	double getReserveSeatsP999Micros();
+}
@@ -0,0 +1,239 @@
+package ak.maven;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+* This class hosts the TicketServices of many events at once, and routes calls to them by event ID
+* Every event is pinned to one shard when it's registered. A shard is a single thread working through its own queue of calls, so
+* all changes to an event are made by one thread, in the order they were submitted, and events on different shards never share a lock
+* or a thread. New events go to the shard with the fewest events, so events spread evenly across shards (by default one per core)
+* Calls return a CompletableFuture that completes on the event's shard. Anything slow done with the result should be done in an async
+* stage, so as not to hold up the shard. numSeatsAvailable doesn't change anything, so it's answered straight away on the caller's thread
+* Each event's TicketServiceImplementor keeps its own metrics, as when it's used on its own. Its expired holds are released by a task
+* that runs on its shard every tick, rather than by a background reaper, so even expiry changes an event on its own shard only
+* The TicketServiceImplementor itself is never handed out, since calls made on it straight away would bypass the shard. Callers get an
+* AsyncTicketService for the event instead, whose calls are routed through the registry, and so go through the shard like any others
+*/
+public class TicketServiceRegistry implements AutoCloseable {
+
+	private final ScheduledExecutorService[] shards;
+	private final int[] noOfEventsPerShard;  // guarded by this
+	private final ConcurrentHashMap<String, Event> events;
+
+	/**
+	 * Constructor. Starts one shard per core
+	 */
+	public TicketServiceRegistry() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor. Starts the given no. of shards, each on a daemon thread of its own
+	 * @param noOfShards No. of shards
+	 */
+	public TicketServiceRegistry(int noOfShards) {
+
+		if (noOfShards < 1) throw new IllegalArgumentException();
+
+		this.shards = new ScheduledExecutorService[noOfShards];
+		this.noOfEventsPerShard = new int[noOfShards];
+		this.events = new ConcurrentHashMap<String, Event>();
+		for(int i = 0; i < noOfShards; i++) {
+			String name = "ticket-shard-" + i;
+			shards[i] = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Registers an event, with a new TicketServiceImplementor for its venue, on the shard with the fewest events
+	 * Expired holds of the event are released on its shard, once every tick of the venue
+	 * @param eventID ID the event's calls are routed by
+	 * @param venue Venue of the event
+	 * @return an AsyncTicketService for the event, whose calls run on the event's shard
+	 * @throws IllegalArgumentException if an event with the same ID is already registered
+	 */
+	public synchronized AsyncTicketService register(String eventID, Venue venue) {
+
+		if(events.containsKey(eventID)) throw new IllegalArgumentException("An event is already registered with ID " + eventID);
+
+		int shard = 0;
+		for(int i = 1; i < shards.length; i++) {
+			if(noOfEventsPerShard[i] < noOfEventsPerShard[shard]) {
+				shard = i;
+			}
+		}
+		TicketServiceImplementor service = new TicketServiceImplementor(venue, false);
+		long tick = venue.getHoldExpiryTickInMillis();
+		ScheduledFuture<?> expiry = shards[shard].scheduleAtFixedRate(HelperMethods.reportingFailures(service::checkAndRemoveExpiredHolds), tick, tick, TimeUnit.MILLISECONDS);
+		events.put(eventID, new Event(service, shard, expiry));
+		noOfEventsPerShard[shard]++;
+		return new EventService(eventID);
+	}
+
+	/**
+	 * Unregisters an event. Calls already submitted for it are run first, then its TicketServiceImplementor is closed on its shard
+	 * @param eventID ID of the event
+	 * @return a CompletableFuture that completes once the event's service is closed, or null if no event has the ID
+	 */
+	public synchronized CompletableFuture<Void> unregister(String eventID) {
+		Event event = events.remove(eventID);
+		if(event == null) {
+			return null;
+		}
+		noOfEventsPerShard[event.shard]--;
+		event.expiry.cancel(false);
+		return CompletableFuture.runAsync(event.service::close, shards[event.shard]);
+	}
+
+	/**
+	 * Gets the number of 'Available' seats of an event, without going through its shard
+	 * @param eventID ID of the event
+	 * @return the number of seats available
+	 */
+	public int numSeatsAvailable(String eventID) {
+		return eventFor(eventID).service.numSeatsAvailable();
+	}
+
+	/**
+	 * Finds the next best seats of an event and holds them for the customer, on the event's shard
+	 * @param eventID ID of the event
+	 * @param numSeats number of seats requested to be held
+	 * @param customerEmail email address of the person making the request
+	 * @return a CompletableFuture of the SeatHold object, or of null if not enough seats are available
+	 */
+	public CompletableFuture<SeatHold> findAndHoldSeats(String eventID, int numSeats, String customerEmail) {
+		return submit(eventID, service -> service.findAndHoldSeats(numSeats, customerEmail));
+	}
+
+	/**
+	 * Reserves seats of an event contained in a SeatHold object, on the event's shard
+	 * @param eventID ID of the event
+	 * @param seatHoldId ID of the SeatHold object
+	 * @param customerEmail email address of the person making the request
+	 * @return a CompletableFuture of the confirmation code, or of an appropriate error message
+	 */
+	public CompletableFuture<String> reserveSeats(String eventID, int seatHoldId, String customerEmail) {
+		return submit(eventID, service -> service.reserveSeats(seatHoldId, customerEmail));
+	}
+
+	/**
+	 * Runs any call against an event's TicketServiceImplementor on the event's shard, after the calls submitted for it before
+	 * @param eventID ID of the event
+	 * @param call call to run
+	 * @return a CompletableFuture of the call's result
+	 */
+	public <T> CompletableFuture<T> submit(String eventID, Function<TicketServiceImplementor, T> call) {
+		Event event = eventFor(eventID);
+		return CompletableFuture.supplyAsync(() -> call.apply(event.service), shards[event.shard]);
+	}
+
+	/**
+	 * Stops every shard once the calls already submitted have run, and closes the TicketServiceImplementor of every event
+	 */
+	@Override
+	public synchronized void close() {
+		for(ScheduledExecutorService shard : shards) {
+			shard.shutdown();
+		}
+		for(ScheduledExecutorService shard : shards) {
+			try {
+				shard.awaitTermination(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		for(Event event : events.values()) {
+			event.service.close();
+		}
+		events.clear();
+	}
+
+	private Event eventFor(String eventID) {
+		Event event = events.get(eventID);
+		if(event == null) throw new IllegalArgumentException("No event is registered with ID " + eventID);
+		return event;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public AsyncTicketService getService(String eventID) {
+		eventFor(eventID);
+		return new EventService(eventID);
+	}
+
+	TicketServiceImplementor getServiceImplementor(String eventID) {
+		return eventFor(eventID).service;
+	}
+
+	public int getShard(String eventID) {
+		return eventFor(eventID).shard;
+	}
+
+	public int getNoOfShards() {
+		return shards.length;
+	}
+
+	public Set<String> getEventIDs() {
+		return new HashSet<String>(events.keySet());
+	}
+
+	/**
+	 * A registered event: its service, the shard it's pinned to, and the task expiring its holds there
+	 */
+	private static final class Event {
+
+		private final TicketServiceImplementor service;
+		private final int shard;
+		private final ScheduledFuture<?> expiry;
+
+		private Event(TicketServiceImplementor service, int shard, ScheduledFuture<?> expiry) {
+			this.service = service;
+			this.shard = shard;
+			this.expiry = expiry;
+		}
+	}
+
+	/**
+	 * The AsyncTicketService of a registered event. Calls are routed by the event's ID, as if made on the registry, so once the event
+	 * is unregistered they throw an IllegalArgumentException
+	 */
+	private final class EventService implements AsyncTicketService {
+
+		private final String eventID;
+
+		private EventService(String eventID) {
+			this.eventID = eventID;
+		}
+
+		@Override
+		public CompletableFuture<Integer> numSeatsAvailable() {
+			return CompletableFuture.completedFuture(TicketServiceRegistry.this.numSeatsAvailable(eventID));
+		}
+
+		@Override
+		public CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail) {
+			return TicketServiceRegistry.this.findAndHoldSeats(eventID, numSeats, customerEmail);
+		}
+
+		@Override
+		public CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail) {
+			return TicketServiceRegistry.this.reserveSeats(eventID, seatHoldId, customerEmail);
+		}
+	}
+}
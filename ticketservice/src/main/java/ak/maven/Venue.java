@@ -1,40 +1,137 @@
 package ak.maven;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
 
 /**
 * This class represents the Venue entity, mainly the seats available, held and reserved
 * It owns data for seat holds, reservations, and provides functions to get/set that data
-* It also hosts some configurations, such as messages to end user and hold timeout
+* It also hosts some configurations, such as messages to end user, hold timeout and how often expired holds are released
+* Seat states are kept in a striped SeatStateIndex, so that holds on different parts of the venue don't wait for each other
+* A venue is made up of sections of rows (see Section). The best-seat ranking is worked out once, when the venue is built
+* Holds are indexed by ID in primitive int hash maps, and the IDs of expired holds are remembered for a limited window (see ExpiredHoldTombstones)
+* Holds are scheduled in a timing wheel when added, and are expired by a background reaper (see HoldExpiryReaper)
+* Hold deadlines are kept as primitive times on a HoldClock, monotonic by default, so wall clock jumps don't move them, and checking one never allocates
+* Holds are split into segments by ID. Each segment has its own lock, hash map and expiry wheel, so the class is safe to use from many threads
+* Once recovered from a WriteAheadLog (see recover), every hold, expiry, release, reservation and cancellation is appended to that log as it happens
+* Recovery can start from the latest snapshot of a VenueSnapshotter, so that only the tail of the log written since has to be replayed
+* Reservations are indexed by confirmation code, so one can be looked up or cancelled (its seats freed straight away) in constant time
+* Confirmation codes are issued by the venue's ConfirmationCodeGenerator. Its key is logged and kept in snapshots, and recovery moves it past
+* every code read back, so codes issued after a restart don't repeat earlier ones. A reservation with a code already in use is refused
+* Active holds and reservations are also indexed by customer email (see CustomerIndex), which is what per-customer seat limits are checked against
+* Availability is also published as an AvailabilitySnapshot that readers share, rebuilt only after the no. of free seats changes
 * Most methods are getters/setters
 */
 public final class Venue {
 	 
     private int noOfSeats;
+    private List<Section> sections;
+    private volatile AvailabilitySnapshot availability;  // last published, see getAvailability
     private Seat[] seatsChart;
-    private ArrayList<SeatHold> seatHolds;
-    private ArrayList<Integer> expiredSeatHoldIDs; 
-    private ArrayList<Reservation> reservations;
+    private SeatStateIndex seatStates;
+    private HoldSegment[] holdSegments;
+    private ExpiredHoldTombstones expiredSeatHoldIDs; 
+    private LinkedHashMap<String, Reservation> reservations; //by confirmation code, in the order they were made
+    private volatile WriteAheadLog log; //null until the venue is recovered from a log
+    private volatile Runnable seatsFreedListener; //null until a TicketService listens, see setSeatsFreedListener
+    private volatile ConfirmationCodeGenerator confirmationCodes;
+    private boolean confirmationCodeKeyRestored; //set once the key has been read back from a snapshot or a log
+    private final HoldClock clock;
+    private final CustomerIndex customers = new CustomerIndex();
+    private volatile int maxSeatsPerCustomer = Integer.MAX_VALUE; //no limit unless one is set
     private final int holdTimeoutInSeconds = 45; //in seconds
+    private final int maxWaitAtHeadOfWaitlistInSeconds = 45; //a request at the head of the waitlist is turned away after this long, so it can't hold up the line
+    private final int maxWaitlistRequestsPerCustomer = 1; //no. of requests one customer (by email, ignoring case) may have in the waitlist at once
+    private final long holdExpiryTickInMillis; //in milliseconds
+    private final int noOfHoldExpiryBuckets = 512; //512 ticks of 250 milliseconds cover the hold timeout in a single turn
+    private final int expiredHoldRetentionInSeconds = 600; //expired hold IDs are reported as expired (rather than not found) for at least this long
+    private final int maxExpiredSeatHoldIDs = 1 << 20; //upper bound on expired hold IDs remembered at any time
+    private static final int seatsPerLockStripe = 128; //no. of consecutive seats sharing a lock, in a venue without sections
+    private final int noOfHoldSegments = 16; //no. of locks holds are split across, by hold ID
     private final String reservationSuccessMessage = "Reservation completed successfully!!";
     private final String notEnoughSeatsAvailableMessage = "Sorry, we don't have as many seats available as you have requested";
     private final String holdNotFoundMessage = "Couldn't find a hold with the hold ID provided";
     private final String holdExpiredMessage = "Sorry, your hold has expired. Please initiate a new hold/reservation.";
+    private final String reservationCancelledMessage = "Your reservation has been cancelled";
+    private final String reservationNotFoundMessage = "Couldn't find a reservation with the confirmation code provided";
+    private final String seatsKeptForWaitlistMessage = "Sorry, the seats available are being kept for customers waiting in line. Please try again shortly";
+    private final String customerLimitReachedMessage = "Sorry, you can't hold or reserve that many seats, as there is a limit on seats per customer";
     private final int lengthOfSeatHoldID = 6;
     private final int lengthOfReservationConfirmationCode = 8;
     
     /**
-     * Constructor 
+     * Constructor. Expired holds are released every 250 milliseconds
      * @param noOfSeats No. of seats for the venue
      */
     public Venue(int noOfSeats) {
+		this(noOfSeats, 250);
+    }
+    
+    /**
+     * Constructor, for a venue without sections. Seats are ranked by seat number
+     * @param noOfSeats No. of seats for the venue
+     * @param holdExpiryTickInMillis How often expired holds are released, in milliseconds
+     */
+    public Venue(int noOfSeats, long holdExpiryTickInMillis) {
+		this(noOfSeats, holdExpiryTickInMillis, HoldClock.MONOTONIC);
+    }
+    
+    /**
+     * Constructor, for a venue without sections. Seats are ranked by seat number
+     * @param noOfSeats No. of seats for the venue
+     * @param holdExpiryTickInMillis How often expired holds are released, in milliseconds
+     * @param clock Time source holds expire by, e.g. a ManualHoldClock in tests
+     */
+    public Venue(int noOfSeats, long holdExpiryTickInMillis, HoldClock clock) {
+		this(Collections.singletonList(new Section(null, noOfSeats, seatsPerLockStripe, 0)), holdExpiryTickInMillis, clock);
+    }
+    
+    /**
+     * Constructor. Expired holds are released every 250 milliseconds
+     * @param sections Sections of the venue. Seats are numbered from 1, section by section in this order
+     */
+    public Venue(List<Section> sections) {
+		this(sections, 250);
+    }
+    
+    /**
+     * Constructor 
+     * @param sections Sections of the venue. Seats are numbered from 1, section by section in this order
+     * @param holdExpiryTickInMillis How often expired holds are released, in milliseconds
+     */
+    public Venue(List<Section> sections, long holdExpiryTickInMillis) {
+		this(sections, holdExpiryTickInMillis, HoldClock.MONOTONIC);
+    }
+    
+    /**
+     * Constructor 
+     * @param sections Sections of the venue. Seats are numbered from 1, section by section in this order
+     * @param holdExpiryTickInMillis How often expired holds are released, in milliseconds
+     * @param clock Time source holds expire by, e.g. a ManualHoldClock in tests
+     */
+    public Venue(List<Section> sections, long holdExpiryTickInMillis, HoldClock clock) {
+		this.sections = new ArrayList<Section>(sections);
+		this.holdExpiryTickInMillis = holdExpiryTickInMillis;
+		this.clock = clock;
+		this.seatStates = new SeatStateIndex(this.sections);
+		this.noOfSeats = seatStates.getNoOfFreeSeats();
 		this.seatsChart = new Seat[noOfSeats];
-		seatHolds = new ArrayList<SeatHold>();
-		reservations = new ArrayList<Reservation>();
-		expiredSeatHoldIDs = new ArrayList<Integer>();
+		this.holdSegments = new HoldSegment[noOfHoldSegments];
+		for(int i = 0; i < noOfHoldSegments; i++) {
+			holdSegments[i] = new HoldSegment(new HoldExpiryWheel(holdExpiryTickInMillis, noOfHoldExpiryBuckets, clock.millis()));
+		}
+		reservations = new LinkedHashMap<String, Reservation>();
+		confirmationCodes = new ConfirmationCodeGenerator(lengthOfReservationConfirmationCode);
+		expiredSeatHoldIDs = new ExpiredHoldTombstones(expiredHoldRetentionInSeconds * 1000L, 4, maxExpiredSeatHoldIDs, clock.millis());
 		
-		for(int i = 0; i < noOfSeats; i++)
-			this.seatsChart[i] = new Seat(i+1); //i+1 is used so as to not number a seat with 0, but instead start with 1
+		int seatNumber = 1; //seats are numbered from 1, not 0
+		for(Section section : this.sections) {
+			for(int i = 0; i < section.getNoOfSeats(); i++, seatNumber++) {
+				this.seatsChart[seatNumber - 1] = new Seat(seatNumber, section.getName(), seatStates.getRowNumber(seatNumber), seatStates.getRank(seatNumber));
+			}
+		}
     }
 
 	/**
@@ -43,41 +140,432 @@ public final class Venue {
      * @return Optional SeatHold object 
      */
     public Optional<SeatHold> getSeatHoldByID(int seatHoldID){		
-		return seatHolds.stream()
-				.filter(s -> s.getSeatHoldID() == seatHoldID)
-				.findFirst();
+		HoldSegment segment = segmentFor(seatHoldID);
+		synchronized (segment) {
+			return Optional.ofNullable(segment.seatHolds.get(seatHoldID));
+		}
 	}
     
     /**
-     * Adds the SeatHold object to a collection of SeatHold objects
+     * Adds the SeatHold object to a collection of SeatHold objects, marks its seats as held and schedules it to expire
+     * A hold that is already past its deadline is marked expired straight away, and its seats are never held
      * @param seatHold SeatHold ID
      */
     public void addHold(SeatHold seatHold) {
-		this.seatHolds.add(seatHold);
+		
+		long deadline = getHoldDeadlineInMillis(seatHold);
+		
+		if(deadline < clock.millis()) {
+			markHoldExpired(seatHold.getSeatHoldID());
+			return;
+		}
+		
+		HoldSegment segment = segmentFor(seatHold.getSeatHoldID());
+		synchronized (segment) {
+			logHold(seatHold);   // logged first, so nothing has changed if the log has failed
+			this.seatStates.hold(seatHold.getSeatIDsHeld());
+			segment.seatHolds.put(seatHold.getSeatHoldID(), seatHold);
+			segment.holdExpiryWheel.schedule(seatHold, deadline);
+			customers.addHold(seatHold);
+		}
+	}
+    
+    /**
+     * Adds a SeatHold object whose seats have already been claimed through the seat state index, and schedules it to expire
+     * Nothing is added if another active hold has the same ID. An ID given to a new hold is no longer reported as expired
+     * @param seatHold SeatHold object
+     * @return true if the hold was added, false if its ID is in use
+     * @throws UncheckedIOException if the venue is logged and the log has failed, in which case nothing is added
+     */
+    public boolean registerHold(SeatHold seatHold) {
+		
+		long deadline = getHoldDeadlineInMillis(seatHold);
+		HoldSegment segment = segmentFor(seatHold.getSeatHoldID());
+		
+		synchronized (segment) {
+			if(segment.seatHolds.containsKey(seatHold.getSeatHoldID())) {
+				return false;
+			}
+			logHold(seatHold);   // logged first, so nothing has changed if the log has failed
+			segment.seatHolds.put(seatHold.getSeatHoldID(), seatHold);
+			segment.holdExpiryWheel.schedule(seatHold, deadline);
+			expiredSeatHoldIDs.remove(seatHold.getSeatHoldID());   // the ID has been recycled
+			customers.addHold(seatHold);
+			return true;
+		}
 	}
 	
 	/**
-	 * Removes the SeatHold object from a collection of SeatHold objects
+	 * Removes the SeatHold object from a collection of SeatHold objects, and frees up its seats
+	 * The hold stays scheduled in the expiry wheel, and is skipped when it falls due
 	 * @param seatHold SeatHold ID
 	 */
 	public void removeHold(SeatHold seatHold){
-		this.seatHolds.remove(seatHold);
+		if(removeIfCurrent(seatHold)) {
+			this.seatStates.release(seatHold.getSeatIDsHeld());
+			seatsFreed();
+		}
+	}
+	
+	/**
+	 * Removes the SeatHold object with the given ID from the collection, leaving its seats held, so that they can be reserved
+	 * Only one caller can take a given hold, and the reaper can no longer expire it once it's taken
+	 * The hold stays counted against its customer until its seats are reserved (see addReservation) or released (see releaseSeats)
+	 * @param seatHoldID SeatHold ID
+	 * @return Optional SeatHold object that was taken
+	 */
+	public Optional<SeatHold> takeHold(int seatHoldID) {
+		HoldSegment segment = segmentFor(seatHoldID);
+		synchronized (segment) {
+			return Optional.ofNullable(segment.seatHolds.remove(seatHoldID));
+		}
+	}
+	
+	/**
+	 * Frees up the seats of a hold that was taken, but can't be reserved after all (e.g. it went past its deadline)
+	 * @param seatHold SeatHold object
+	 */
+	public void releaseSeats(SeatHold seatHold) {
+		customers.removeHold(seatHold);
+		this.seatStates.release(seatHold.getSeatIDsHeld());
+		seatsFreed();
+	}
+	
+	/**
+	 * Sets what is run whenever seats are freed: by a hold being removed, released or expiring, or a reservation being cancelled or
+	 * taken back. It runs on the thread that freed the seats, after they're free, with no venue lock held
+	 * @param listener e.g. the service's Waitlist serving customers waiting for seats, or null for none
+	 */
+	public void setSeatsFreedListener(Runnable listener) {
+		this.seatsFreedListener = listener;
+	}
+	
+	private void seatsFreed() {
+		Runnable listener = this.seatsFreedListener;
+		if(listener != null) {
+			listener.run();
+		}
 	}
 	
 	/**
-	 * Adds SeatHold IDs of expired holds to a collection
+	 * Adds SeatHold IDs of expired holds to a collection. An ID is only recorded once, and is forgotten once it's out of the retention window
 	 * @param seatHold SeatHold ID
 	 */
 	public void markHoldExpired(int seatHoldID) {
-		expiredSeatHoldIDs.add(seatHoldID);
+		expiredSeatHoldIDs.add(seatHoldID, clock.millis());
+		WriteAheadLog log = this.log;
+		if(log != null) {
+			logIfPossible(() -> log.appendExpire(seatHoldID));
+		}
 	}
 	
 	/**
-	 * Adds the Reservation object to a collection of Reservation objects
+	 * Turns the hold expiry wheels up to the current time. Holds that have fallen due are marked expired and their seats are freed up
+	 * Holds that were removed in the meantime (e.g. reserved) are skipped
+	 * A hold is marked expired before its segment lock is let go, so nobody sees it as neither active nor expired
+	 * Called by the background reaper every tick
+	 * @return No. of holds expired
+	 */
+	public int expireDueHolds() {
+		
+		long now = clock.millis();
+		List<SeatHold> expiredHolds = new ArrayList<SeatHold>();
+		
+		for(HoldSegment segment : holdSegments) {
+			synchronized (segment) {
+				for(SeatHold s : segment.holdExpiryWheel.advance(now)) {
+					if(segment.seatHolds.get(s.getSeatHoldID()) == s) {
+						segment.seatHolds.remove(s.getSeatHoldID());
+						customers.removeHold(s);
+						markHoldExpired(s.getSeatHoldID());
+						expiredHolds.add(s);
+					}
+				}
+			}
+		}
+		
+		for(SeatHold s : expiredHolds) {
+			this.seatStates.release(s.getSeatIDsHeld());
+		}
+		if(!expiredHolds.isEmpty()) {
+			seatsFreed();
+		}
+		
+		expiredSeatHoldIDs.rotate(now);
+		return expiredHolds.size();
+	}
+	
+	/**
+	 * Removes the hold from the index, if it is the hold currently indexed against its ID
+	 * @param seatHold SeatHold object
+	 * @return true if the hold was removed, false otherwise
+	 */
+	private boolean removeIfCurrent(SeatHold seatHold) {
+		HoldSegment segment = segmentFor(seatHold.getSeatHoldID());
+		synchronized (segment) {
+			if(segment.seatHolds.get(seatHold.getSeatHoldID()) != seatHold) {
+				return false;
+			}
+			segment.seatHolds.remove(seatHold.getSeatHoldID());
+			customers.removeHold(seatHold);
+			WriteAheadLog log = this.log;
+			if(log != null) {
+				logIfPossible(() -> log.appendRelease(seatHold.getSeatHoldID()));   // logged before the lock is let go, so it comes before any later use of the ID
+			}
+			return true;
+		}
+	}
+	
+	private HoldSegment segmentFor(int seatHoldID) {
+		int h = seatHoldID * 0x9E3779B9;
+		return holdSegments[(h >>> 16) & (noOfHoldSegments - 1)];
+	}
+	
+	/**
+	 * Checks if the hold has gone past its deadline, whether or not it has been expired by the reaper yet
+	 * @param seatHold SeatHold object
+	 * @return true if the hold is past its deadline, false otherwise
+	 */
+	public boolean isHoldPastDeadline(SeatHold seatHold) {
+		return getHoldDeadlineInMillis(seatHold) < clock.millis();
+	}
+	
+	/**
+	 * Works out the deadline of a hold made now, i.e. the time on the venue's clock after which it is expired
+	 * @return deadline of the hold, in milliseconds on the venue's HoldClock
+	 */
+	public long newHoldDeadlineInMillis() {
+		return clock.millis() + holdTimeoutInSeconds * 1000L;
+	}
+	
+	/**
+	 * Gets the deadline of a hold. A hold that doesn't have one yet (e.g. one read back from a log) is given one from its age by the
+	 * wall clock, once, and keeps it from then on
+	 * @param seatHold SeatHold object
+	 * @return deadline of the hold, in milliseconds on the venue's HoldClock
+	 */
+	private long getHoldDeadlineInMillis(SeatHold seatHold) {
+		if(!seatHold.hasHoldDeadline()) {
+			long ageInMillis = System.currentTimeMillis() - HelperMethods.toEpochMillis(seatHold.getHoldTimestamp());
+			seatHold.setHoldDeadlineInMillis(clock.millis() - ageInMillis + holdTimeoutInSeconds * 1000L);
+		}
+		return seatHold.getHoldDeadlineInMillis();
+	}
+	
+	/**
+	 * Issues a new confirmation code, from the venue's ConfirmationCodeGenerator
+	 * @return an alphanumeric code, of preconfigured length
+	 */
+	public String nextConfirmationCode() {
+		return confirmationCodes.nextCode();
+	}
+	
+	/**
+	 * Picks up the confirmation codes where an earlier run left off, e.g. from a snapshot
+	 * @param key key the earlier run issued codes with
+	 * @param noOfCodesIssued no. of codes it had issued
+	 */
+	public void restoreConfirmationCodes(long key, long noOfCodesIssued) {
+		ConfirmationCodeGenerator restored = new ConfirmationCodeGenerator(lengthOfReservationConfirmationCode, key);
+		restored.skipTo(noOfCodesIssued);
+		confirmationCodes = restored;
+		confirmationCodeKeyRestored = true;
+	}
+	
+	/**
+	 * Adds the Reservation object to a collection of Reservation objects, and marks its seats as reserved
 	 * @param reservation Reservation object
+	 * @return true if it was added, false if a reservation already has its confirmation code
+	 */
+	public boolean addReservation(Reservation reservation){
+		return addReservation(reservation, 0) >= 0;
+	}
+	
+	/**
+	 * Adds the Reservation object made from a hold to a collection of Reservation objects, and marks its seats as reserved
+	 * If the venue is logged, the reservation is appended to the log, but isn't waited on: see awaitDurable
+	 * @param reservation Reservation object
+	 * @param seatHoldID ID of the hold that was reserved, or 0 if the seats weren't held
+	 * @return LSN of the reservation in the log, 0 if the venue isn't logged, or -1 if a reservation already has its confirmation code,
+	 * in which case nothing is added
+	 * @throws UncheckedIOException if the venue is logged and the log has failed, in which case nothing is added
+	 */
+	public long addReservation(Reservation reservation, int seatHoldID){
+		long lsn;
+		synchronized (reservations) {
+			if(this.reservations.containsKey(reservation.getReservationID())) {
+				return -1;
+			}
+			WriteAheadLog log = this.log;   // logged first, so nothing has changed if the log has failed, and before the lock is let go, so a cancellation of it can't be logged first
+			lsn = log == null ? 0 : log.appendReserve(seatHoldID, reservation, HelperMethods.toEpochMillis(reservation.getReservationTimestamp()));
+			this.reservations.put(reservation.getReservationID(), reservation);
+		}
+		this.seatStates.reserve(reservation.getSeatIDsReserved());
+		customers.addReservation(reservation, seatHoldID);
+		return lsn;
+	}
+	
+	/**
+	 * Takes back a reservation that was added but couldn't be made durable, so its confirmation code was never given out: drops it,
+	 * and frees up its seats. Nothing is logged, since the log has failed
+	 * @param reservation Reservation object
+	 */
+	public void revokeReservation(Reservation reservation){
+		synchronized (reservations) {
+			if(this.reservations.get(reservation.getReservationID()) != reservation) {
+				return;
+			}
+			this.reservations.remove(reservation.getReservationID());
+		}
+		customers.removeReservation(reservation);
+		this.seatStates.unreserve(reservation.getSeatIDsReserved());
+		seatsFreed();
+	}
+	
+	/**
+	 * Cancels a reservation: removes it from the collection, and frees up its seats straight away
+	 * If the venue is logged, the cancellation is appended to the log, but isn't waited on: see awaitDurable
+	 * @param confirmationCode Confirmation code of the reservation
+	 * @return LSN of the cancellation in the log, 0 if the venue isn't logged, or -1 if no reservation has the code
+	 */
+	public long cancelReservation(String confirmationCode){
+		Reservation reservation;
+		long lsn;
+		synchronized (reservations) {
+			reservation = this.reservations.get(confirmationCode);
+			if(reservation == null) {
+				return -1;
+			}
+			WriteAheadLog log = this.log;
+			lsn = log == null ? 0 : log.appendCancel(confirmationCode);   // logged first, so nothing has changed if the log has failed
+			this.reservations.remove(confirmationCode);
+		}
+		customers.removeReservation(reservation);
+		this.seatStates.unreserve(reservation.getSeatIDsReserved());
+		seatsFreed();
+		return lsn;
+	}
+	
+	/**
+	 * Waits until the log is on disk up to the given LSN, e.g. before confirming a reservation. Does nothing if the venue isn't logged
+	 * @param lsn LSN returned when the change was made
+	 */
+	public void awaitDurable(long lsn) {
+		WriteAheadLog log = this.log;
+		if(log != null && lsn > 0) {
+			log.awaitDurable(lsn);
+		}
+	}
+	
+	/**
+	 * Adds Reservation objects whose seats are already marked reserved, e.g. when restoring a snapshot
+	 * @param reservations Reservation objects
+	 */
+	public void addReservations(Collection<Reservation> reservations){
+		synchronized (this.reservations) {
+			for(Reservation reservation : reservations) {
+				this.reservations.put(reservation.getReservationID(), reservation);
+			}
+		}
+		customers.addReservations(reservations);
+	}
+	
+	/**
+	 * Rebuilds the venue from a log, by applying every event in it in order, and then keeps appending the venue's events to the log
+	 * Meant to be called on a new venue, before it is handed to a TicketService. Holds that went past their deadline while the service was down
+	 * are expired straight away
+	 * @param log WriteAheadLog written by an earlier run with the same seats
+	 * @throws IOException if the log can't be read
+	 */
+	public void recover(WriteAheadLog log) throws IOException {
+		recover(log, null);
+	}
+	
+	/**
+	 * Rebuilds the venue from the latest snapshot, if there is one, and the events logged since, then keeps appending the venue's events to the log
+	 * Meant to be called on a new venue, before it is handed to a TicketService
+	 * @param log WriteAheadLog written by an earlier run with the same seats
+	 * @param snapshots VenueSnapshotter that took snapshots of the earlier run, or null to replay the whole log
+	 * @throws IOException if the snapshot or the log can't be read
+	 */
+	public void recover(WriteAheadLog log, VenueSnapshotter snapshots) throws IOException {
+		long snapshotLsn = snapshots == null ? 0 : snapshots.loadLatest(this);
+		replay(log, snapshotLsn);
+		if(!confirmationCodeKeyRestored) {   // a new log: every code from now on is issued with this venue's key
+			log.appendCodeKey(confirmationCodes.getKey());
+			confirmationCodeKeyRestored = true;
+		}
+		this.log = log;
+	}
+	
+	/**
+	 * Applies the events in a log after the given LSN, in order, without logging them again (unless the venue already has a log of its own)
+	 * @param log WriteAheadLog to read
+	 * @param fromLsn LSN the venue is already up to date with
+	 * @return LSN of the last event applied, or fromLsn if there were none
+	 * @throws IOException if the log can't be read
+	 */
+	public long replay(WriteAheadLog log, long fromLsn) throws IOException {
+		long[] lastLsn = { fromLsn };
+		log.replay(fromLsn, record -> {
+			apply(record);
+			lastLsn[0] = record.getLsn();
+		});
+		return lastLsn[0];
+	}
+	
+	/**
+	 * Applies an event read back from a log. Called while recovering, before the log is attached, so nothing is logged again
+	 * @param record event from the log
+	 */
+	private void apply(LogRecord record) {
+		switch(record.getType()) {
+		case HOLD:
+			addHold(new SeatHold(record.getSeatHoldID(), record.getSeatNumbersAsList(), record.getCustomerEmail(), HelperMethods.fromEpochMillis(record.getTimestampInMillis())));
+			break;
+		case EXPIRE:
+			takeHold(record.getSeatHoldID()).ifPresent(this::releaseSeats);
+			markHoldExpired(record.getSeatHoldID());
+			break;
+		case RELEASE:
+			takeHold(record.getSeatHoldID()).ifPresent(this::releaseSeats);
+			break;
+		case RESERVE:
+			takeHold(record.getSeatHoldID());
+			if(confirmationCodeKeyRestored) {
+				confirmationCodes.skipPast(record.getConfirmationCode());
+			}
+			addReservation(new Reservation(record.getConfirmationCode(), record.getSeatNumbersAsList(), record.getCustomerEmail(), HelperMethods.fromEpochMillis(record.getTimestampInMillis())), record.getSeatHoldID());
+			break;
+		case CANCEL:
+			cancelReservation(record.getConfirmationCode());
+			break;
+		case CODE_KEY:
+			if(!confirmationCodeKeyRestored || confirmationCodes.getKey() != record.getConfirmationCodeKey()) {
+				restoreConfirmationCodes(record.getConfirmationCodeKey(), 0);
+			}
+			break;
+		}
+	}
+	
+	/**
+	 * Appends an expiry or a release. Neither has to be durable, since a hold recovered without one is expired by its deadline anyway,
+	 * so once the log has failed they are left out, rather than leaving the hold half expired or released
 	 */
-	public void addReservation(Reservation reservation){
-		this.reservations.add(reservation);
+	private static void logIfPossible(Runnable append) {
+		try {
+			append.run();
+		}
+		catch (UncheckedIOException ex) {
+			// the log has failed, and holds and reservations are turned away from now on
+		}
+	}
+	
+	private void logHold(SeatHold seatHold) {
+		WriteAheadLog log = this.log;
+		if(log != null) {
+			log.appendHold(seatHold, HelperMethods.toEpochMillis(seatHold.getHoldTimestamp()));
+		}
 	}
 	
 
@@ -93,22 +581,158 @@ public final class Venue {
 		return seatsChart;
 	}
 	
-	public ArrayList<SeatHold> getSeatHolds() {
-		return seatHolds;
+	public WriteAheadLog getLog() {
+		return log;
+	}
+	
+	public HoldClock getHoldClock() {
+		return clock;
+	}
+	
+	public SeatStateIndex getSeatStates() {
+		return seatStates;
+	}
+	
+	public CustomerIndex getCustomers() {
+		return customers;
+	}
+	
+	public int getMaxSeatsPerCustomer() {
+		return maxSeatsPerCustomer;
+	}
+	
+	/**
+	 * Limits the no. of seats one customer (by email) may hold and reserve at any time. Checked on every hold
+	 * @param maxSeatsPerCustomer Max no. of seats per customer, or Integer.MAX_VALUE for no limit (the default)
+	 */
+	public void setMaxSeatsPerCustomer(int maxSeatsPerCustomer) {
+		if (maxSeatsPerCustomer < 1) throw new IllegalArgumentException();
+		this.maxSeatsPerCustomer = maxSeatsPerCustomer;
+	}
+	
+	public int getNoOfSeatsAvailable() {
+		return seatStates.getNoOfFreeSeats();
 	}
 	
-	public ArrayList<Integer> getExpiredSeatHoldIDs() {
+	/**
+	 * Gets the availability of the venue as a snapshot that readers share. While no seats are freed or taken, every call returns the
+	 * same snapshot, after reading one counter; the first call after a change builds and publishes a new one. Readers never lock,
+	 * and never hold up the requests that change the seats
+	 * @return the current AvailabilitySnapshot
+	 */
+	public AvailabilitySnapshot getAvailability() {
+		long freeAndVersion = seatStates.getNoOfFreeSeatsAndVersion();
+		AvailabilitySnapshot snapshot = availability;
+		if(snapshot == null || snapshot.getVersion() != freeAndVersion >>> 32) {
+			String[] names = new String[sections.size()];
+			int[] available = new int[sections.size()];
+			for(int i = 0; i < names.length; i++) {
+				names[i] = sections.get(i).getName();
+				available[i] = seatStates.getNoOfFreeSeats(i);
+			}
+			snapshot = new AvailabilitySnapshot(freeAndVersion >>> 32, (int) freeAndVersion, names, available);
+			availability = snapshot;   // a reader that lost a race may put back an older one, which the next reader just replaces
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * No. of seats available in a section, read without taking any lock
+	 * @param sectionName Name of the section
+	 * @return No. of seats available, or 0 if there is no such section
+	 */
+	public int getNoOfSeatsAvailable(String sectionName) {
+		for(int i = 0; i < sections.size(); i++) {
+			if(Objects.equals(sections.get(i).getName(), sectionName)) {
+				return seatStates.getNoOfFreeSeats(i);
+			}
+		}
+		return 0;
+	}
+	
+	public List<Section> getSections() {
+		return Collections.unmodifiableList(sections);
+	}
+	
+	/**
+	 * Copies the active seat holds into a list (in no particular order). Meant for reporting, not for request paths
+	 * @return a list of SeatHold objects
+	 */
+	public List<SeatHold> getSeatHolds() {
+		List<SeatHold> holds = new ArrayList<SeatHold>();
+		for(HoldSegment segment : holdSegments) {
+			synchronized (segment) {
+				holds.addAll(segment.seatHolds.values());
+			}
+		}
+		return holds;
+	}
+	
+	public int getNoOfSeatHolds() {
+		int noOfHolds = 0;
+		for(HoldSegment segment : holdSegments) {
+			synchronized (segment) {
+				noOfHolds += segment.seatHolds.size();
+			}
+		}
+		return noOfHolds;
+	}
+	
+	public ExpiredHoldTombstones getExpiredSeatHoldIDs() {
 		return expiredSeatHoldIDs;
 	}	
 
-	public ArrayList<Reservation> getReservations() {
-		return reservations;
+	/**
+	 * Copies the reservations into a list, in the order they were made. Meant for reporting, not for request paths
+	 * @return a list of Reservation objects
+	 */
+	public List<Reservation> getReservations() {
+		synchronized (reservations) {
+			return new ArrayList<Reservation>(reservations.values());
+		}
 	}	  
 	
+	/**
+	 * Finds the Reservation object with the given confirmation code, if one exists (and hasn't been cancelled)
+	 * @param confirmationCode Confirmation code of the reservation
+	 * @return Optional Reservation object
+	 */
+	public Optional<Reservation> getReservationByCode(String confirmationCode) {
+		synchronized (reservations) {
+			return Optional.ofNullable(reservations.get(confirmationCode));
+		}
+	}
+	
+	public int getNoOfReservations() {
+		synchronized (reservations) {
+			return reservations.size();
+		}
+	}
+	
+	public int getMaxWaitAtHeadOfWaitlist() {
+		return maxWaitAtHeadOfWaitlistInSeconds;
+	}
+
+	public int getMaxWaitlistRequestsPerCustomer() {
+		return maxWaitlistRequestsPerCustomer;
+	}
+
 	public int getHoldTimeout() {
 		return holdTimeoutInSeconds;
 	}
 	
+	public long getHoldExpiryTickInMillis() {
+		return holdExpiryTickInMillis;
+	}
+	
+	public int getExpiredHoldRetentionInSeconds() {
+		return expiredHoldRetentionInSeconds;
+	}
+	
+	public int getMaxExpiredSeatHoldIDs() {
+		return maxExpiredSeatHoldIDs;
+	}
+	
 	public String getReservationSuccessMessage() {
 		return reservationSuccessMessage;
 	}
@@ -125,6 +749,22 @@ public final class Venue {
 		return holdExpiredMessage;
 	}	
 
+	public String getReservationCancelledMessage() {
+		return reservationCancelledMessage;
+	}
+
+	public String getReservationNotFoundMessage() {
+		return reservationNotFoundMessage;
+	}
+
+	public String getSeatsKeptForWaitlistMessage() {
+		return seatsKeptForWaitlistMessage;
+	}
+
+	public String getCustomerLimitReachedMessage() {
+		return customerLimitReachedMessage;
+	}
+
     public int getLengthOfSeatHoldID() {
 		return lengthOfSeatHoldID;
 	}
@@ -132,4 +772,22 @@ public final class Venue {
 	public int getLengthOfReservationConfirmationCode() {
 		return lengthOfReservationConfirmationCode;
 	}
-}
\ No newline at end of file
+
+	public ConfirmationCodeGenerator getConfirmationCodes() {
+		return confirmationCodes;
+	}
+	
+	/**
+	 * A share of the holds, picked by hold ID, guarded by its own lock (the segment object itself)
+	 */
+	private static final class HoldSegment {
+		
+		private final IntHashMap<SeatHold> seatHolds;
+		private final HoldExpiryWheel holdExpiryWheel;
+		
+		private HoldSegment(HoldExpiryWheel holdExpiryWheel) {
+			this.seatHolds = new IntHashMap<SeatHold>();
+			this.holdExpiryWheel = holdExpiryWheel;
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package ak.maven;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+* This class takes compact binary snapshots of a Venue, so that a restart only has to replay the tail of the WriteAheadLog written since
+* Snapshots are never taken from the live venue, so requests are never stopped or slowed down for them. Instead, a shadow venue is built
+* from the latest snapshot and the log records written after it, up to what is durable, and written out as the next snapshot. Since the
+* shadow only ever sees whole log records in order, every snapshot is exactly the state of the venue at the LSN it's labelled with
+* A snapshot holds the key and the no. of confirmation codes issued, the reserved seats as a bitmap in seat number order, then the active
+* holds and the reservations. It is written to a
+* temporary file, forced to disk and moved into place, and ends with a CRC32 of its contents, so a half written snapshot is never loaded
+* Once a snapshot is in place, and the directory has been forced to disk so the move survives a crash, older snapshots and the log
+* segments it covers are deleted
+* Snapshots are loaded by memory-mapping the file, see loadLatest and Venue.recover
+*/
+public class VenueSnapshotter implements Closeable {
+
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".snap";
+	private static final int MAGIC = 0x54534E50;  // "TSNP"
+	private static final int VERSION = 2;  // 1 had no confirmation code key
+
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "venue-snapshots");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final Path directory;
+	private final WriteAheadLog log;
+	private final Supplier<Venue> newVenue;
+	private ScheduledFuture<?> snapshotTask;
+	private long noOfStarts;  // moved on by every start and stop, so a background snapshot only runs if it's still wanted
+
+	/**
+	 * Constructor
+	 * @param directory Directory the snapshot files are kept in (created if needed)
+	 * @param log WriteAheadLog of the venue
+	 * @param newVenue Supplier of new, empty venues with the same seats as the one logged, used to build shadow venues
+	 * @throws IOException if the directory can't be created
+	 */
+	public VenueSnapshotter(Path directory, WriteAheadLog log, Supplier<Venue> newVenue) throws IOException {
+		this.directory = directory;
+		this.log = log;
+		this.newVenue = newVenue;
+		Files.createDirectories(directory);
+	}
+
+	/**
+	 * Takes a snapshot of the venue as of the last durable log record, unless the latest snapshot is already up to date
+	 * @return LSN the latest snapshot is taken at
+	 * @throws IOException if the snapshot can't be written
+	 */
+	public synchronized long takeSnapshot() throws IOException {
+
+		Venue shadow = newVenue.get();
+		long snapshotLsn = loadLatest(shadow);
+		long lsn = shadow.replay(log, snapshotLsn);
+
+		if(lsn > snapshotLsn || listSnapshots().isEmpty()) {
+			write(shadow, lsn);
+			HelperMethods.syncDirectory(directory);   // the move has to be on disk before anything it replaces is deleted
+		}
+		for(long older : listSnapshots()) {
+			if(older < lsn) {
+				Files.deleteIfExists(snapshotPath(older));
+			}
+		}
+		log.deleteSegmentsBefore(lsn);
+		return lsn;
+	}
+
+	/**
+	 * Starts taking a snapshot every so often on a background thread, replacing any snapshots already being taken
+	 * @param periodInMillis Time between snapshots, in milliseconds
+	 */
+	public synchronized void start(long periodInMillis) {
+		stop();
+		long start = ++noOfStarts;
+		snapshotTask = scheduler.scheduleWithFixedDelay(HelperMethods.reportingFailures(() -> {
+			synchronized (this) {
+				if(noOfStarts == start) {   // not stopped since, see stop
+					takeSnapshot();   // if it fails, the next one is still taken: the log has everything in the meantime
+				}
+			}
+		}), periodInMillis, periodInMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops taking snapshots in the background. If a snapshot is being taken, waits until it's done, so the log can be closed afterwards
+	 * Snapshots are taken with the lock this method takes, so one in progress is finished before it gets the lock, and one that was
+	 * about to start finds it has been stopped and doesn't
+	 */
+	public synchronized void stop() {
+		noOfStarts++;
+		if(snapshotTask != null) {
+			snapshotTask.cancel(false);
+			snapshotTask = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		stop();
+	}
+
+	/**
+	 * Loads the latest snapshot into a new venue: its reserved seats, holds and reservations. Holds that went past their deadline since
+	 * the snapshot was taken are expired straight away
+	 * @param venue new Venue with the same seats as the one the snapshot was taken of
+	 * @return LSN the snapshot was taken at, or 0 if there is no snapshot yet
+	 * @throws IOException if the snapshot can't be read, or is damaged
+	 */
+	public long loadLatest(Venue venue) throws IOException {
+
+		List<Long> snapshots = listSnapshots();
+		if(snapshots.isEmpty()) {
+			return 0;
+		}
+		Path path = snapshotPath(snapshots.get(snapshots.size() - 1));
+
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if(snapshot.limit() < 4) throw new IOException("Snapshot is damaged: " + path);
+			ByteBuffer contents = (ByteBuffer) snapshot.duplicate().limit(snapshot.limit() - 4);
+			CRC32 crc = new CRC32();
+			crc.update(contents);
+			if((int) crc.getValue() != snapshot.getInt(snapshot.limit() - 4)) throw new IOException("Snapshot is damaged: " + path);
+
+			if(snapshot.getInt() != MAGIC) throw new IOException("Not a snapshot: " + path);
+			int version = snapshot.getInt();
+			if(version < 1 || version > VERSION) throw new IOException("Not a snapshot: " + path);
+			long lsn = snapshot.getLong();
+			if(snapshot.getInt() != venue.getNoOfSeats()) throw new IOException("Snapshot was taken of a venue with a different no. of seats: " + path);
+			if(version >= 2) {
+				long key = snapshot.getLong();
+				venue.restoreConfirmationCodes(key, snapshot.getLong());
+			}
+
+			long[] words = new long[snapshot.getInt()];
+			snapshot.asLongBuffer().get(words);
+			snapshot.position(snapshot.position() + 8 * words.length);
+			venue.getSeatStates().restoreReservedSeats(BitSet.valueOf(words));
+
+			int noOfHolds = snapshot.getInt();
+			for(int i = 0; i < noOfHolds; i++) {
+				int seatHoldID = snapshot.getInt();
+				long timestampInMillis = snapshot.getLong();
+				String customerEmail = getString(snapshot);
+				venue.addHold(new SeatHold(seatHoldID, getSeats(snapshot), customerEmail, HelperMethods.fromEpochMillis(timestampInMillis)));
+			}
+
+			int noOfReservations = snapshot.getInt();
+			List<Reservation> reservations = new ArrayList<Reservation>(noOfReservations);
+			for(int i = 0; i < noOfReservations; i++) {
+				long timestampInMillis = snapshot.getLong();
+				String reservationID = getString(snapshot);
+				String customerEmail = getString(snapshot);
+				reservations.add(new Reservation(reservationID, getSeats(snapshot), customerEmail, HelperMethods.fromEpochMillis(timestampInMillis)));
+			}
+			venue.addReservations(reservations);   // their seats are already reserved through the bitmap
+
+			return lsn;
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the venue to a temporary file, forces it to disk and moves it into place
+	 */
+	private void write(Venue venue, long lsn) throws IOException {
+
+		Path temporary = directory.resolve(SNAPSHOT_PREFIX + "tmp");
+		CRC32 crc = new CRC32();
+
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream file = Channels.newOutputStream(channel);
+			DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(lsn);
+			out.writeInt(venue.getNoOfSeats());
+			out.writeLong(venue.getConfirmationCodes().getKey());
+			out.writeLong(venue.getConfirmationCodes().getNoOfCodesIssued());
+
+			long[] words = venue.getSeatStates().getReservedSeats().toLongArray();
+			out.writeInt(words.length);
+			for(long word : words) {
+				out.writeLong(word);
+			}
+
+			List<SeatHold> seatHolds = venue.getSeatHolds();
+			out.writeInt(seatHolds.size());
+			for(SeatHold seatHold : seatHolds) {
+				out.writeInt(seatHold.getSeatHoldID());
+				out.writeLong(HelperMethods.toEpochMillis(seatHold.getHoldTimestamp()));
+				putString(out, seatHold.getCustomerEmail());
+				putSeats(out, seatHold.getSeatIDsHeld());
+			}
+
+			List<Reservation> reservations = venue.getReservations();
+			out.writeInt(reservations.size());
+			for(Reservation reservation : reservations) {
+				out.writeLong(HelperMethods.toEpochMillis(reservation.getReservationTimestamp()));
+				putString(out, reservation.getReservationID());
+				putString(out, reservation.getCustomerEmail());
+				putSeats(out, reservation.getSeatIDsReserved());
+			}
+
+			out.flush();
+			new DataOutputStream(file).writeInt((int) crc.getValue());   // straight to the file, so it isn't part of its own CRC
+			channel.force(true);
+		}
+
+		Files.move(temporary, snapshotPath(lsn), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void putString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void putSeats(DataOutputStream out, SeatNumbers seatNumbers) throws IOException {
+		out.writeInt(seatNumbers.size());
+		for(int i = 0; i < seatNumbers.size(); i++) {
+			out.writeInt(seatNumbers.getInt(i));
+		}
+	}
+
+	private static String getString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static SeatNumbers getSeats(ByteBuffer in) {
+		int[] seatNumbers = new int[in.getInt()];
+		in.asIntBuffer().get(seatNumbers);
+		in.position(in.position() + 4 * seatNumbers.length);
+		return SeatNumbers.of(seatNumbers);
+	}
+
+	/**
+	 * LSNs of the snapshots in the directory, oldest first
+	 */
+	private List<Long> listSnapshots() throws IOException {
+		List<Long> snapshots = new ArrayList<Long>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+			for(Path file : files) {
+				String name = file.getFileName().toString();
+				snapshots.add(Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())));
+			}
+		}
+		snapshots.sort(null);
+		return snapshots;
+	}
+
+	private Path snapshotPath(long lsn) {
+		return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+	}
+}
@@ -0,0 +1,209 @@
+package ak.maven;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+* This class is a first come, first served waiting line for holds that can't be made when they're asked for, e.g. during a sellout
+* Instead of retrying findAndHoldSeats until seats come back, a customer gets a CompletableFuture that is completed with a SeatHold
+* as soon as enough seats are freed (by holds expiring or being removed, or reservations being cancelled) and everyone ahead of them
+* has been served
+* The line is kept strictly in order: a large party at the head isn't passed over by smaller ones behind it, so it can't be starved.
+* While anyone is waiting, only the seats the head of the line needs are kept for it: findAndHoldSeats (and a request joining the line)
+* still gets seats straight away if enough are free on top of those (see canHoldDirectly). So that the line can't be held
+* up forever, a request is turned away (its future completed with null) if it wants more seats than aren't reserved, since only
+* cancellations could ever free those, or once it has been at the head for Venue.getMaxWaitAtHeadOfWaitlist seconds without being served
+* A future is also completed with null if the request can never be served (more seats than a customer may hold), if the customer
+* already has Venue.getMaxWaitlistRequestsPerCustomer requests in line, or once the service is closed. A request whose future is cancelled (e.g. the customer gave up) is dropped when it reaches the head
+* Holds are granted on the thread that freed the seats, usually the background reaper. Anything slow done with the hold should be
+* done in an async stage, so as not to hold up the others
+*/
+public class Waitlist {
+
+	private final TicketServiceImplementor service;
+	private final ArrayDeque<Request> requests = new ArrayDeque<Request>();  // guarded by this
+	private final Map<String, Integer> noOfRequestsByCustomer = new HashMap<String, Integer>();  // by email, ignoring case, guarded by this
+	private volatile int noOfRequests;  // volatile, so isEmpty can be read without the lock on every hold
+	private volatile int noOfSeatsWantedAtHead;  // 0 if no one is waiting, volatile so canHoldDirectly can be read without the lock
+
+	/**
+	 * Constructor
+	 * @param service TicketServiceImplementor that holds seats for the line
+	 */
+	public Waitlist(TicketServiceImplementor service) {
+		this.service = service;
+	}
+
+	/**
+	 * Holds seats straight away if enough seats are free on top of those the head of the line needs, otherwise adds the request to
+	 * the end of the line
+	 * @param numSeats No. of seats to be held
+	 * @param customerEmail Email address of the customer
+	 * @return a CompletableFuture of the SeatHold object, or of null if the request can't be served from the seats that aren't reserved,
+	 * or the customer already has as many requests in line as they may
+	 */
+	public CompletableFuture<SeatHold> add(int numSeats, String customerEmail) {
+
+		if(numSeats < 1 || numSeats > getNoOfSeatsUnreserved() || numSeats > service.getVenue().getMaxSeatsPerCustomer()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		synchronized (this) {   // seats freed meanwhile are handed out by serve, which waits for the request to be in line
+			if(canHoldDirectly(numSeats)) {
+				SeatHold hold = service.holdSeatsForWaitlist(numSeats, customerEmail);
+				if(hold != null) {
+					return CompletableFuture.completedFuture(hold);
+				}
+			}
+			String customer = customerKey(customerEmail);
+			int noOfRequestsOfCustomer = noOfRequestsByCustomer.getOrDefault(customer, 0);
+			if(noOfRequestsOfCustomer >= service.getVenue().getMaxWaitlistRequestsPerCustomer()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			noOfRequestsByCustomer.put(customer, noOfRequestsOfCustomer + 1);
+			Request request = new Request(numSeats, customerEmail);
+			if(requests.isEmpty()) {
+				request.isAtHead = true;
+				request.atHeadSinceInMillis = service.getVenue().getHoldClock().millis();
+			}
+			requests.add(request);
+			lineChanged();
+			return request.future;
+		}
+	}
+
+	/**
+	 * Hands out freed seats to the requests at the head of the line, for as long as the head can be served, and turns away a head
+	 * that never can be, or has waited too long
+	 * Called by the venue whenever it frees seats, and by the service every tick
+	 */
+	public void serve() {
+
+		long now = service.getVenue().getHoldClock().millis();
+		long maxWaitInMillis = service.getVenue().getMaxWaitAtHeadOfWaitlist() * 1000L;
+		List<Request> served = new ArrayList<Request>();
+		synchronized (this) {
+			for(Request request; (request = requests.peek()) != null; ) {
+				if(!request.future.isDone()) {
+					if(!request.isAtHead) {
+						request.isAtHead = true;
+						request.atHeadSinceInMillis = now;
+					}
+					if(request.numSeats <= getNoOfSeatsUnreserved() && !service.isOverCustomerLimit(request.numSeats, request.customerEmail)) {
+						if(service.numSeatsAvailable() >= request.numSeats) {
+							request.hold = service.holdSeatsForWaitlist(request.numSeats, request.customerEmail);   // null if other holds got to the seats first
+						}
+						if(request.hold == null && now - request.atHeadSinceInMillis < maxWaitInMillis) {
+							break;
+						}
+					}
+					served.add(request);   // turned away (with no hold) if it can't be served from unreserved seats, would take the customer over the limit, or has waited too long
+				}
+				leave(requests.poll());
+			}
+			lineChanged();
+		}
+
+		for(Request request : served) {   // outside the lock, since the future's dependent stages run here
+			if(!request.future.complete(request.hold) && request.hold != null) {   // cancelled after the hold was made
+				service.getVenue().removeHold(request.hold);   // the venue serves the line again with the seats freed
+			}
+		}
+	}
+
+	/**
+	 * Completes every waiting request with null, e.g. when the service is closed
+	 */
+	public void clear() {
+		List<Request> waiting;
+		synchronized (this) {
+			waiting = new ArrayList<Request>(requests);
+			requests.clear();
+			noOfRequestsByCustomer.clear();
+			lineChanged();
+		}
+		for(Request request : waiting) {
+			request.future.complete(null);
+		}
+	}
+
+	/**
+	 * Tells whether a hold of the given no. of seats can be made now without taking seats the head of the line needs, e.g. by
+	 * findAndHoldSeats. Read without the lock, so it can be slightly behind the line
+	 * @param numSeats No. of seats to be held
+	 * @return true if no one is waiting, or enough seats are free for both the head of the line and the hold
+	 */
+	public boolean canHoldDirectly(int numSeats) {
+		int wanted = noOfSeatsWantedAtHead;
+		return wanted == 0 || service.numSeatsAvailable() - wanted >= numSeats;
+	}
+
+	/**
+	 * Publishes the size and the head of the line, for reads without the lock. Called with the lock held
+	 */
+	private void lineChanged() {
+		Request head = requests.peek();
+		noOfRequests = requests.size();
+		noOfSeatsWantedAtHead = head == null ? 0 : head.numSeats;
+	}
+
+	/**
+	 * Takes a request that has left the line off its customer's count. Called with the lock held
+	 */
+	private void leave(Request request) {
+		String customer = customerKey(request.customerEmail);
+		int remaining = noOfRequestsByCustomer.getOrDefault(customer, 1) - 1;
+		if(remaining > 0) {
+			noOfRequestsByCustomer.put(customer, remaining);
+		}
+		else {
+			noOfRequestsByCustomer.remove(customer);
+		}
+	}
+
+	private static String customerKey(String customerEmail) {
+		return customerEmail == null ? "" : customerEmail.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * No. of seats that aren't reserved, i.e. free or held. Only cancellations can ever free more
+	 */
+	private int getNoOfSeatsUnreserved() {
+		return service.getVenue().getNoOfSeats() - service.getVenue().getSeatStates().getNoOfReservedSeats();
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public boolean isEmpty() {
+		return noOfRequests == 0;
+	}
+
+	public int getNoOfRequests() {
+		return noOfRequests;
+	}
+
+	/**
+	 * A request waiting in line, and the hold made for it once it's served
+	 */
+	private static final class Request {
+
+		private final int numSeats;
+		private final String customerEmail;
+		private final CompletableFuture<SeatHold> future = new CompletableFuture<SeatHold>();
+		private SeatHold hold;
+		private boolean isAtHead;
+		private long atHeadSinceInMillis;  // on the venue's HoldClock, once the request is at the head
+
+		private Request(int numSeats, String customerEmail) {
+			this.numSeats = numSeats;
+			this.customerEmail = customerEmail;
+		}
+	}
+}
@@ -0,0 +1,571 @@
+package ak.maven;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+* This class is an append-only journal of hold, expire, release, reserve and cancel events (and of the key confirmation codes are issued with), so that a Venue can be rebuilt after a crash
+* Records are appended to an in-memory buffer, which takes a few microseconds and never touches the disk. A single flusher thread writes
+* whatever has been appended to the current segment file through a FileChannel and forces it to disk, then starts over with whatever was
+* appended in the meantime. So however many threads wait for their records to be durable (see awaitDurable), they share one fsync per batch
+* Every record is framed with its length and a CRC32, so a record torn by a crash is recognised, and cut off when the log is opened again
+* The log is split into segment files named after the position (log sequence number, LSN) of their first byte, so old segments can be deleted
+* The LSN of a record is the position in the log just past its end: once the log is durable up to that LSN, so is the record
+* A new segment file is only written to once the directory has been forced to disk, so a record can't be durable in a file that a crash
+* loses. Segments have to follow on from each other without gaps, which is checked when the log is opened
+*/
+public class WriteAheadLog implements Closeable {
+
+	private static final String SEGMENT_PREFIX = "wal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final int HEADER_BYTES = 8;  // length and CRC32 of the payload
+
+	private final Path directory;
+	private final long segmentSizeInBytes;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition appended = lock.newCondition();
+	private final Condition flushed = lock.newCondition();
+	private final CRC32 crc = new CRC32();
+	private final Thread flusher;
+
+	// guarded by lock
+	private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+	private ByteBuffer spareBuffer = ByteBuffer.allocate(1 << 16);
+	private long appendedLsn;
+	private long durableLsn;
+	private long noOfSyncs;
+	private IOException failure;
+	private boolean closed;
+	private boolean stopped;  // the flusher thread has finished
+
+	// only touched by the flusher thread once the log is open
+	private FileChannel segment;
+	private long segmentStartLsn;
+
+	/**
+	 * Constructor. Opens the log in the given directory (creating it if needed), cuts off a torn record at the end if there is one,
+	 * and starts the flusher thread. New records go after the records already in the log
+	 * @param directory Directory the segment files are kept in
+	 * @param segmentSizeInBytes Size after which a new segment file is started
+	 * @throws IOException if the log can't be opened
+	 */
+	public WriteAheadLog(Path directory, long segmentSizeInBytes) throws IOException {
+
+		if (segmentSizeInBytes < 1) throw new IllegalArgumentException();
+
+		this.directory = directory;
+		this.segmentSizeInBytes = segmentSizeInBytes;
+		Files.createDirectories(directory);
+
+		List<Long> segments = listSegments(directory);
+		for(int i = 0; i + 1 < segments.size(); i++) {
+			long end = segments.get(i) + Files.size(segmentPath(directory, segments.get(i)));
+			if(end != segments.get(i + 1)) throw new IOException("Log segment missing between LSN " + end + " and " + segments.get(i + 1) + " in " + directory);
+		}
+		if(segments.isEmpty()) {
+			openSegment(0);
+		}
+		else {
+			long lastStart = segments.get(segments.size() - 1);
+			long end = lastStart + validLength(segmentPath(directory, lastStart));
+			this.segment = FileChannel.open(segmentPath(directory, lastStart), StandardOpenOption.WRITE);
+			this.segment.truncate(end - lastStart);
+			this.segment.position(end - lastStart);
+			this.segmentStartLsn = lastStart;
+			this.appendedLsn = end;
+			this.durableLsn = end;
+		}
+
+		this.flusher = new Thread(this::flushLoop, "wal-flusher");
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	/**
+	 * Appends a hold being made
+	 * @param seatHold SeatHold object
+	 * @param timestampInMillis Time of the hold, in milliseconds since the epoch
+	 * @return LSN of the record
+	 * @throws UncheckedIOException if the log has failed, in which case nothing is appended
+	 */
+	public long appendHold(SeatHold seatHold, long timestampInMillis) {
+		byte[] email = bytesOf(seatHold.getCustomerEmail());
+		SeatNumbers seats = seatHold.getSeatIDsHeld();
+		lock.lock();
+		try {
+			int start = beginRecord(1 + 4 + 8 + 4 + email.length + 4 + 4 * seats.size(), LogRecord.Type.HOLD);
+			buffer.putInt(seatHold.getSeatHoldID()).putLong(timestampInMillis);
+			putBytes(email);
+			putSeats(seats);
+			return endRecord(start);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Appends a hold expiring
+	 * @param seatHoldID SeatHold ID
+	 * @return LSN of the record
+	 */
+	public long appendExpire(int seatHoldID) {
+		return appendHoldEvent(LogRecord.Type.EXPIRE, seatHoldID);
+	}
+
+	/**
+	 * Appends a hold being given back, with its seats, without being reserved or expiring
+	 * @param seatHoldID SeatHold ID
+	 * @return LSN of the record
+	 */
+	public long appendRelease(int seatHoldID) {
+		return appendHoldEvent(LogRecord.Type.RELEASE, seatHoldID);
+	}
+
+	/**
+	 * Appends a reservation being made
+	 * @param seatHoldID ID of the hold that was reserved, or 0 if the seats weren't held
+	 * @param reservation Reservation object
+	 * @param timestampInMillis Time of the reservation, in milliseconds since the epoch
+	 * @return LSN of the record
+	 */
+	public long appendReserve(int seatHoldID, Reservation reservation, long timestampInMillis) {
+		byte[] code = bytesOf(reservation.getReservationID());
+		byte[] email = bytesOf(reservation.getCustomerEmail());
+		SeatNumbers seats = reservation.getSeatIDsReserved();
+		lock.lock();
+		try {
+			int start = beginRecord(1 + 4 + 8 + 4 + code.length + 4 + email.length + 4 + 4 * seats.size(), LogRecord.Type.RESERVE);
+			buffer.putInt(seatHoldID).putLong(timestampInMillis);
+			putBytes(code);
+			putBytes(email);
+			putSeats(seats);
+			return endRecord(start);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Appends a reservation being cancelled, and its seats given back
+	 * @param confirmationCode Confirmation code of the reservation
+	 * @return LSN of the record
+	 */
+	public long appendCancel(String confirmationCode) {
+		byte[] code = bytesOf(confirmationCode);
+		lock.lock();
+		try {
+			int start = beginRecord(1 + 4 + 4 + code.length, LogRecord.Type.CANCEL);
+			buffer.putInt(0);
+			putBytes(code);
+			return endRecord(start);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Appends the key confirmation codes are issued with, so that codes issued after a restart don't repeat earlier ones
+	 * @param key key of the venue's ConfirmationCodeGenerator
+	 * @return LSN of the record
+	 */
+	public long appendCodeKey(long key) {
+		lock.lock();
+		try {
+			int start = beginRecord(1 + 4 + 8, LogRecord.Type.CODE_KEY);
+			buffer.putInt(0).putLong(key);
+			return endRecord(start);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until the log is on disk up to the given LSN. Records appended by other threads in the meantime are forced in the same sync
+	 * @param lsn LSN of the last record that needs to be durable
+	 * @throws UncheckedIOException if the log couldn't be written
+	 */
+	public void awaitDurable(long lsn) {
+		lock.lock();
+		try {
+			boolean interrupted = false;
+			while(durableLsn < lsn && failure == null && !stopped) {
+				try {
+					flushed.await();
+				}
+				catch (InterruptedException e) {
+					interrupted = true;  // a reservation must not be confirmed before it's durable, so keep waiting
+				}
+			}
+			if(interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if(durableLsn < lsn) {
+				throw new UncheckedIOException(failure != null ? failure : new IOException("The log was closed"));
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Reads back every record from the given LSN on, in the order they were appended, stopping at the end of what is on disk
+	 * @param fromLsn LSN to start from: records ending at or before it are skipped
+	 * @param consumer Consumer given each record
+	 * @throws IOException if the log can't be read
+	 */
+	public void replay(long fromLsn, Consumer<LogRecord> consumer) throws IOException {
+		long end = getDurableLsn();
+		for(long start : listSegments(directory)) {
+			if(start >= end) {
+				break;
+			}
+			try(FileChannel channel = FileChannel.open(segmentPath(directory, start), StandardOpenOption.READ)) {
+				long length = Math.min(channel.size(), end - start);
+				if(start + length <= fromLsn) {
+					continue;
+				}
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+				readRecords(mapped, start, record -> {
+					if(record.getLsn() > fromLsn) {
+						consumer.accept(record);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Deletes segment files that only hold records at or before the given LSN, e.g. once a snapshot covers them
+	 * The segment being written to is never deleted. Segments are deleted oldest first, each one forced out of the directory before
+	 * the next, so a crash can't leave a gap between the segments that are left
+	 * @param lsn LSN up to which records are no longer needed
+	 * @throws IOException if a segment can't be deleted
+	 */
+	public void deleteSegmentsBefore(long lsn) throws IOException {
+		List<Long> segments = listSegments(directory);
+		for(int i = 0; i + 1 < segments.size() && segments.get(i + 1) <= lsn; i++) {
+			Files.deleteIfExists(segmentPath(directory, segments.get(i)));
+			HelperMethods.syncDirectory(directory);
+		}
+	}
+
+	/**
+	 * Writes out and forces everything appended so far, then stops the flusher thread and closes the segment file
+	 * @throws IOException if the log couldn't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if(closed) {
+				return;
+			}
+			closed = true;
+			appended.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		try {
+			flusher.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		segment.close();
+		lock.lock();
+		try {
+			if(failure != null) {
+				throw failure;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes out whatever has been appended, one batch at a time, each batch with a single force to disk
+	 */
+	private void flushLoop() {
+		for(;;) {
+			ByteBuffer batch;
+			long batchEnd;
+			lock.lock();
+			try {
+				while(buffer.position() == 0 && !closed) {
+					appended.awaitUninterruptibly();
+				}
+				if(buffer.position() == 0) {
+					stopped = true;  // closed, and nothing left to write
+					flushed.signalAll();
+					return;
+				}
+				batch = buffer;
+				buffer = spareBuffer;
+				spareBuffer = batch;
+				batchEnd = appendedLsn;
+			}
+			finally {
+				lock.unlock();
+			}
+
+			IOException error = null;
+			try {
+				batch.flip();
+				while(batch.hasRemaining()) {
+					segment.write(batch);
+				}
+				segment.force(false);
+				if(segment.position() >= segmentSizeInBytes) {
+					segment.close();
+					openSegment(batchEnd);
+				}
+			}
+			catch (IOException e) {
+				error = e;
+			}
+			batch.clear();
+
+			lock.lock();
+			try {
+				if(error != null) {
+					failure = error;  // nothing after this point can be made durable
+					stopped = true;
+					flushed.signalAll();
+					return;
+				}
+				durableLsn = batchEnd;
+				noOfSyncs++;
+				flushed.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Creates the segment file new records go to from the given LSN on, and forces the directory, so the file is still there after
+	 * a crash by the time any record in it is counted as durable
+	 */
+	private void openSegment(long startLsn) throws IOException {
+		segment = FileChannel.open(segmentPath(directory, startLsn), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		segment.truncate(0);
+		segmentStartLsn = startLsn;
+		HelperMethods.syncDirectory(directory);
+	}
+
+	private long appendHoldEvent(LogRecord.Type type, int seatHoldID) {
+		lock.lock();
+		try {
+			int start = beginRecord(1 + 4, type);
+			buffer.putInt(seatHoldID);
+			return endRecord(start);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Makes room for a record in the buffer and writes its type, leaving space for the header. Called with the lock held
+	 * Once the flusher has failed, nothing more can be made durable, so records are turned away rather than piling up in the buffer
+	 * @return position of the record in the buffer
+	 * @throws UncheckedIOException if the log couldn't be written
+	 */
+	private int beginRecord(int payloadBytes, LogRecord.Type type) {
+		if(failure != null) throw new UncheckedIOException(failure);
+		if(closed) throw new IllegalStateException("The log is closed");
+		if(buffer.remaining() < HEADER_BYTES + payloadBytes) {
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + HEADER_BYTES + payloadBytes));
+			buffer.flip();
+			bigger.put(buffer);
+			buffer = bigger;
+		}
+		int start = buffer.position();
+		buffer.position(start + HEADER_BYTES);
+		buffer.put((byte) type.ordinal());
+		return start;
+	}
+
+	/**
+	 * Fills in the header of the record begun at the given position, and wakes up the flusher. Called with the lock held
+	 * @return LSN of the record
+	 */
+	private long endRecord(int start) {
+		int payloadStart = start + HEADER_BYTES;
+		int payloadBytes = buffer.position() - payloadStart;
+		crc.reset();
+		crc.update(buffer.array(), payloadStart, payloadBytes);
+		buffer.putInt(start, payloadBytes);
+		buffer.putInt(start + 4, (int) crc.getValue());
+		appendedLsn += HEADER_BYTES + payloadBytes;
+		appended.signal();
+		return appendedLsn;
+	}
+
+	private void putBytes(byte[] bytes) {
+		buffer.putInt(bytes.length).put(bytes);
+	}
+
+	private void putSeats(SeatNumbers seats) {
+		buffer.putInt(seats.size());
+		for(int i = 0; i < seats.size(); i++) {
+			buffer.putInt(seats.getInt(i));
+		}
+	}
+
+	private static byte[] bytesOf(String s) {
+		return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the records of a segment, stopping at the first one that is incomplete or doesn't match its CRC
+	 * @return No. of bytes taken up by complete records
+	 */
+	private static long readRecords(ByteBuffer segment, long startLsn, Consumer<LogRecord> consumer) {
+		CRC32 crc = new CRC32();
+		while(segment.remaining() >= HEADER_BYTES) {
+			int recordStart = segment.position();
+			int payloadBytes = segment.getInt();
+			int expectedCrc = segment.getInt();
+			if(payloadBytes < 1 || payloadBytes > segment.remaining()) {
+				segment.position(recordStart);
+				break;
+			}
+			ByteBuffer payload = segment.slice();
+			payload.limit(payloadBytes);
+			crc.reset();
+			crc.update(payload.duplicate());
+			if((int) crc.getValue() != expectedCrc) {
+				segment.position(recordStart);
+				break;
+			}
+			segment.position(segment.position() + payloadBytes);
+			if(consumer != null) {
+				consumer.accept(decode(payload, startLsn + segment.position()));
+			}
+		}
+		return segment.position();
+	}
+
+	private static LogRecord decode(ByteBuffer payload, long lsn) {
+		LogRecord.Type type = LogRecord.Type.values()[payload.get()];
+		int seatHoldID = payload.getInt();
+		switch(type) {
+		case HOLD: {
+			long timestamp = payload.getLong();
+			String email = getString(payload);
+			return new LogRecord(lsn, type, seatHoldID, timestamp, email, null, getSeats(payload));
+		}
+		case RESERVE: {
+			long timestamp = payload.getLong();
+			String code = getString(payload);
+			String email = getString(payload);
+			return new LogRecord(lsn, type, seatHoldID, timestamp, email, code, getSeats(payload));
+		}
+		case CANCEL:
+			return new LogRecord(lsn, type, seatHoldID, 0, null, getString(payload), new int[0]);
+		case CODE_KEY:
+			return new LogRecord(lsn, type, seatHoldID, 0, null, null, new int[0], payload.getLong());
+		default:
+			return new LogRecord(lsn, type, seatHoldID, 0, null, null, new int[0]);
+		}
+	}
+
+	private static String getString(ByteBuffer payload) {
+		byte[] bytes = new byte[payload.getInt()];
+		payload.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int[] getSeats(ByteBuffer payload) {
+		int[] seats = new int[payload.getInt()];
+		for(int i = 0; i < seats.length; i++) {
+			seats[i] = payload.getInt();
+		}
+		return seats;
+	}
+
+	private static long validLength(Path segmentPath) throws IOException {
+		try(FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+			return readRecords(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0, null);
+		}
+	}
+
+	private static Path segmentPath(Path directory, long startLsn) {
+		return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, startLsn, SEGMENT_SUFFIX));
+	}
+
+	private static List<Long> listSegments(Path directory) throws IOException {
+		List<Long> starts = new ArrayList<Long>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for(Path file : files) {
+				String name = file.getFileName().toString();
+				starts.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+			}
+		}
+		Collections.sort(starts);
+		return starts;
+	}
+
+	/**
+	 * Getter methods follow
+	 */
+
+	public long getDurableLsn() {
+		lock.lock();
+		try {
+			return durableLsn;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	public long getAppendedLsn() {
+		lock.lock();
+		try {
+			return appendedLsn;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * No. of times the log was forced to disk, e.g. to see how many records share a sync
+	 * @return count of syncs
+	 */
+	public long getNoOfSyncs() {
+		lock.lock();
+		try {
+			return noOfSyncs;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package ak.maven;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality of AdmissionController.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * The buckets are refilled by a ManualHoldClock, so the tests move time on instead of sleeping
+ */
+public class AdmissionControllerTest {
+
+	private ManualHoldClock clock;
+	private TicketServiceImplementor tsinstance;
+	private AdmissionController admission;
+
+	@Before
+	public void Initialize() {
+		clock = new ManualHoldClock(1000000);
+		tsinstance = new TicketServiceImplementor(new Venue(50));
+		admission = new AdmissionController(tsinstance, 10, 3, 100, clock);   // a token every 100ms, up to 3 at once
+	}
+
+	@After
+	public void tearDown() {
+		admission.close();
+		tsinstance.close();
+	}
+
+	@Test
+	public void findAndHoldSeats_WithinBurst_CallsAdmitted() {
+		for(int i = 0; i < 3; i++) {
+			assertNotNull(admission.findAndHoldSeats(1, "someemail"));
+		}
+		assertEquals(47, admission.numSeatsAvailable());
+	}
+
+	@Test
+	public void findAndHoldSeats_OverBurst_RejectedWithoutHolding() {
+		for(int i = 0; i < 3; i++) {
+			admission.findAndHoldSeats(1, "someemail");
+		}
+		try {
+			admission.findAndHoldSeats(1, "SomeEmail");   // same customer, ignoring case
+			fail();
+		}
+		catch (AdmissionController.RateLimitedException ex) {
+			assertEquals(admission.getRateLimitedMessage(), ex.getMessage());
+		}
+		assertEquals(47, tsinstance.numSeatsAvailable());
+		assertEquals(1, admission.getNoOfCallsRateLimited());
+	}
+
+	@Test
+	public void findAndHoldSeats_TokenRefilled_AdmittedAgain() {
+		for(int i = 0; i < 3; i++) {
+			admission.findAndHoldSeats(1, "someemail");
+		}
+		clock.advance(100);
+		assertNotNull(admission.findAndHoldSeats(1, "someemail"));
+	}
+
+	@Test
+	public void findAndHoldSeats_OneCustomerOverRate_OthersStillAdmitted() {
+		for(int i = 0; i < 3; i++) {
+			admission.findAndHoldSeats(1, "bot");
+		}
+		assertNotNull(admission.findAndHoldSeats(1, "someemail"));
+	}
+
+	@Test
+	public void call_ServiceBusy_RejectedAsOverloaded() {
+		AdmissionController one = new AdmissionController(tsinstance, 10, 3, 1, clock);
+		try {
+			one.call("a", () -> one.findAndHoldSeats(1, "b"));   // the second call comes in while the first is still in flight
+			fail();
+		}
+		catch (AdmissionController.OverloadedException ex) {
+			assertEquals(one.getOverloadedMessage(), ex.getMessage());
+		}
+		assertEquals(0, one.getNoOfCallsInFlight());
+		assertEquals(1, one.getNoOfCallsOverloaded());
+		assertEquals(50, tsinstance.numSeatsAvailable());
+		one.close();
+	}
+
+	@Test
+	public void call_CustomersIdle_BucketsDropped() {
+		admission.reserveSeats(123456, "a");
+		admission.reserveSeats(123456, "b");
+		assertEquals(2, admission.getNoOfBuckets());
+		
+		clock.advance(2000);
+		admission.reserveSeats(123456, "c");
+		assertEquals(3, admission.getNoOfBuckets());   // calls don't sweep, the background task does
+		
+		admission.sweep();
+		assertEquals(1, admission.getNoOfBuckets());
+	}
+
+	@Test
+	public void call_TooManyCustomersWithBuckets_NewCustomersTurnedAway() {
+		try(AdmissionController small = new AdmissionController(tsinstance, 10, 3, 100, clock, 2)) {
+			small.reserveSeats(123456, "a");
+			small.reserveSeats(123456, "b");
+			try {
+				small.reserveSeats(123456, "c");
+				fail();
+			}
+			catch (AdmissionController.RateLimitedException ex) {
+				assertEquals(small.getRateLimitedMessage(), ex.getMessage());
+			}
+			small.reserveSeats(123456, "a");   // customers with a bucket carry on as before
+			assertEquals(2, small.getNoOfBuckets());
+
+			clock.advance(2000);
+			small.sweep();
+			small.reserveSeats(123456, "c");
+			assertEquals(1, small.getNoOfBuckets());
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package ak.maven;
+
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of ConfirmationCodeGenerator.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class ConfirmationCodeGeneratorTest {
+	
+	@Test
+	public void nextCode_ManyCodesIssued_AllUniqueAndOfRequestedLength() {
+		ConfirmationCodeGenerator generator = new ConfirmationCodeGenerator(8);
+		Set<String> codes = new HashSet<String>();
+		for(int i = 0; i < 100000; i++) {
+			String code = generator.nextCode();
+			assertEquals(8, code.length());
+			assertTrue(code.chars().allMatch(c -> HelperMethods.ALPHANUMERIC_SYMBOLS.indexOf(c) >= 0));
+			codes.add(code);
+		}
+		assertEquals(100000, codes.size());
+	}
+	
+	@Test
+	public void nextCode_EveryCodeOfLengthIssued_NoDuplicates() {
+		ConfirmationCodeGenerator generator = new ConfirmationCodeGenerator(2, 42);
+		Set<String> codes = new HashSet<String>();
+		for(int i = 0; i < 62 * 62; i++) {
+			codes.add(generator.nextCode());
+		}
+		assertEquals(62 * 62, codes.size());
+	}
+	
+	@Test
+	public void decode_IssuedCode_ReturnsSequenceNumber() {
+		ConfirmationCodeGenerator generator = new ConfirmationCodeGenerator(8, 42);
+		for(int i = 0; i < 100; i++) {
+			assertEquals(i, generator.decode(generator.nextCode()));
+		}
+		assertEquals(100, generator.getNoOfCodesIssued());
+	}
+	
+	@Test
+	public void decode_InvalidCode_ReturnsMinusOne() {
+		ConfirmationCodeGenerator generator = new ConfirmationCodeGenerator(8, 42);
+		assertEquals(-1, generator.decode("short"));
+		assertEquals(-1, generator.decode("abc-defg"));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void constructor_InvalidLengthRequested_ThrowsException() {
+		new ConfirmationCodeGenerator(11);
+	}
+}
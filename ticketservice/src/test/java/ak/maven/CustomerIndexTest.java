@@ -0,0 +1,79 @@
+package ak.maven;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of CustomerIndex.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class CustomerIndexTest {
+	
+	private static SeatHold hold(int seatHoldID, String customerEmail, Integer... seatNumbers) {
+		return new SeatHold(seatHoldID, Arrays.asList(seatNumbers), customerEmail, LocalDateTime.now());
+	}
+	
+	@Test
+	public void addHold_TwoHolds_BothIndexedAndCounted() {
+		CustomerIndex index = new CustomerIndex();
+		SeatHold s1 = hold(111111, "someemail", 1, 2, 3);
+		SeatHold s2 = hold(222222, "SomeEmail", 4);
+		index.addHold(s1);
+		index.addHold(s2);
+		
+		assertEquals(4, index.getNoOfSeatsHeld("someemail"));
+		assertEquals(new HashSet<SeatHold>(Arrays.asList(s1, s2)), new HashSet<SeatHold>(index.getSeatHolds("SOMEEMAIL")));
+		assertEquals(0, index.getNoOfSeats("otheremail"));
+	}
+	
+	@Test
+	public void addReservation_FromIndexedHold_SeatsMovedFromHeldToReserved() {
+		CustomerIndex index = new CustomerIndex();
+		SeatHold s = hold(111111, "someemail", 1, 2, 3);
+		index.addHold(s);
+		Reservation r = new Reservation("ABCD1234", s.getSeatIDsHeld(), "someemail", LocalDateTime.now());
+		index.addReservation(r, 111111);
+		
+		assertEquals(0, index.getNoOfSeatsHeld("someemail"));
+		assertEquals(3, index.getNoOfSeatsReserved("someemail"));
+		assertTrue(index.getSeatHolds("someemail").isEmpty());
+		assertEquals(Arrays.asList(r), index.getReservations("someemail"));
+	}
+	
+	@Test
+	public void removeHold_LastHold_CustomerDropped() {
+		CustomerIndex index = new CustomerIndex();
+		SeatHold s = hold(111111, "someemail", 1, 2);
+		index.addHold(s);
+		index.removeHold(hold(111111, "someemail", 1, 2));   // not the hold indexed, so left alone
+		assertEquals(2, index.getNoOfSeats("someemail"));
+		
+		index.removeHold(s);
+		
+		assertEquals(0, index.getNoOfSeats("someemail"));
+		assertEquals(0, index.getNoOfCustomers());
+	}
+	
+	@Test
+	public void tryClaim_OverLimit_NothingCounted() {
+		CustomerIndex index = new CustomerIndex();
+		index.addHold(hold(111111, "someemail", 1, 2, 3, 4, 5, 6));
+		
+		assertTrue(index.tryClaim("someemail", 2, 8));
+		assertFalse(index.tryClaim("someemail", 1, 8));
+		assertEquals(8, index.getNoOfSeats("someemail"));
+		
+		index.unclaim("someemail", 2);
+		assertEquals(6, index.getNoOfSeats("someemail"));
+	}
+	
+	@Test
+	public void tryClaim_NewCustomerOverLimit_NotIndexed() {
+		CustomerIndex index = new CustomerIndex();
+		assertFalse(index.tryClaim("someemail", 9, 8));
+		assertEquals(0, index.getNoOfCustomers());
+	}
+}
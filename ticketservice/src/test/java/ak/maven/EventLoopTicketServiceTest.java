@@ -0,0 +1,130 @@
+package ak.maven;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * This class contains junit test cases to test functionality of EventLoopTicketService.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * @Before is used to initialize an instance of EventLoopTicketService.java with room for 4 calls before every test case, and using @After,
+ * it's closed and set to null after each test
+ */
+public class EventLoopTicketServiceTest {
+
+	private EventLoopTicketService asyncinstance;
+
+	@Before
+	public void Initialize() {
+		asyncinstance = new EventLoopTicketService(new Venue(50), 4, 0);
+	}
+
+	@After
+	public void tearDown() {
+		asyncinstance.close();
+		asyncinstance = null;
+	}
+
+	@Test
+	public void reserveSeats_HoldMadeThroughLoop_ReservationSuccessful() {
+		String code = asyncinstance.findAndHoldSeats(5, "someemail")
+				.thenCompose(s -> asyncinstance.reserveSeats(s.getSeatHoldID(), "someemail")).join();
+
+		assertEquals(45, (int) asyncinstance.numSeatsAvailable().join());
+		assertEquals(asyncinstance.getService().getVenue().getReservations().get(0).getReservationID(), code);
+	}
+
+	@Test
+	public void findAndHoldSeats_ManyThreads_NoSeatHeldTwice() throws InterruptedException {
+		EventLoopTicketService roomy = new EventLoopTicketService(new Venue(200), 1024, 1000);
+		List<CompletableFuture<SeatHold>> holds = Collections.synchronizedList(new ArrayList<CompletableFuture<SeatHold>>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for(int i = 0; i < 50; i++) {
+					holds.add(roomy.findAndHoldSeats(1, "someemail"));
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		Set<Integer> seatsHeld = new HashSet<Integer>();
+		int noOfHolds = 0;
+		for(CompletableFuture<SeatHold> hold : holds) {
+			SeatHold s = hold.join();
+			if(s != null) {
+				noOfHolds++;
+				seatsHeld.addAll(s.getSeatIDsHeld());
+			}
+		}
+		roomy.close();
+
+		assertEquals(200, noOfHolds);
+		assertEquals(200, seatsHeld.size());
+	}
+
+	@Test
+	public void findAndHoldSeats_RingBufferFull_CallRejected() throws InterruptedException {
+		asyncinstance.close();
+		asyncinstance = new EventLoopTicketService(new Venue(100000), 4, 0);   // plenty of seats, since holding up the loop can take many calls
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		AtomicBoolean onLoop = new AtomicBoolean();
+		while(!onLoop.get()) {   // a stage added before the call completes runs on the loop, and holds it up
+			asyncinstance.findAndHoldSeats(1, "someemail").thenRun(() -> {
+				if(Thread.currentThread().getName().equals("ticket-event-loop") && onLoop.compareAndSet(false, true)) {
+					blocked.countDown();
+					try {
+						release.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		blocked.await();
+		long rejectedBefore = asyncinstance.getNoOfCallsRejected();   // the calls made while getting the loop held up may have filled it already
+
+		List<CompletableFuture<SeatHold>> accepted = new ArrayList<CompletableFuture<SeatHold>>();
+		for(int i = asyncinstance.getNoOfCallsWaiting(); i < asyncinstance.getCapacity(); i++) {
+			accepted.add(asyncinstance.findAndHoldSeats(1, "someemail"));
+		}
+		CompletableFuture<SeatHold> rejected = asyncinstance.findAndHoldSeats(1, "someemail");
+		release.countDown();
+
+		try {
+			rejected.join();
+			fail();
+		}
+		catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+		for(CompletableFuture<SeatHold> hold : accepted) {
+			assertNotNull(hold.join());
+		}
+		assertEquals(rejectedBefore + 1, asyncinstance.getNoOfCallsRejected());
+	}
+
+	@Test
+	public void close_CallsWaiting_RunBeforeLoopStops() {
+		CompletableFuture<SeatHold> hold = asyncinstance.findAndHoldSeats(3, "someemail");
+		asyncinstance.close();
+
+		assertTrue(hold.isDone());
+		assertNotNull(hold.join());
+		assertTrue(asyncinstance.findAndHoldSeats(3, "someemail").isCompletedExceptionally());
+	}
+}
@@ -0,0 +1,48 @@
+package ak.maven;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of ExpiredHoldTombstones.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * Time is passed in explicitly, so none of the tests need to wait for the window to pass
+ */
+public class ExpiredHoldTombstonesTest {
+	
+	@Test
+	public void contains_IDAddedWithinWindow_ReturnsTrue() {
+		ExpiredHoldTombstones tombstones = new ExpiredHoldTombstones(1000, 4, 100, 0);
+		tombstones.add(123456, 0);
+		tombstones.rotate(999);
+		assertTrue(tombstones.contains(123456));
+	}
+	
+	@Test
+	public void contains_WindowPassed_ReturnsFalse() {
+		ExpiredHoldTombstones tombstones = new ExpiredHoldTombstones(1000, 4, 100, 0);
+		tombstones.add(123456, 0);
+		tombstones.rotate(1500);
+		assertFalse(tombstones.contains(123456));
+		assertEquals(0, tombstones.size());
+	}
+	
+	@Test
+	public void add_SameIDTwice_RememberedOnce() {
+		ExpiredHoldTombstones tombstones = new ExpiredHoldTombstones(1000, 4, 100, 0);
+		tombstones.add(123456, 0);
+		tombstones.add(123456, 300);
+		assertEquals(1, tombstones.size());
+	}
+	
+	@Test
+	public void add_MoreIDsThanMax_SizeStaysBounded() {
+		ExpiredHoldTombstones tombstones = new ExpiredHoldTombstones(1000, 4, 100, 0);
+		for(int i = 0; i < 1000; i++) {
+			tombstones.add(i, 0);
+		}
+		assertTrue(tombstones.size() <= 100);
+		assertTrue(tombstones.contains(999));
+	}
+}
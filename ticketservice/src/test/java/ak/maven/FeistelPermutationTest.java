@@ -0,0 +1,52 @@
+package ak.maven;
+
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of FeistelPermutation.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class FeistelPermutationTest {
+	
+	@Test
+	public void permute_WholeDomain_EveryNumberComesUpOnce() {
+		FeistelPermutation permutation = new FeistelPermutation(1000, 42);
+		Set<Long> results = new HashSet<Long>();
+		for(long n = 0; n < 1000; n++) {
+			long p = permutation.permute(n);
+			assertTrue(p >= 0 && p < 1000);
+			results.add(p);
+		}
+		assertEquals(1000, results.size());
+	}
+	
+	@Test
+	public void inverse_PermutedNumber_ReturnsOriginal() {
+		FeistelPermutation permutation = new FeistelPermutation(218340105584896L, 7);  // 62^8
+		for(long n = 0; n < 1000; n++) {
+			long original = n * 218340105L;
+			assertEquals(original, permutation.inverse(permutation.permute(original)));
+		}
+	}
+	
+	@Test
+	public void permute_DifferentKeys_DifferentShuffles() {
+		FeistelPermutation p1 = new FeistelPermutation(900000, 1);
+		FeistelPermutation p2 = new FeistelPermutation(900000, 2);
+		int same = 0;
+		for(long n = 0; n < 100; n++) {
+			if(p1.permute(n) == p2.permute(n)) {
+				same++;
+			}
+		}
+		assertTrue(same < 5);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void permute_NumberOutsideDomain_ThrowsException() {
+		new FeistelPermutation(1000, 42).permute(1000);
+	}
+}
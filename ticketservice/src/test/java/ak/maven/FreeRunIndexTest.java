@@ -0,0 +1,84 @@
+package ak.maven;
+
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of FreeRunIndex.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class FreeRunIndexTest {
+	
+	@Test
+	public void findFirstRun_AllFree_ReturnsFirstPosition() {
+		FreeRunIndex index = new FreeRunIndex(50);
+		assertEquals(0, index.findFirstRun(50));
+		assertEquals(50, index.getLongestRun());
+	}
+	
+	@Test
+	public void findFirstRun_RunLongerThanSize_ReturnsMinusOne() {
+		assertEquals(-1, new FreeRunIndex(50).findFirstRun(51));
+	}
+	
+	@Test
+	public void findFirstRun_GapTooShort_SkipsToLaterRun() {
+		FreeRunIndex index = new FreeRunIndex(20);
+		index.set(2, false);
+		index.set(5, false);
+		assertEquals(6, index.findFirstRun(4));
+		assertEquals(0, index.findFirstRun(2));
+	}
+	
+	@Test
+	public void findFirstRun_RunStraddlesMiddle_ReturnsStartOfRun() {
+		FreeRunIndex index = new FreeRunIndex(16);
+		for(int i = 0; i < 16; i++) {
+			index.set(i, i >= 6 && i < 11);
+		}
+		assertEquals(6, index.findFirstRun(5));
+		assertEquals(-1, index.findFirstRun(6));
+	}
+	
+	@Test
+	public void set_PositionFreedAgain_RunsJoined() {
+		FreeRunIndex index = new FreeRunIndex(10);
+		index.set(4, false);
+		assertEquals(5, index.getLongestRun());
+		index.set(4, true);
+		assertEquals(10, index.getLongestRun());
+	}
+	
+	@Test
+	public void findFirstRun_RandomChanges_MatchesLinearScan() {
+		Random random = new Random(42);
+		boolean[] free = new boolean[100];
+		Arrays.fill(free, true);
+		FreeRunIndex index = new FreeRunIndex(100);
+		for(int step = 0; step < 2000; step++) {
+			int position = random.nextInt(100);
+			free[position] = random.nextBoolean();
+			index.set(position, free[position]);
+			int length = 1 + random.nextInt(8);
+			assertEquals(firstRun(free, length), index.findFirstRun(length));
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void set_PositionOutOfRange_ThrowsException() {
+		new FreeRunIndex(10).set(10, false);
+	}
+	
+	private int firstRun(boolean[] free, int length) {
+		int run = 0;
+		for(int i = 0; i < free.length; i++) {
+			run = free[i] ? run + 1 : 0;
+			if(run == length) {
+				return i - length + 1;
+			}
+		}
+		return -1;
+	}
+}
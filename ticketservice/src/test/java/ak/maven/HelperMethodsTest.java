@@ -1,6 +1,9 @@
 package ak.maven;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -65,4 +68,20 @@ public class HelperMethodsTest {
 		
 		assertEquals(0, map.entrySet().stream().filter(x -> x.getKey().length() != x.getValue()).count());				
 	}	
+	
+	@Test
+	public void reportingFailures_TaskFails_FailureHandedToThreadsHandler() {
+		List<Throwable> reported = new ArrayList<Throwable>();
+		Thread thread = Thread.currentThread();
+		Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+		thread.setUncaughtExceptionHandler((t, ex) -> reported.add(ex));
+		try {
+			HelperMethods.reportingFailures(() -> { throw new IOException("disk full"); }).run();   // doesn't throw, so later runs go ahead
+		}
+		finally {
+			thread.setUncaughtExceptionHandler(handler);
+		}
+		assertEquals(1, reported.size());
+		assertEquals("disk full", reported.get(0).getMessage());
+	}
 }
@@ -0,0 +1,36 @@
+package ak.maven;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality of HoldClock.java and ManualHoldClock.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class HoldClockTest {
+
+	@Test
+	public void millis_Monotonic_StartsNearWallClockAndNeverGoesBack() {
+		long first = HoldClock.MONOTONIC.millis();
+		assertTrue(Math.abs(first - System.currentTimeMillis()) < 60000);
+		for(int i = 0; i < 1000; i++) {
+			long next = HoldClock.MONOTONIC.millis();
+			assertTrue(next >= first);
+			first = next;
+		}
+	}
+
+	@Test
+	public void advance_ManualClock_OnlyMovesWhenTold() {
+		ManualHoldClock clock = new ManualHoldClock(1000);
+		assertEquals(1000, clock.millis());
+		assertEquals(46000, clock.advance(45000));
+		assertEquals(46000, clock.millis());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void advance_NegativeTime_ThrowsException() {
+		new ManualHoldClock(1000).advance(-1);
+	}
+}
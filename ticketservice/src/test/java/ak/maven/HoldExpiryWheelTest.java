@@ -0,0 +1,67 @@
+package ak.maven;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of HoldExpiryWheel.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * Time is passed to the wheel explicitly, so none of the tests need to wait for holds to expire
+ */
+public class HoldExpiryWheelTest {
+	
+	private SeatHold newHold(int seatHoldID) {
+		return new SeatHold(seatHoldID, new ArrayList<Integer>(Arrays.asList(1, 2)), "someemail", LocalDateTime.now());
+	}
+	
+	@Test
+	public void advance_DeadlineNotReached_NoHoldsDue() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 16, 0);
+		wheel.schedule(newHold(111111), 1000);
+		assertTrue(wheel.advance(900).isEmpty());
+		assertEquals(1, wheel.size());
+	}
+	
+	@Test
+	public void advance_DeadlinePassed_HoldDue() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 16, 0);
+		SeatHold s = newHold(111111);
+		wheel.schedule(s, 1000);
+		assertEquals(Arrays.asList(s), wheel.advance(1100));
+		assertEquals(0, wheel.size());
+	}
+	
+	@Test
+	public void advance_DeadlineMoreThanOneTurnAway_HoldNotDueUntilLaterTurn() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 4, 0);  // a turn of the wheel is 400 milliseconds
+		wheel.schedule(newHold(111111), 1000);
+		assertTrue(wheel.advance(300).isEmpty());
+		assertTrue(wheel.advance(700).isEmpty());
+		assertEquals(1, wheel.advance(1100).size());
+	}
+	
+	@Test
+	public void advance_TimeJumpsPastSeveralTurns_AllDueHoldsCollectedOnce() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 4, 0);
+		wheel.schedule(newHold(111111), 150);
+		wheel.schedule(newHold(222222), 550);
+		wheel.schedule(newHold(333333), 5000);
+		assertEquals(2, wheel.advance(2000).size());
+		assertEquals(1, wheel.size());
+	}
+	
+	@Test
+	public void schedule_DeadlineAlreadyPassed_HoldDueOnNextTick() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 16, 1000);
+		wheel.schedule(newHold(111111), 500);
+		assertEquals(1, wheel.advance(1100).size());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void constructor_InvalidTick_ThrowsException() {
+		new HoldExpiryWheel(0, 16, 0);
+	}
+}
@@ -0,0 +1,84 @@
+package ak.maven;
+
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of IntHashMap.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class IntHashMapTest {
+	
+	@Test
+	public void get_KeyMapped_ReturnsValue() {
+		IntHashMap<String> map = new IntHashMap<String>();
+		map.put(123456, "hold");
+		assertEquals("hold", map.get(123456));
+	}
+	
+	@Test
+	public void get_KeyNotMapped_ReturnsNull() {
+		IntHashMap<String> map = new IntHashMap<String>();
+		map.put(123456, "hold");
+		assertNull(map.get(654321));
+	}
+	
+	@Test
+	public void put_KeyAlreadyMapped_ValueReplaced() {
+		IntHashMap<String> map = new IntHashMap<String>();
+		map.put(123456, "first");
+		assertEquals("first", map.put(123456, "second"));
+		assertEquals("second", map.get(123456));
+		assertEquals(1, map.size());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void put_NullValue_ThrowsException() {
+		new IntHashMap<String>().put(1, null);
+	}
+	
+	@Test
+	public void put_ManyKeys_MapGrowsAndKeepsAllKeys() {
+		IntHashMap<Integer> map = new IntHashMap<Integer>();
+		for(int i = 0; i < 10000; i++) {
+			map.put(i * 7, i);
+		}
+		assertEquals(10000, map.size());
+		for(int i = 0; i < 10000; i++) {
+			assertEquals(Integer.valueOf(i), map.get(i * 7));
+		}
+	}
+	
+	@Test
+	public void remove_ManyKeysRemovedAtRandom_RemainingKeysStillFound() {
+		IntHashMap<Integer> map = new IntHashMap<Integer>();
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		Random random = new Random(42);
+		for(int i = 0; i < 20000; i++) {
+			int key = random.nextInt(5000);
+			if(random.nextBoolean()) {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+			else {
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for(Map.Entry<Integer, Integer> e : expected.entrySet()) {
+			assertEquals(e.getValue(), map.get(e.getKey()));
+		}
+	}
+	
+	@Test
+	public void clear_MapHadEntries_MapEmpty() {
+		IntHashMap<String> map = new IntHashMap<String>();
+		for(int i = 0; i < 100; i++) {
+			map.put(i, "hold");
+		}
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey(5));
+	}
+}
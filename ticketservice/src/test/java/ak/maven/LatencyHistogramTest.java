@@ -0,0 +1,69 @@
+package ak.maven;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of LatencyHistogram.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class LatencyHistogramTest {
+	
+	@Test
+	public void getValueAtPercentile_NothingRecorded_ReturnsZero() {
+		assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+	}
+	
+	@Test
+	public void getValueAtPercentile_SmallValues_ReturnedExactly() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 1; i <= 20; i++) {
+			histogram.record(i);
+		}
+		assertEquals(10, histogram.getValueAtPercentile(50));
+		assertEquals(20, histogram.getValueAtPercentile(100));
+	}
+	
+	@Test
+	public void getValueAtPercentile_LargeValues_WithinThreePercent() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 1; i <= 100000; i++) {
+			histogram.record(i * 1000L);
+		}
+		assertEquals(50000000, histogram.getValueAtPercentile(50), 50000000 * 0.03);
+		assertEquals(99900000, histogram.getValueAtPercentile(99.9), 99900000 * 0.03);
+		assertEquals(100000000, histogram.getMax());
+		assertEquals(100000, histogram.getCount());
+	}
+	
+	@Test
+	public void record_LargestLong_Recorded() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50));
+	}
+	
+	@Test
+	public void snapshotAndReset_ValuesRecorded_MovedToSnapshot() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(100);
+		histogram.record(200);
+		LatencyHistogram snapshot = histogram.snapshotAndReset();
+		assertEquals(2, snapshot.getCount());
+		assertEquals(200, snapshot.getMax());
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+	
+	@Test
+	public void add_OtherHistogram_CountsAndMaxCombined() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		LatencyHistogram other = new LatencyHistogram();
+		histogram.record(10);
+		other.record(5000);
+		histogram.add(other);
+		assertEquals(2, histogram.getCount());
+		assertEquals(5000, histogram.getMax());
+	}
+}
@@ -0,0 +1,61 @@
+package ak.maven;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * This class contains junit test cases to test functionality mainly of LoadGenerator.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class LoadGeneratorTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void run_CustomersAllReserve_EveryHoldReservedAndTimed() throws InterruptedException {
+		try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(new Venue(1000))) {
+			LoadGenerator generator = new LoadGenerator(tsinstance, 200, 20000, 1, 4, 1.0, 1, 4);
+			generator.run();
+			assertEquals(200, generator.getHoldLatencies().getCount());
+			assertEquals(generator.getNoOfHolds(), generator.getNoOfReservations());
+			assertEquals(generator.getNoOfReservations(), generator.getReserveLatencies().getCount());
+			assertEquals(200, generator.getNoOfHolds() + generator.getNoOfHoldsRefused());
+		}
+	}
+	
+	@Test
+	public void run_VenueTooSmall_ExtraHoldsRefused() throws InterruptedException {
+		try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(new Venue(10))) {
+			LoadGenerator generator = new LoadGenerator(tsinstance, 50, 20000, 2, 2, 0.0, 1, 2);
+			generator.run();
+			assertEquals(5, generator.getNoOfHolds());
+			assertEquals(45, generator.getNoOfHoldsRefused());
+			assertEquals(5, generator.getNoOfHoldsAbandoned());
+			assertEquals(0, tsinstance.numSeatsAvailable());
+		}
+	}
+	
+	@Test
+	public void run_CallsThrow_CountedAsFailedAndRunFinishes() throws Exception {
+		Venue venue = new Venue(100);
+		WriteAheadLog log = new WriteAheadLog(folder.getRoot().toPath(), 1 << 20);
+		venue.recover(log);
+		log.close();   // every hold has to be logged, so every call throws from here on
+		try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+			LoadGenerator generator = new LoadGenerator(tsinstance, 20, 20000, 1, 2, 1.0, 1, 2);
+			generator.run();
+			assertEquals(20, generator.getNoOfCallsFailed());
+			assertEquals(20, generator.getNoOfCustomersFinished());
+			assertEquals(0, generator.getNoOfHolds());
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void constructor_PartySizesReversed_ThrowsException() {
+		new LoadGenerator(null, 10, 100, 4, 2, 0.5, 10, 1);
+	}
+}
@@ -0,0 +1,101 @@
+package ak.maven;
+
+import java.util.*;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * This class contains junit test cases to test functionality mainly of LockFreeTicketService.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * @Before is used to initialize an instance of LockFreeTicketService.java before every test case, and using @After, it's closed and set to null after each test
+ */
+public class LockFreeTicketServiceTest {
+	
+	private LockFreeTicketService tsinstance;
+	
+	@Before
+	public void Initialize() {
+		tsinstance = new LockFreeTicketService(new Venue(50));
+	}
+	
+	@After
+    public void tearDown() {
+		tsinstance.close();
+		tsinstance = null;
+    }
+	
+	@Test
+	public void findAndHoldSeats_MultipleHoldsAdded_SeatIDsAsExpected() {
+		SeatHold s1 = tsinstance.findAndHoldSeats(5, "someemail");
+		SeatHold s2 = tsinstance.findAndHoldSeats(3, "someemail");
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5), s1.getSeatIDsHeld());
+		assertEquals(Arrays.asList(6, 7, 8), s2.getSeatIDsHeld());
+		assertEquals(42, tsinstance.numSeatsAvailable());
+	}
+	
+	@Test
+	public void findAndHoldSeats_MoreSeatsRequestedThanAvailable_ReturnsNull() {
+		assertNull(tsinstance.findAndHoldSeats(51, "someemail"));
+		assertEquals(50, tsinstance.numSeatsAvailable());
+	}
+	
+	@Test
+	public void reserveSeats_ValidHold_SeatsReservedAndHoldGone() {
+		SeatHold s = tsinstance.findAndHoldSeats(10, "someemail");
+		String result = tsinstance.reserveSeats(s.getSeatHoldID(), "someemail");
+		assertEquals(tsinstance.getVenue().getLengthOfReservationConfirmationCode(), result.length());
+		assertEquals(40, tsinstance.numSeatsAvailable());
+		assertFalse(tsinstance.isValidHoldID(s.getSeatHoldID()));
+		assertEquals(tsinstance.getVenue().getHoldNotFoundMessage(), tsinstance.reserveSeats(s.getSeatHoldID(), "someemail"));
+	}
+	
+	@Test
+	public void reserveSeats_InvalidHoldID_CorrectErrorMessage() {
+		assertEquals(tsinstance.getVenue().getHoldNotFoundMessage(), tsinstance.reserveSeats(101, "someemail"));
+	}
+	
+	@Test
+	public void findAndHoldSeats_ConcurrentHoldsOfMixedSizes_NoSeatHeldTwiceAndNoSeatLeaked() throws Exception {
+		LockFreeTicketService bigVenue = new LockFreeTicketService(new Venue(1000));
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<List<SeatHold>>> futures = new ArrayList<Future<List<SeatHold>>>();
+		
+		for(int t = 0; t < 8; t++) {
+			final int partySize = t + 1;
+			futures.add(pool.submit(() -> {
+				start.await();
+				List<SeatHold> holds = new ArrayList<SeatHold>();
+				for(int i = 0; i < 100; i++) {
+					SeatHold s = bigVenue.findAndHoldSeats(partySize, "someemail");
+					if(s != null) {
+						holds.add(s);
+					}
+				}
+				return holds;
+			}));
+		}
+		start.countDown();
+		
+		Set<Integer> seatsHeld = new HashSet<Integer>();
+		int noOfSeatsHeld = 0;
+		for(Future<List<SeatHold>> f : futures) {
+			for(SeatHold s : f.get(30, TimeUnit.SECONDS)) {
+				seatsHeld.addAll(s.getSeatIDsHeld());
+				noOfSeatsHeld += s.getSeatIDsHeld().size();
+			}
+		}
+		pool.shutdown();
+		
+		assertEquals(noOfSeatsHeld, seatsHeld.size());
+		assertEquals(1000 - noOfSeatsHeld, bigVenue.numSeatsAvailable());
+		for(int seatNumber = 1; seatNumber <= 1000; seatNumber++) {
+			assertEquals(!seatsHeld.contains(seatNumber), bigVenue.isSeatFree(seatNumber));  // seats of failed holds were rolled back
+		}
+		bigVenue.close();
+	}
+}
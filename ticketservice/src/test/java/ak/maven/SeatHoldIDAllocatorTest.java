@@ -0,0 +1,57 @@
+package ak.maven;
+
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of SeatHoldIDAllocator.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class SeatHoldIDAllocatorTest {
+	
+	@Test
+	public void nextID_EveryIDOfLengthHandedOut_NoDuplicatesAndAllOfRequiredLength() {
+		SeatHoldIDAllocator allocator = new SeatHoldIDAllocator(6);
+		BitSet seen = new BitSet(1000000);
+		for(int i = 0; i < 900000; i++) {
+			int id = allocator.nextID();
+			assertEquals(6, String.valueOf(id).length());
+			assertFalse(seen.get(id));
+			seen.set(id);
+		}
+	}
+	
+	@Test
+	public void nextID_AllIDsHandedOut_IDsComeRoundAgainInSameOrder() {
+		SeatHoldIDAllocator allocator = new SeatHoldIDAllocator(2, 42);
+		List<Integer> firstRound = new ArrayList<Integer>();
+		for(int i = 0; i < allocator.getNoOfIDs(); i++) {
+			firstRound.add(allocator.nextID());
+		}
+		for(int i = 0; i < allocator.getNoOfIDs(); i++) {
+			assertEquals(firstRound.get(i).intValue(), allocator.nextID());
+		}
+	}
+	
+	@Test
+	public void nextID_ConsecutiveIDs_NotSequential() {
+		SeatHoldIDAllocator allocator = new SeatHoldIDAllocator(6, 42);
+		int sequential = 0;
+		int previous = allocator.nextID();
+		for(int i = 0; i < 100; i++) {
+			int id = allocator.nextID();
+			if(id == previous + 1) {
+				sequential++;
+			}
+			previous = id;
+		}
+		assertTrue(sequential < 5);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void constructor_InvalidLengthRequested_ThrowsException() {
+		new SeatHoldIDAllocator(0);
+	}
+}
@@ -0,0 +1,55 @@
+package ak.maven;
+
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of SeatNumbers.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class SeatNumbersTest {
+
+	@Test
+	public void of_ConsecutiveSeats_OneRun() {
+		SeatNumbers seats = SeatNumbers.of(new int[] {21, 22, 23, 24});
+		assertEquals(1, seats.getNoOfRuns());
+		assertEquals(Arrays.asList(21, 22, 23, 24), seats);
+	}
+
+	@Test
+	public void getInt_SeveralRuns_SeatsInGivenOrder() {
+		SeatNumbers seats = SeatNumbers.of(Arrays.asList(5, 6, 7, 8, 1, 3, 4));
+		assertEquals(3, seats.getNoOfRuns());
+		assertEquals(7, seats.size());
+		int[] expected = {5, 6, 7, 8, 1, 3, 4};
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], seats.getInt(i));
+		}
+	}
+
+	@Test
+	public void of_EmptyList_NoSeats() {
+		SeatNumbers seats = SeatNumbers.of(new ArrayList<Integer>());
+		assertTrue(seats.isEmpty());
+		assertEquals(0, seats.getNoOfRuns());
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void getInt_IndexPastEnd_ThrowsException() {
+		SeatNumbers.of(new int[] {1, 2}).getInt(2);
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void add_AnySeat_ThrowsException() {
+		SeatNumbers.of(new int[] {1, 2}).add(3);
+	}
+
+	@Test
+	public void seatHold_ListGiven_SeatsKeptCompact() {
+		SeatHold s = new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(1, 2, 3)), "someemail", null);
+		assertEquals(1, s.getSeatIDsHeld().getNoOfRuns());
+		assertSame(s.getSeatIDsHeld(), new Reservation("ABCD1234", s.getSeatIDsHeld(), "someemail", null).getSeatIDsReserved());
+	}
+}
@@ -0,0 +1,164 @@
+package ak.maven;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * This class contains junit test cases to test functionality of TicketHttpServer.java, over loopback
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * @Before is used to start a server on a free port for a venue of 50 seats before every test case, and using @After, it's closed after each test
+ */
+public class TicketHttpServerTest {
+
+	private TicketServiceImplementor tsinstance;
+	private TicketHttpServer server;
+
+	@Before
+	public void Initialize() throws IOException {
+		tsinstance = new TicketServiceImplementor(new Venue(50));
+		server = new TicketHttpServer(tsinstance, new InetSocketAddress("127.0.0.1", 0));
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.close();
+		tsinstance.close();
+	}
+
+	@Test
+	public void getSeats_InitialSetup_AllSeatsAvailable() throws IOException {
+		assertEquals("200 {\"available\":50}", call("GET", "/seats", null));
+	}
+
+	@Test
+	public void postHold_ValidRequest_SeatsHeld() throws IOException {
+		String response = call("POST", "/holds", "seats=3&email=some%40email");
+		assertTrue(response, response.matches("200 \\{\"seatHoldId\":\\d+,\"seats\":\\[1,2,3\\],\"email\":\"some@email\"\\}"));
+		assertEquals(47, tsinstance.numSeatsAvailable());
+	}
+
+	@Test
+	public void postHold_TooManySeats_Conflict() throws IOException {
+		assertTrue(call("POST", "/holds?seats=51&email=someemail", null).startsWith("409 {\"error\":"));
+	}
+
+	@Test
+	public void postHold_SeatsMissing_BadRequest() throws IOException {
+		assertTrue(call("POST", "/holds", "email=someemail").startsWith("400 "));
+	}
+
+	@Test
+	public void postReservation_HoldMade_ConfirmationCodeReturned() throws IOException {
+		Matcher id = Pattern.compile("\"seatHoldId\":(\\d+)").matcher(call("POST", "/holds", "seats=2&email=someemail"));
+		assertTrue(id.find());
+
+		String response = call("POST", "/reservations", "holdId=" + id.group(1) + "&email=someemail");
+
+		assertEquals("200 {\"confirmationCode\":\"" + tsinstance.getVenue().getReservations().get(0).getReservationID() + "\"}", response);
+	}
+
+	@Test
+	public void postReservation_UnknownHold_NotFound() throws IOException {
+		assertTrue(call("POST", "/reservations", "holdId=123&email=someemail").startsWith("404 "));
+	}
+
+	@Test
+	public void deleteReservation_ReservationMade_SeatsAvailableAgain() throws IOException {
+		String code = tsinstance.reserveSeats(tsinstance.findAndHoldSeats(4, "someemail").getSeatHoldID(), "someemail");
+		assertEquals("200 {\"confirmationCode\":\"" + code + "\",\"seats\":[1,2,3,4],\"email\":\"someemail\"}", call("GET", "/reservations?code=" + code + "&email=someemail", null));
+
+		assertEquals("200 {\"cancelled\":\"" + code + "\"}", call("DELETE", "/reservations?code=" + code + "&email=someemail", null));
+
+		assertEquals(50, tsinstance.numSeatsAvailable());
+		assertTrue(call("GET", "/reservations?code=" + code + "&email=someemail", null).startsWith("404 "));
+		assertTrue(call("DELETE", "/reservations?code=" + code + "&email=someemail", null).startsWith("404 "));
+	}
+
+	@Test
+	public void deleteReservation_SomeoneElsesCode_NotFoundAndNotCancelled() throws IOException {
+		String code = tsinstance.reserveSeats(tsinstance.findAndHoldSeats(4, "someemail").getSeatHoldID(), "someemail");
+		assertTrue(call("GET", "/reservations?code=" + code + "&email=other", null).startsWith("404 "));
+		assertTrue(call("DELETE", "/reservations?code=" + code + "&email=other", null).startsWith("404 "));
+		assertTrue(call("DELETE", "/reservations?code=" + code, null).startsWith("400 "));
+
+		assertEquals(46, tsinstance.numSeatsAvailable());
+		assertTrue(tsinstance.findReservation(code).isPresent());
+	}
+
+	@Test
+	public void getHolds_WrongMethod_MethodNotAllowed() throws IOException {
+		assertTrue(call("GET", "/holds", null).startsWith("405 "));
+	}
+
+	/**
+	 * Makes a request to the server, and returns the status and body of the response, separated by a space
+	 */
+	@Test
+	public void postHold_CustomerOverRate_TooManyRequests() throws IOException {
+		try(AdmissionController admission = new AdmissionController(tsinstance, 1, 1, 100, new ManualHoldClock(0));
+				TicketHttpServer limited = new TicketHttpServer(tsinstance, admission, new InetSocketAddress("127.0.0.1", 0))) {
+			limited.start();
+			assertTrue(call(limited, "POST", "/holds", "seats=1&email=bot").startsWith("200 "));
+			assertEquals("429 {\"error\":\"" + admission.getRateLimitedMessage() + "\"}", call(limited, "POST", "/holds", "seats=1&email=bot"));
+			assertTrue(call(limited, "POST", "/holds", "seats=1&email=someemail").startsWith("200 "));
+		}
+	}
+
+	@Test
+	public void getSeats_ETagStillCurrent_NotModified() throws IOException {
+		HttpURLConnection first = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/seats").openConnection();
+		assertEquals(200, first.getResponseCode());
+		String etag = first.getHeaderField("ETag");
+		first.getInputStream().close();
+		
+		HttpURLConnection again = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/seats").openConnection();
+		again.setRequestProperty("If-None-Match", etag);
+		assertEquals(304, again.getResponseCode());
+		
+		call("POST", "/holds", "seats=3&email=someemail");
+		HttpURLConnection changed = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/seats").openConnection();
+		changed.setRequestProperty("If-None-Match", etag);
+		assertEquals(200, changed.getResponseCode());
+		assertNotEquals(etag, changed.getHeaderField("ETag"));
+		changed.getInputStream().close();
+	}
+
+	private String call(String method, String path, String form) throws IOException {
+		return call(server, method, path, form);
+	}
+
+	private String call(TicketHttpServer server, String method, String path, String form) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		if(form != null) {
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+			try(OutputStream out = connection.getOutputStream()) {
+				out.write(form.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		int status = connection.getResponseCode();
+		try(InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			for(int n; (n = in.read(buffer)) > 0; ) {
+				body.write(buffer, 0, n);
+			}
+			return status + " " + new String(body.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
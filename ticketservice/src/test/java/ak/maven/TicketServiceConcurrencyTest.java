@@ -0,0 +1,122 @@
+package ak.maven;
+
+import java.util.*;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * This class contains junit test cases to test TicketServiceImplementor.java when it's called from many threads at once
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * @Before is used to initialize an instance of TicketServiceImplementor.java (on a venue spanning several lock stripes) and a thread pool before every test case, and using @After, both are shut down
+ */
+public class TicketServiceConcurrencyTest {
+	
+	private static final int NO_OF_THREADS = 8;
+	
+	private TicketServiceImplementor tsinstance;
+	private ExecutorService pool;
+	
+	@Before
+	public void Initialize() {
+		tsinstance = new TicketServiceImplementor(new Venue(1000));
+		pool = Executors.newFixedThreadPool(NO_OF_THREADS);
+	}
+	
+	@After
+    public void tearDown() {
+		pool.shutdownNow();
+		tsinstance.close();
+		tsinstance = null;
+    }
+	
+	/**
+	 * Runs the task on every thread of the pool at the same time, and collects what each run returned
+	 */
+	private <T> List<T> runOnAllThreads(int runsPerThread, Callable<T> task) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<List<T>>> futures = new ArrayList<Future<List<T>>>();
+		for(int t = 0; t < NO_OF_THREADS; t++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				List<T> results = new ArrayList<T>();
+				for(int i = 0; i < runsPerThread; i++) {
+					results.add(task.call());
+				}
+				return results;
+			}));
+		}
+		start.countDown();
+		List<T> results = new ArrayList<T>();
+		for(Future<List<T>> f : futures) {
+			results.addAll(f.get(30, TimeUnit.SECONDS));
+		}
+		return results;
+	}
+	
+	@Test
+	public void findAndHoldSeats_ConcurrentHoldsUntilSoldOut_NoSeatHeldTwice() throws Exception {
+		List<SeatHold> holds = runOnAllThreads(50, () -> tsinstance.findAndHoldSeats(3, "someemail"));
+		
+		Set<Integer> seatsHeld = new HashSet<Integer>();
+		int noOfSeatsHeld = 0;
+		for(SeatHold s : holds) {
+			if(s != null) {
+				seatsHeld.addAll(s.getSeatIDsHeld());
+				noOfSeatsHeld += s.getSeatIDsHeld().size();
+			}
+		}
+		assertEquals(999, noOfSeatsHeld);  // 333 holds of 3 seats fit in the venue
+		assertEquals(noOfSeatsHeld, seatsHeld.size());
+		assertEquals(1, tsinstance.numSeatsAvailable());
+	}
+	
+	@Test
+	public void findAndHoldSeats_ConcurrentHoldsBySameCustomer_LimitNeverExceeded() throws Exception {
+		tsinstance.getVenue().setMaxSeatsPerCustomer(8);
+		List<SeatHold> holds = runOnAllThreads(20, () -> tsinstance.findAndHoldSeats(3, "someemail"));
+		
+		int noOfSeatsHeld = 0;
+		for(SeatHold s : holds) {
+			if(s != null) {
+				noOfSeatsHeld += s.getSeatIDsHeld().size();
+			}
+		}
+		assertEquals(6, noOfSeatsHeld);  // a third hold of 3 seats would take the customer to 9
+		assertEquals(6, tsinstance.getVenue().getCustomers().getNoOfSeats("someemail"));
+	}
+	
+	@Test
+	public void reserveSeats_SameHoldReservedConcurrently_OnlyOneReservationMade() throws Exception {
+		SeatHold s = tsinstance.findAndHoldSeats(4, "someemail");
+		List<String> results = runOnAllThreads(5, () -> tsinstance.reserveSeats(s.getSeatHoldID(), "someemail"));
+		
+		long confirmations = results.stream().filter(r -> !r.equals(tsinstance.getVenue().getHoldNotFoundMessage())).count();
+		assertEquals(1, confirmations);
+		assertEquals(1, tsinstance.getVenue().getReservations().size());
+		assertEquals(996, tsinstance.numSeatsAvailable());
+	}
+	
+	@Test
+	public void numSeatsAvailable_ConcurrentHoldsAndReservations_CountMatchesSeatStates() throws Exception {
+		runOnAllThreads(20, () -> {
+			SeatHold s = tsinstance.findAndHoldSeats(2, "someemail");
+			if(s != null && s.getSeatHoldID() % 2 == 0) {
+				tsinstance.reserveSeats(s.getSeatHoldID(), "someemail");
+			}
+			return s;
+		});
+		
+		int free = 0;
+		for(int seatNumber = 1; seatNumber <= 1000; seatNumber++) {
+			if(tsinstance.getVenue().getSeatStates().isFree(seatNumber)) {
+				free++;
+			}
+		}
+		assertEquals(free, tsinstance.numSeatsAvailable());
+		assertEquals(1000 - NO_OF_THREADS * 20 * 2, free);
+	}
+}
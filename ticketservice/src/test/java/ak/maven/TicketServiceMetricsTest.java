@@ -0,0 +1,94 @@
+package ak.maven;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.*;
+import static org.junit.Assert.*;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * This class contains junit test cases to test functionality mainly of TicketServiceMetrics.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * @Before is used to initialize an instance of TicketServiceImplementor.java before ever test case, and using @After, it's closed and set to null after each test
+ */
+public class TicketServiceMetricsTest {
+	
+	private TicketServiceImplementor tsinstance;
+	
+	@Before
+	public void Initialize() {
+		tsinstance = new TicketServiceImplementor(new Venue(50));
+	}
+	
+	@After
+	public void tearDown() {
+		tsinstance.close();
+		tsinstance = null;
+	}
+	
+	@Test
+	public void recordFindAndHoldSeats_HoldsMadeAndRefused_Counted() {
+		tsinstance.findAndHoldSeats(5, "someemail");
+		tsinstance.findAndHoldSeats(100, "someemail");
+		assertEquals(1, tsinstance.getMetrics().getHoldsMade());
+		assertEquals(1, tsinstance.getMetrics().getHoldsRefused());
+	}
+	
+	@Test
+	public void recordReserveSeats_ReservationMadeAndRefused_Counted() {
+		SeatHold s = tsinstance.findAndHoldSeats(5, "someemail");
+		tsinstance.reserveSeats(s.getSeatHoldID(), "someemail");
+		tsinstance.reserveSeats(1, "someemail");
+		assertEquals(1, tsinstance.getMetrics().getReservationsMade());
+		assertEquals(1, tsinstance.getMetrics().getReservationsRefused());
+		assertEquals(1, tsinstance.getMetrics().getReservations());
+	}
+	
+	@Test
+	public void recordHoldsExpired_HoldExpiredAtReservation_Counted() {
+		tsinstance.getVenue().registerHold(new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(1, 2)), "someemail", LocalDateTime.now().minusSeconds(50)));
+		tsinstance.reserveSeats(123456, "someemail");
+		assertEquals(1, tsinstance.getMetrics().getHoldsExpired());
+	}
+	
+	@Test
+	public void takeSnapshot_CallsMade_LatenciesInSnapshotThenEmptied() {
+		tsinstance.findAndHoldSeats(5, "someemail");
+		tsinstance.findAndHoldSeats(5, "someemail");
+		MetricsSnapshot first = tsinstance.getMetrics().takeSnapshot();
+		MetricsSnapshot second = tsinstance.getMetrics().takeSnapshot();
+		assertEquals(2, first.getFindAndHoldSeatsLatencies().getCount());
+		assertEquals(0, second.getFindAndHoldSeatsLatencies().getCount());
+		assertEquals(2, second.getHoldsMade());
+		assertEquals(2, second.getActiveSeatHolds());
+		assertEquals(40, second.getSeatsAvailable());
+	}
+	
+	@Test
+	public void startSnapshots_ListenerGiven_SnapshotsDelivered() throws InterruptedException {
+		List<MetricsSnapshot> snapshots = Collections.synchronizedList(new ArrayList<MetricsSnapshot>());
+		tsinstance.getMetrics().startSnapshots(10, snapshots::add);
+		Thread.sleep(200);
+		tsinstance.getMetrics().stopSnapshots();
+		assertTrue(snapshots.size() > 1);
+	}
+	
+	@Test
+	public void registerMBean_NameGiven_AttributesReadableOverJMX() throws JMException {
+		tsinstance.findAndHoldSeats(5, "someemail");
+		tsinstance.getMetrics().registerMBean("metricsTest");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("ak.maven:type=TicketService,name=" + ObjectName.quote("metricsTest"));
+		assertEquals(1L, server.getAttribute(name, "HoldsMade"));
+		assertEquals(45, server.getAttribute(name, "SeatsAvailable"));
+		tsinstance.close();
+		assertFalse(server.isRegistered(name));
+	}
+}
@@ -0,0 +1,137 @@
+package ak.maven;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * This class contains junit test cases to test functionality of TicketServiceRegistry.java
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ * @Before is used to initialize a registry of 2 shards before every test case, and using @After, it's closed and set to null after each test
+ */
+public class TicketServiceRegistryTest {
+
+	private TicketServiceRegistry registry;
+
+	@Before
+	public void Initialize() {
+		registry = new TicketServiceRegistry(2);
+	}
+
+	@After
+	public void tearDown() {
+		registry.close();
+		registry = null;
+	}
+
+	@Test
+	public void findAndHoldSeats_TwoEvents_SeatsHeldInRightEventOnly() {
+		registry.register("concert", new Venue(50));
+		registry.register("match", new Venue(100));
+
+		SeatHold s = registry.findAndHoldSeats("concert", 10, "someemail").join();
+
+		assertNotNull(s);
+		assertEquals(40, registry.numSeatsAvailable("concert"));
+		assertEquals(100, registry.numSeatsAvailable("match"));
+	}
+
+	@Test
+	public void reserveSeats_HoldOnSameEvent_ReservationSuccessful() {
+		registry.register("concert", new Venue(50));
+
+		String code = registry.findAndHoldSeats("concert", 5, "someemail")
+				.thenCompose(s -> registry.reserveSeats("concert", s.getSeatHoldID(), "someemail")).join();
+
+		assertEquals(1, registry.getServiceImplementor("concert").getVenue().getNoOfReservations());
+		assertEquals(registry.getServiceImplementor("concert").getVenue().getReservations().get(0).getReservationID(), code);
+	}
+
+	@Test
+	public void getService_HoldAndReserve_MadeOnEventsShard() {
+		registry.register("concert", new Venue(50));
+		AsyncTicketService service = registry.getService("concert");
+
+		SeatHold s = service.findAndHoldSeats(5, "someemail").join();
+		String code = service.reserveSeats(s.getSeatHoldID(), "someemail").join();
+
+		assertEquals(45, (int) service.numSeatsAvailable().join());
+		assertEquals(registry.getServiceImplementor("concert").getVenue().getReservations().get(0).getReservationID(), code);
+	}
+
+	@Test
+	public void register_SeveralEvents_SpreadAcrossShards() {
+		for(int i = 0; i < 4; i++) {
+			registry.register("event" + i, new Venue(50));
+		}
+		int onFirstShard = 0;
+		for(String eventID : registry.getEventIDs()) {
+			if(registry.getShard(eventID) == 0) {
+				onFirstShard++;
+			}
+		}
+		assertEquals(2, onFirstShard);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void register_IDAlreadyRegistered_IllegalArgumentException() {
+		registry.register("concert", new Venue(50));
+		registry.register("concert", new Venue(50));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void findAndHoldSeats_UnknownEvent_IllegalArgumentException() {
+		registry.findAndHoldSeats("concert", 5, "someemail");
+	}
+
+	@Test
+	public void submit_ManyCallsForOneEvent_RunOnOneThreadInOrder() {
+		registry.register("concert", new Venue(50));
+		List<CompletableFuture<String>> threads = new ArrayList<CompletableFuture<String>>();
+		List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		for(int i = 0; i < 20; i++) {
+			int call = i;
+			threads.add(registry.submit("concert", service -> {
+				order.add(call);
+				return Thread.currentThread().getName();
+			}));
+		}
+		Set<String> names = new HashSet<String>();
+		for(CompletableFuture<String> thread : threads) {
+			names.add(thread.join());
+		}
+		assertEquals(1, names.size());
+		for(int i = 0; i < 20; i++) {
+			assertEquals(i, (int) order.get(i));
+		}
+	}
+
+	@Test
+	public void register_HoldFallsDue_ExpiredOnEventsShard() throws InterruptedException {
+		ManualHoldClock clock = new ManualHoldClock(1000000);
+		registry.register("concert", new Venue(50, 10, clock));
+		SeatHold s = registry.findAndHoldSeats("concert", 10, "someemail").join();
+		String shardThread = registry.submit("concert", service -> Thread.currentThread().getName()).join();
+
+		clock.advance(registry.getServiceImplementor("concert").getVenue().getHoldTimeout() * 1000L + 20);
+		for(int i = 0; i < 200 && registry.numSeatsAvailable("concert") < 50; i++) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(50, registry.numSeatsAvailable("concert"));
+		assertTrue(registry.getServiceImplementor("concert").isHoldExpired(s.getSeatHoldID()));
+		assertEquals("ticket-shard-" + registry.getShard("concert"), shardThread);
+	}
+
+	@Test
+	public void unregister_EventRegistered_EventRemoved() {
+		registry.register("concert", new Venue(50));
+		registry.unregister("concert").join();
+		assertFalse(registry.getEventIDs().contains("concert"));
+		assertNull(registry.unregister("concert"));
+	}
+}
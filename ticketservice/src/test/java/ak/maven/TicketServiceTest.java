@@ -11,7 +11,7 @@ import org.junit.Before;
 /**
  * This class contains junit test cases to test functionality mainly of TicketServiceImplementor.java
  * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
- * @Before is used to initialize an instance of TicketServiceImplementor.java before ever test case, and using @After, it's set to null after each test
+ * @Before is used to initialize an instance of TicketServiceImplementor.java before ever test case, and using @After, it's closed and set to null after each test
  */
 public class TicketServiceTest {
 	
@@ -24,6 +24,7 @@ public class TicketServiceTest {
 	
 	@After
     public void tearDown() {
+		tsinstance.close();
 		tsinstance = null;
     }
 	
@@ -114,6 +115,24 @@ public class TicketServiceTest {
 		assertEquals(a, s2.getSeatIDsHeld());	
 	}
 	
+	@Test
+	public void findAndHoldSeats_GapTooSmallForParty_SeatsTogetherFurtherBack() {
+		tsinstance.getVenue().addHold(new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(3, 8)), "someemail", LocalDateTime.now()));
+		SeatHold s = tsinstance.findAndHoldSeats(4, "someemail");
+		assertEquals(Arrays.asList(4, 5, 6, 7), s.getSeatIDsHeld());
+	}
+	
+	@Test
+	public void findAndHoldSeats_NoGapBigEnough_ScatteredSeatsHeld() {
+		ArrayList<Integer> everyOtherSeat = new ArrayList<Integer>();
+		for(int i = 2; i <= 50; i += 2) {
+			everyOtherSeat.add(i);
+		}
+		tsinstance.getVenue().addHold(new SeatHold(123456, everyOtherSeat, "someemail", LocalDateTime.now()));
+		SeatHold s = tsinstance.findAndHoldSeats(3, "someemail");
+		assertEquals(Arrays.asList(1, 3, 5), s.getSeatIDsHeld());
+	}
+	
 	@Test
 	public void findAndHoldSeats_MultipleHoldsAdded_SeatNumbersWorsenWithHolds() {
 		SeatHold s1 = tsinstance.findAndHoldSeats(5, "someemail");
@@ -189,4 +208,157 @@ public class TicketServiceTest {
 		tsinstance.checkAndRemoveExpiredHolds();
 		assertEquals(1, tsinstance.getVenue().getExpiredSeatHoldIDs().size());
 	}
+	
+	@Test
+	public void checkAndRemoveExpiredHolds_HoldFallsDueInBackground_SeatsFreedWithoutRequestCalls() throws InterruptedException {
+		TicketServiceImplementor fastTicking = new TicketServiceImplementor(new Venue(50, 20));
+		LocalDateTime almostExpired = LocalDateTime.now().minusSeconds(fastTicking.getVenue().getHoldTimeout()).plusNanos(100_000_000);
+		fastTicking.getVenue().addHold(new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(1, 2, 3)), "someemail", almostExpired));
+		assertEquals(47, fastTicking.numSeatsAvailable());
+		Thread.sleep(500);
+		assertEquals(50, fastTicking.numSeatsAvailable());
+		assertTrue(fastTicking.isHoldExpired(123456));
+		fastTicking.close();
+	}
+	
+	@Test
+	public void checkAndRemoveExpiredHolds_ClockMovedPastTimeout_HoldExpiredWithoutWaiting() {
+		ManualHoldClock clock = new ManualHoldClock(1000000);
+		TicketServiceImplementor manual = new TicketServiceImplementor(new Venue(50, 250, clock), false);
+		SeatHold s = manual.findAndHoldSeats(3, "someemail");
+		
+		clock.advance(manual.getVenue().getHoldTimeout() * 1000L);
+		manual.checkAndRemoveExpiredHolds();
+		assertEquals(47, manual.numSeatsAvailable());
+		
+		clock.advance(manual.getVenue().getHoldExpiryTickInMillis() + 1);
+		manual.checkAndRemoveExpiredHolds();
+		assertEquals(50, manual.numSeatsAvailable());
+		assertEquals(manual.getVenue().getHoldExpiredMessage(), manual.reserveSeats(s.getSeatHoldID(), "someemail"));
+		manual.close();
+	}
+	
+	@Test
+	public void reserveSeats_ClockMovedPastDeadlineBeforeReaperRuns_HoldExpired() {
+		ManualHoldClock clock = new ManualHoldClock(1000000);
+		TicketServiceImplementor manual = new TicketServiceImplementor(new Venue(50, 250, clock), false);
+		SeatHold s = manual.findAndHoldSeats(3, "someemail");
+		
+		clock.advance(manual.getVenue().getHoldTimeout() * 1000L + 1);
+		
+		assertEquals(manual.getVenue().getHoldExpiredMessage(), manual.reserveSeats(s.getSeatHoldID(), "someemail"));
+		assertEquals(50, manual.numSeatsAvailable());
+		manual.close();
+	}
+	
+	@Test
+	public void findAndHoldSeats_BatchOfRequests_SameSeatsAsOneByOne() {
+		List<HoldRequest> requests = Arrays.asList(new HoldRequest(10, "a"), new HoldRequest(30, "b"), new HoldRequest(20, "c"), new HoldRequest(5, "d"));
+		List<SeatHold> holds = tsinstance.findAndHoldSeats(requests);
+		
+		try(TicketServiceImplementor oneByOne = new TicketServiceImplementor(new Venue(50))) {
+			assertEquals(requests.size(), holds.size());
+			for(int i = 0; i < requests.size(); i++) {
+				SeatHold expected = oneByOne.findAndHoldSeats(requests.get(i).getNumSeats(), requests.get(i).getCustomerEmail());
+				if(expected == null) {
+					assertNull(holds.get(i));
+				}
+				else {
+					assertEquals(expected.getSeatIDsHeld(), holds.get(i).getSeatIDsHeld());
+				}
+			}
+		}
+		assertNull(holds.get(2));
+		assertEquals(5, tsinstance.numSeatsAvailable());
+	}
+	
+	@Test
+	public void findAndHoldSeats_BatchOfRequests_HoldsShareOneDeadline() {
+		List<HoldRequest> requests = new ArrayList<HoldRequest>();
+		for(int i = 0; i < 50; i++) {
+			requests.add(new HoldRequest(1, "someemail" + i));
+		}
+		List<SeatHold> holds = tsinstance.findAndHoldSeats(requests);
+		for(SeatHold hold : holds) {
+			assertEquals(holds.get(0).getHoldDeadlineInMillis(), hold.getHoldDeadlineInMillis());
+		}
+	}
+	
+	@Test
+	public void reserveSeats_BatchOfRequests_ResultForEveryRequestInOrder() {
+		SeatHold first = tsinstance.findAndHoldSeats(5, "someemail");
+		SeatHold second = tsinstance.findAndHoldSeats(5, "someemail");
+		
+		List<String> results = tsinstance.reserveSeats(Arrays.asList(new ReserveRequest(first.getSeatHoldID(), "someemail"),
+				new ReserveRequest(111, "someemail"), new ReserveRequest(second.getSeatHoldID(), "someemail"), new ReserveRequest(first.getSeatHoldID(), "someemail")));
+		
+		assertEquals(4, results.size());
+		assertEquals(tsinstance.getVenue().getReservations().get(0).getReservationID(), results.get(0));
+		assertEquals(tsinstance.getVenue().getHoldNotFoundMessage(), results.get(1));
+		assertEquals(tsinstance.getVenue().getReservations().get(1).getReservationID(), results.get(2));
+		assertEquals(tsinstance.getVenue().getHoldNotFoundMessage(), results.get(3));
+		assertEquals(2, tsinstance.getMetrics().takeSnapshot().getReservationsMade());
+	}
+	
+	@Test
+	public void findAndHoldSeats_CustomerAtLimit_HoldRefused() {
+		tsinstance.getVenue().setMaxSeatsPerCustomer(8);
+		SeatHold s1 = tsinstance.findAndHoldSeats(5, "someemail");
+		tsinstance.reserveSeats(s1.getSeatHoldID(), "someemail");
+		tsinstance.findAndHoldSeats(2, "SomeEmail");
+		
+		assertNull(tsinstance.findAndHoldSeats(2, "someemail"));
+		assertTrue(tsinstance.isOverCustomerLimit(2, "someemail"));
+		assertNotNull(tsinstance.findAndHoldSeats(1, "someemail"));
+		assertNotNull(tsinstance.findAndHoldSeats(8, "otheremail"));
+	}
+	
+	@Test
+	public void findAndHoldSeats_HoldRemovedAtLimit_SeatsFreedForCustomer() {
+		tsinstance.getVenue().setMaxSeatsPerCustomer(5);
+		SeatHold s = new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(1, 2, 3, 4, 5)), "someemail", LocalDateTime.now());
+		tsinstance.getVenue().addHold(s);
+		assertNull(tsinstance.findAndHoldSeats(1, "someemail"));
+		
+		tsinstance.getVenue().removeHold(s);
+		
+		assertEquals(0, tsinstance.getVenue().getCustomers().getNoOfSeats("someemail"));
+		assertNotNull(tsinstance.findAndHoldSeats(5, "someemail"));
+	}
+	
+	@Test
+	public void cancelReservation_ReservationMade_SeatsAvailableAgain() {
+		SeatHold s = tsinstance.findAndHoldSeats(5, "someemail");
+		String code = tsinstance.reserveSeats(s.getSeatHoldID(), "someemail");
+		assertEquals(s.getSeatIDsHeld(), tsinstance.findReservation(code).get().getSeatIDsReserved());
+		
+		assertEquals(tsinstance.getVenue().getReservationCancelledMessage(), tsinstance.cancelReservation(code));
+		
+		assertEquals(50, tsinstance.numSeatsAvailable());
+		assertFalse(tsinstance.findReservation(code).isPresent());
+		assertEquals(0, tsinstance.getVenue().getNoOfReservations());
+		assertEquals(1, tsinstance.getMetrics().getReservationsCancelled());
+		assertEquals(s.getSeatIDsHeld(), tsinstance.findAndHoldSeats(5, "otheremail").getSeatIDsHeld());
+	}
+	
+	@Test
+	public void cancelReservation_UnknownOrAlreadyCancelled_ReservationNotFound() {
+		String code = tsinstance.reserveSeats(tsinstance.findAndHoldSeats(5, "someemail").getSeatHoldID(), "someemail");
+		tsinstance.cancelReservation(code);
+		
+		assertEquals(tsinstance.getVenue().getReservationNotFoundMessage(), tsinstance.cancelReservation(code));
+		assertEquals(tsinstance.getVenue().getReservationNotFoundMessage(), tsinstance.cancelReservation("ABCD1234"));
+		assertEquals(50, tsinstance.numSeatsAvailable());
+	}
+	
+	@Test
+	public void cancelReservation_CustomerAtLimit_SeatsCountedAgain() {
+		tsinstance.getVenue().setMaxSeatsPerCustomer(5);
+		String code = tsinstance.reserveSeats(tsinstance.findAndHoldSeats(5, "someemail").getSeatHoldID(), "someemail");
+		assertNull(tsinstance.findAndHoldSeats(1, "someemail"));
+		
+		tsinstance.cancelReservation(code);
+		
+		assertNotNull(tsinstance.findAndHoldSeats(5, "someemail"));
+	}
 }
@@ -0,0 +1,142 @@
+package ak.maven;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * This class contains junit test cases to test functionality of VenueSnapshotter.java, and recovering a Venue from a snapshot and a log
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class VenueSnapshotterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void recover_SnapshotAndLaterEvents_VenueRebuilt() throws IOException {
+		Path logDirectory = folder.newFolder("wal").toPath();
+		Path snapshotDirectory = folder.newFolder("snapshots").toPath();
+		String confirmationCode;
+		int keptHoldID, laterHoldID;
+
+		try(WriteAheadLog log = new WriteAheadLog(logDirectory, 1 << 20);
+				VenueSnapshotter snapshots = new VenueSnapshotter(snapshotDirectory, log, () -> new Venue(50))) {
+			Venue venue = new Venue(50);
+			venue.recover(log, snapshots);
+			try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+				SeatHold reserved = tsinstance.findAndHoldSeats(3, "someemail");
+				keptHoldID = tsinstance.findAndHoldSeats(2, "someemail").getSeatHoldID();
+				confirmationCode = tsinstance.reserveSeats(reserved.getSeatHoldID(), "someemail");
+
+				long lsn = snapshots.takeSnapshot();
+				assertEquals(log.getDurableLsn(), lsn);
+
+				SeatHold given = tsinstance.findAndHoldSeats(4, "someemail");
+				venue.removeHold(given);
+				laterHoldID = tsinstance.findAndHoldSeats(1, "otheremail").getSeatHoldID();
+			}
+		}
+
+		try(WriteAheadLog log = new WriteAheadLog(logDirectory, 1 << 20);
+				VenueSnapshotter snapshots = new VenueSnapshotter(snapshotDirectory, log, () -> new Venue(50))) {
+			Venue venue = new Venue(50);
+			venue.recover(log, snapshots);
+
+			assertEquals(44, venue.getNoOfSeatsAvailable());
+			assertEquals(1, venue.getNoOfReservations());
+			assertEquals(confirmationCode, venue.getReservations().get(0).getReservationID());
+			assertTrue(venue.getSeatStates().isReserved(3));
+			assertTrue(venue.getSeatHoldByID(keptHoldID).isPresent());
+			assertTrue(venue.getSeatHoldByID(laterHoldID).isPresent());
+			assertEquals("otheremail", venue.getSeatHoldByID(laterHoldID).get().getCustomerEmail());
+		}
+	}
+
+	@Test
+	public void recover_CodesIssuedBeforeSnapshot_NotIssuedAgain() throws IOException {
+		Path logDirectory = folder.newFolder("wal").toPath();
+		Path snapshotDirectory = folder.newFolder("snapshots").toPath();
+		String cancelledCode;
+		long key;
+
+		try(WriteAheadLog log = new WriteAheadLog(logDirectory, 64);
+				VenueSnapshotter snapshots = new VenueSnapshotter(snapshotDirectory, log, () -> new Venue(50))) {
+			Venue venue = new Venue(50);
+			venue.recover(log, snapshots);
+			key = venue.getConfirmationCodes().getKey();
+			try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+				cancelledCode = tsinstance.reserveSeats(tsinstance.findAndHoldSeats(3, "someemail").getSeatHoldID(), "someemail");
+				tsinstance.cancelReservation(cancelledCode);
+				snapshots.takeSnapshot();   // the key and the cancelled reservation are only in the snapshot from now on
+			}
+		}
+
+		try(WriteAheadLog log = new WriteAheadLog(logDirectory, 64);
+				VenueSnapshotter snapshots = new VenueSnapshotter(snapshotDirectory, log, () -> new Venue(50))) {
+			Venue venue = new Venue(50);
+			venue.recover(log, snapshots);
+			assertEquals(key, venue.getConfirmationCodes().getKey());
+			assertEquals(1, venue.getConfirmationCodes().getNoOfCodesIssued());
+			assertNotEquals(cancelledCode, venue.nextConfirmationCode());
+		}
+	}
+
+	@Test
+	public void takeSnapshot_ManySegments_CoveredSegmentsDeleted() throws IOException {
+		Path logDirectory = folder.newFolder("wal").toPath();
+		Path snapshotDirectory = folder.newFolder("snapshots").toPath();
+
+		try(WriteAheadLog log = new WriteAheadLog(logDirectory, 128);
+				VenueSnapshotter snapshots = new VenueSnapshotter(snapshotDirectory, log, () -> new Venue(500))) {
+			Venue venue = new Venue(500);
+			venue.recover(log, snapshots);
+			for(int i = 1; i <= 100; i++) {
+				venue.awaitDurable(venue.addReservation(new Reservation("CODE" + i, new ArrayList<Integer>(Arrays.asList(i)), "someemail", LocalDateTime.now()), 0));
+			}
+			int segmentsBefore = logDirectory.toFile().list().length;
+			snapshots.takeSnapshot();
+
+			assertTrue(logDirectory.toFile().list().length < segmentsBefore);
+			assertEquals(1, snapshotDirectory.toFile().list().length);
+		}
+
+		try(WriteAheadLog log = new WriteAheadLog(logDirectory, 128);
+				VenueSnapshotter snapshots = new VenueSnapshotter(snapshotDirectory, log, () -> new Venue(500))) {
+			Venue venue = new Venue(500);
+			venue.recover(log, snapshots);
+
+			assertEquals(400, venue.getNoOfSeatsAvailable());
+			assertEquals(100, venue.getNoOfReservations());
+			assertTrue(venue.getSeatStates().isReserved(100));
+			assertTrue(venue.getSeatStates().isFree(101));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void loadLatest_SnapshotDamaged_IOException() throws IOException {
+		Path snapshotDirectory = folder.newFolder("snapshots").toPath();
+
+		try(WriteAheadLog log = new WriteAheadLog(folder.newFolder("wal").toPath(), 1 << 20);
+				VenueSnapshotter snapshots = new VenueSnapshotter(snapshotDirectory, log, () -> new Venue(50))) {
+			Venue venue = new Venue(50);
+			venue.recover(log, snapshots);
+			venue.awaitDurable(venue.addReservation(new Reservation("CODE", new ArrayList<Integer>(Arrays.asList(1, 2)), "someemail", LocalDateTime.now()), 0));
+			snapshots.takeSnapshot();
+
+			Path snapshot = snapshotDirectory.resolve(snapshotDirectory.toFile().list()[0]);
+			try(FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+				channel.truncate(channel.size() - 1);
+			}
+			snapshots.loadLatest(new Venue(50));
+		}
+	}
+}
@@ -11,7 +11,7 @@ import org.junit.Before;
 /**
  * This class contains junit test cases to test functionality mainly of Venue.java
  * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
- * @Before is used to initialize an instance of TicketServiceImplementor.java before ever test case, and using @After, it's set to null after each test
+ * @Before is used to initialize an instance of TicketServiceImplementor.java before ever test case, and using @After, it's closed and set to null after each test
  */
 public class VenueTest {
 	
@@ -24,6 +24,7 @@ public class VenueTest {
 	
 	@After
     public void tearDown() {
+		tsinstance.close();
 		tsinstance = null;
     }
 	
@@ -67,4 +68,104 @@ public class VenueTest {
 		tsinstance.getVenue().addReservation(new Reservation("1asdgdw34", new ArrayList<Integer>(Arrays.asList(1, 2, 3, 4, 5)), "someemail", LocalDateTime.now()));
 		assertEquals(1, tsinstance.getVenue().getReservations().size());
 	}
+	
+	@Test
+	public void addReservation_CodeAlreadyInUse_ReservationRefused() {
+		Venue venue = tsinstance.getVenue();
+		assertTrue(venue.addReservation(new Reservation("1asdgdw34", new ArrayList<Integer>(Arrays.asList(1, 2)), "someemail", LocalDateTime.now())));
+		assertFalse(venue.addReservation(new Reservation("1asdgdw34", new ArrayList<Integer>(Arrays.asList(3, 4)), "otheremail", LocalDateTime.now())));
+		assertEquals("someemail", venue.getReservationByCode("1asdgdw34").get().getCustomerEmail());
+		assertTrue(venue.getSeatStates().isFree(3));
+		assertEquals(48, venue.getNoOfSeatsAvailable());
+	}
+	
+	@Test
+	public void addHold_ValidHold_SeatsMarkedHeld() {
+		tsinstance.getVenue().addHold(new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(1, 2, 3)), "someemail", LocalDateTime.now()));
+		assertTrue(tsinstance.getVenue().getSeatStates().isHeld(2));
+		assertEquals(47, tsinstance.getVenue().getNoOfSeatsAvailable());
+	}
+	
+	@Test
+	public void removeHold_ValidHoldRemoval_SeatsFreedUp() {
+		tsinstance.getVenue().addHold(new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(1, 2, 3)), "someemail", LocalDateTime.now()));
+		tsinstance.getVenue().removeHold(tsinstance.getVenue().getSeatHoldByID(123456).get());
+		assertTrue(tsinstance.getVenue().getSeatStates().isFree(2));
+		assertEquals(50, tsinstance.getVenue().getNoOfSeatsAvailable());
+	}
+	
+	@Test
+	public void addReservation_HeldSeatsReserved_SeatsMarkedReservedAndCountUnchanged() {
+		tsinstance.getVenue().addHold(new SeatHold(123456, new ArrayList<Integer>(Arrays.asList(1, 2, 3)), "someemail", LocalDateTime.now()));
+		tsinstance.getVenue().addReservation(new Reservation("1asdgdw34", new ArrayList<Integer>(Arrays.asList(1, 2, 3)), "someemail", LocalDateTime.now()));
+		assertTrue(tsinstance.getVenue().getSeatStates().isReserved(3));
+		assertEquals(47, tsinstance.getVenue().getNoOfSeatsAvailable());
+	}
+	
+	@Test
+	public void getSeatsChart_SectionsGiven_SeatsRankedByQualityThenRow() {
+		Venue venue = new Venue(Arrays.asList(new Section("Balcony", 20, 10, 1), new Section("Orchestra", 30, 10, 5)));
+		assertEquals(1, venue.getSeatsChart()[20].getRank());
+		assertEquals("Orchestra", venue.getSeatsChart()[20].getSectionName());
+		assertEquals(3, venue.getSeatsChart()[49].getRowNumber());
+		assertEquals(31, venue.getSeatsChart()[0].getRank());
+		assertEquals(50, venue.getNoOfSeats());
+	}
+	
+	@Test
+	public void findAndHoldSeats_SectionsGiven_BestSectionHeldFirst() {
+		TicketServiceImplementor sectioned = new TicketServiceImplementor(new Venue(Arrays.asList(new Section("Balcony", 20, 10, 1), new Section("Orchestra", 30, 10, 5))));
+		SeatHold s = sectioned.findAndHoldSeats(4, "someemail");
+		sectioned.close();
+		assertEquals(Arrays.asList(21, 22, 23, 24), s.getSeatIDsHeld());
+		assertEquals(26, sectioned.getVenue().getNoOfSeatsAvailable("Orchestra"));
+		assertEquals(20, sectioned.getVenue().getNoOfSeatsAvailable("Balcony"));
+	}
+	
+	@Test
+	public void findAndHoldSeats_BestSectionSoldOut_NextSectionHeld() {
+		TicketServiceImplementor sectioned = new TicketServiceImplementor(new Venue(Arrays.asList(new Section("Balcony", 20, 10, 1), new Section("Orchestra", 30, 10, 5))));
+		sectioned.findAndHoldSeats(30, "someemail");
+		SeatHold s = sectioned.findAndHoldSeats(3, "someemail");
+		sectioned.close();
+		assertEquals(0, sectioned.getVenue().getNoOfSeatsAvailable("Orchestra"));
+		assertEquals(Arrays.asList(1, 2, 3), s.getSeatIDsHeld());
+	}
+	
+	@Test
+	public void findAndHoldSeats_NoRowFitsParty_SeatsTakenInRankingOrder() {
+		TicketServiceImplementor sectioned = new TicketServiceImplementor(new Venue(Arrays.asList(new Section("Balcony", 4, 2, 1), new Section("Orchestra", 4, 2, 5))));
+		SeatHold s = sectioned.findAndHoldSeats(5, "someemail");
+		sectioned.close();
+		assertEquals(Arrays.asList(5, 6, 7, 8, 1), s.getSeatIDsHeld());
+	}
+
+	@Test
+	public void getAvailability_NothingChanged_SameSnapshotShared() {
+		Venue venue = new Venue(Arrays.asList(new Section("Balcony", 20, 10, 1), new Section("Orchestra", 30, 10, 5)));
+		AvailabilitySnapshot first = venue.getAvailability();
+		assertSame(first, venue.getAvailability());
+		assertEquals(50, first.getSeatsAvailable());
+		assertEquals(30, first.getSeatsAvailable("Orchestra"));
+	}
+
+	@Test
+	public void getAvailability_SeatsHeldAndReleased_NewVersionEachTime() {
+		TicketServiceImplementor sectioned = new TicketServiceImplementor(new Venue(Arrays.asList(new Section("Balcony", 20, 10, 1), new Section("Orchestra", 30, 10, 5))));
+		AvailabilitySnapshot before = sectioned.getAvailability();
+		
+		SeatHold s = sectioned.findAndHoldSeats(4, "someemail");
+		AvailabilitySnapshot held = sectioned.getAvailability();
+		sectioned.getVenue().removeHold(s);
+		AvailabilitySnapshot released = sectioned.getAvailability();
+		
+		assertEquals(46, held.getSeatsAvailable());
+		assertEquals(26, held.getSeatsAvailable("Orchestra"));
+		assertEquals(50, released.getSeatsAvailable());
+		assertNotEquals(before.getVersion(), held.getVersion());
+		assertNotEquals(held.getVersion(), released.getVersion());
+		assertNotEquals(before.getVersion(), released.getVersion());
+		assertEquals(50, before.getSeatsAvailable());   // snapshots don't change once taken
+		sectioned.close();
+	}
 }
@@ -0,0 +1,172 @@
+package ak.maven;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class contains junit test cases to test functionality mainly of Waitlist.java, through TicketServiceImplementor.waitForSeats
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class WaitlistTest {
+
+	private ManualHoldClock clock;
+	private TicketServiceImplementor t;
+
+	@Before
+	public void setUp() {
+		clock = new ManualHoldClock(1000000);
+		t = new TicketServiceImplementor(new Venue(10, 250, clock), false);
+	}
+
+	@After
+	public void tearDown() {
+		t.close();
+	}
+
+	@Test
+	public void waitForSeats_SeatsFree_HeldStraightAway() {
+		CompletableFuture<SeatHold> f = t.waitForSeats(4, "someemail");
+		assertTrue(f.isDone());
+		assertEquals(4, f.join().getSeatIDsHeld().size());
+		assertTrue(t.getWaitlist().isEmpty());
+	}
+
+	@Test
+	public void waitForSeats_SoldOutThenHoldExpires_HoldGrantedWithoutRetrying() {
+		t.findAndHoldSeats(10, "first");
+		CompletableFuture<SeatHold> f = t.waitForSeats(3, "second");
+		assertFalse(f.isDone());
+
+		clock.advance(t.getVenue().getHoldTimeout() * 1000L + t.getVenue().getHoldExpiryTickInMillis() + 1);
+		t.checkAndRemoveExpiredHolds();
+
+		assertTrue(f.isDone());
+		assertEquals("second", f.join().getCustomerEmail());
+		assertTrue(t.isValidHoldID(f.join().getSeatHoldID()));
+		assertEquals(7, t.numSeatsAvailable());
+	}
+
+	@Test
+	public void waitForSeats_ReservationCancelled_HoldGranted() {
+		String code = t.reserveSeats(t.findAndHoldSeats(4, "first").getSeatHoldID(), "first");
+		t.findAndHoldSeats(6, "other");
+		CompletableFuture<SeatHold> f = t.waitForSeats(4, "second");   // only waits for seats that aren't reserved
+
+		t.cancelReservation(code);
+
+		assertEquals(4, f.join().getSeatIDsHeld().size());
+		assertEquals(0, t.numSeatsAvailable());
+	}
+
+	@Test
+	public void waitForSeats_LargePartyAtHead_NotPassedOverBySmallerOnes() {
+		SeatHold a = t.findAndHoldSeats(6, "a");
+		SeatHold b = t.findAndHoldSeats(4, "b");
+		CompletableFuture<SeatHold> large = t.waitForSeats(8, "large");
+		CompletableFuture<SeatHold> small = t.waitForSeats(2, "small");
+
+		t.getVenue().removeHold(a);   // 6 seats freed: not enough for the head, and not handed to the one behind it
+
+		assertFalse(large.isDone());
+		assertFalse(small.isDone());
+		assertNull(t.findAndHoldSeats(2, "direct"));   // freed seats are kept for the line
+		assertEquals(2, t.getWaitlist().getNoOfRequests());
+
+		t.getVenue().removeHold(b);
+
+		assertEquals("large", large.join().getCustomerEmail());
+		assertEquals(8, large.join().getSeatIDsHeld().size());
+		assertEquals(2, small.join().getSeatIDsHeld().size());
+		assertTrue(t.getWaitlist().isEmpty());
+	}
+
+	@Test
+	public void findAndHoldSeats_EnoughSeatsBeyondHeadOfLine_HeldStraightAway() {
+		SeatHold a = t.findAndHoldSeats(6, "a");
+		t.findAndHoldSeats(4, "b");
+		CompletableFuture<SeatHold> f = t.waitForSeats(5, "waiting");
+		t.getVenue().removeHold(a);   // 6 seats freed: 5 go to the line, and 1 is left over
+
+		assertEquals(5, f.join().getSeatIDsHeld().size());
+		assertNotNull(t.findAndHoldSeats(1, "direct"));
+	}
+
+	@Test
+	public void findAndHoldSeats_SeatsFreeButNeededByHeadOfLine_Refused() {
+		SeatHold a = t.findAndHoldSeats(3, "a");
+		t.findAndHoldSeats(7, "b");
+		CompletableFuture<SeatHold> f = t.waitForSeats(5, "waiting");
+		t.getVenue().removeHold(a);
+
+		assertFalse(f.isDone());
+		assertNull(t.findAndHoldSeats(1, "direct"));   // the 3 free seats are kept towards the 5 the head needs
+	}
+
+	@Test
+	public void waitForSeats_CustomerAlreadyWaiting_CompletedWithNull() {
+		t.findAndHoldSeats(10, "first");
+		CompletableFuture<SeatHold> f = t.waitForSeats(2, "second");
+		assertNull(t.waitForSeats(2, "SECOND").join());
+		assertFalse(f.isDone());
+		assertEquals(1, t.getWaitlist().getNoOfRequests());
+	}
+
+	@Test
+	public void waitForSeats_MoreSeatsThanUnreserved_CompletedWithNull() {
+		t.reserveSeats(t.findAndHoldSeats(4, "first").getSeatHoldID(), "first");
+		CompletableFuture<SeatHold> f = t.waitForSeats(7, "second");
+		assertTrue(f.isDone());
+		assertNull(f.join());
+	}
+
+	@Test
+	public void waitForSeats_HeadWaitsTooLong_TurnedAwayAndLineFreed() {
+		SeatHold old = t.findAndHoldSeats(10, "first");
+		CompletableFuture<SeatHold> f = t.waitForSeats(6, "second");
+		assertFalse(f.isDone());
+
+		clock.advance(20000);
+		t.getVenue().takeHold(old.getSeatHoldID());   // the seats stay held, by a newer hold that outlasts the wait
+		t.getVenue().addHold(new SeatHold(123456, old.getSeatIDsHeld(), "other", LocalDateTime.now()));
+		clock.advance(t.getVenue().getMaxWaitAtHeadOfWaitlist() * 1000L - 20000);
+		t.checkAndRemoveExpiredHolds();
+
+		assertNull(f.join());
+		assertTrue(t.getWaitlist().isEmpty());
+	}
+
+	@Test
+	public void waitForSeats_MoreSeatsThanVenue_CompletedWithNull() {
+		CompletableFuture<SeatHold> f = t.waitForSeats(11, "someemail");
+		assertTrue(f.isDone());
+		assertNull(f.join());
+	}
+
+	@Test
+	public void waitForSeats_CancelledWhileWaiting_DroppedAndNextServed() {
+		t.findAndHoldSeats(10, "first");
+		CompletableFuture<SeatHold> gaveUp = t.waitForSeats(5, "gaveup");
+		CompletableFuture<SeatHold> next = t.waitForSeats(5, "next");
+		gaveUp.cancel(false);
+
+		clock.advance(t.getVenue().getHoldTimeout() * 1000L + t.getVenue().getHoldExpiryTickInMillis() + 1);
+		t.checkAndRemoveExpiredHolds();
+
+		assertEquals("next", next.join().getCustomerEmail());
+		assertEquals(5, t.numSeatsAvailable());
+		assertTrue(t.getWaitlist().isEmpty());
+	}
+
+	@Test
+	public void close_RequestsWaiting_CompletedWithNull() {
+		t.findAndHoldSeats(10, "first");
+		CompletableFuture<SeatHold> f = t.waitForSeats(1, "second");
+		t.close();
+		assertNull(f.join());
+	}
+}
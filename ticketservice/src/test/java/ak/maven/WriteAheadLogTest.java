@@ -0,0 +1,296 @@
+package ak.maven;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * This class contains junit test cases to test functionality of WriteAheadLog.java, and recovering a Venue from it
+ * The test method names follow a pattern: methodNameBeingTested_Condition_ExpectedOutcome
+ */
+public class WriteAheadLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void replay_RecordsAppended_RecordsReadBackInOrder() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			log.appendHold(new SeatHold(111111, new ArrayList<Integer>(Arrays.asList(1, 2, 3)), "someemail", LocalDateTime.now()), 1000L);
+			log.appendExpire(111111);
+			long lsn = log.appendReserve(222222, new Reservation("ABCD1234", new ArrayList<Integer>(Arrays.asList(4, 5)), "otheremail", LocalDateTime.now()), 2000L);
+			log.awaitDurable(lsn);
+		}
+
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			log.replay(0, records::add);
+		}
+
+		assertEquals(3, records.size());
+		assertEquals(LogRecord.Type.HOLD, records.get(0).getType());
+		assertEquals(Arrays.asList(1, 2, 3), records.get(0).getSeatNumbersAsList());
+		assertEquals("someemail", records.get(0).getCustomerEmail());
+		assertEquals(1000L, records.get(0).getTimestampInMillis());
+		assertEquals(LogRecord.Type.EXPIRE, records.get(1).getType());
+		assertEquals(111111, records.get(1).getSeatHoldID());
+		assertEquals(LogRecord.Type.RESERVE, records.get(2).getType());
+		assertEquals("ABCD1234", records.get(2).getConfirmationCode());
+		assertEquals(222222, records.get(2).getSeatHoldID());
+	}
+
+	@Test
+	public void replay_RecordsSpanSegments_EverySegmentRead() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try(WriteAheadLog log = new WriteAheadLog(directory, 64)) {
+			for(int i = 1; i <= 50; i++) {
+				log.awaitDurable(log.appendRelease(i));
+			}
+		}
+
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		try(WriteAheadLog log = new WriteAheadLog(directory, 64)) {
+			log.replay(0, records::add);
+		}
+
+		assertTrue(folder.getRoot().list().length > 1);
+		assertEquals(50, records.size());
+		assertEquals(50, records.get(49).getSeatHoldID());
+	}
+
+	@Test(expected = IOException.class)
+	public void WriteAheadLog_SegmentMissing_IOException() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try(WriteAheadLog log = new WriteAheadLog(directory, 64)) {
+			for(int i = 1; i <= 50; i++) {
+				log.awaitDurable(log.appendRelease(i));
+			}
+		}
+
+		String[] segments = folder.getRoot().list();
+		Arrays.sort(segments);
+		Files.delete(directory.resolve(segments[1]));   // as if its directory entry never made it to disk
+
+		new WriteAheadLog(directory, 64).close();
+	}
+
+	@Test
+	public void WriteAheadLog_TornRecordAtEnd_RecordCutOff() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		long firstLsn;
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			firstLsn = log.appendExpire(111111);
+			log.awaitDurable(log.appendExpire(222222));
+		}
+
+		Path segment = directory.resolve(folder.getRoot().list()[0]);
+		try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 2);  // as if the machine went down halfway through the second record
+		}
+
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			assertEquals(firstLsn, log.getDurableLsn());
+			log.awaitDurable(log.appendExpire(333333));
+			log.replay(0, records::add);
+		}
+
+		assertEquals(2, records.size());
+		assertEquals(111111, records.get(0).getSeatHoldID());
+		assertEquals(333333, records.get(1).getSeatHoldID());
+		assertEquals(Files.size(segment), records.get(1).getLsn());
+	}
+
+	@Test
+	public void awaitDurable_ManyThreadsWaiting_SyncsShared() throws Exception {
+		int noOfThreads = 16, recordsPerThread = 50;
+		try(WriteAheadLog log = new WriteAheadLog(folder.getRoot().toPath(), 1 << 20)) {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Thread> threads = new ArrayList<Thread>();
+			for(int t = 0; t < noOfThreads; t++) {
+				Thread thread = new Thread(() -> {
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					for(int i = 0; i < recordsPerThread; i++) {
+						log.awaitDurable(log.appendExpire(i));
+					}
+				});
+				thread.start();
+				threads.add(thread);
+			}
+			start.countDown();
+			for(Thread thread : threads) {
+				thread.join();
+			}
+
+			assertEquals(log.getAppendedLsn(), log.getDurableLsn());
+			assertTrue(log.getNoOfSyncs() < noOfThreads * recordsPerThread);
+		}
+	}
+
+	@Test
+	public void recover_HoldsAndReservationsLogged_VenueRebuilt() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		String confirmationCode;
+		int keptHoldID;
+
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			Venue venue = new Venue(50);
+			venue.recover(log);
+			try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+				SeatHold reserved = tsinstance.findAndHoldSeats(3, "someemail");
+				SeatHold kept = tsinstance.findAndHoldSeats(2, "someemail");
+				SeatHold given = tsinstance.findAndHoldSeats(4, "someemail");
+				confirmationCode = tsinstance.reserveSeats(reserved.getSeatHoldID(), "someemail");
+				venue.removeHold(given);
+				keptHoldID = kept.getSeatHoldID();
+			}
+		}
+
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			Venue venue = new Venue(50);
+			venue.recover(log);
+
+			assertEquals(45, venue.getNoOfSeatsAvailable());
+			assertEquals(1, venue.getNoOfReservations());
+			assertEquals(confirmationCode, venue.getReservations().get(0).getReservationID());
+			assertTrue(venue.getSeatStates().isReserved(1));
+			assertTrue(venue.getSeatHoldByID(keptHoldID).isPresent());
+			assertTrue(venue.getSeatStates().isHeld(4));
+			assertTrue(venue.getSeatStates().isFree(6));
+		}
+	}
+
+	@Test
+	public void recover_ReservationCancelled_SeatsFreeAfterRecovery() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		String cancelledCode, keptCode;
+
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			Venue venue = new Venue(50);
+			venue.recover(log);
+			try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+				cancelledCode = tsinstance.reserveSeats(tsinstance.findAndHoldSeats(3, "someemail").getSeatHoldID(), "someemail");
+				keptCode = tsinstance.reserveSeats(tsinstance.findAndHoldSeats(2, "someemail").getSeatHoldID(), "someemail");
+				assertEquals(venue.getReservationCancelledMessage(), tsinstance.cancelReservation(cancelledCode));
+			}
+		}
+
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			Venue venue = new Venue(50);
+			venue.recover(log);
+
+			assertEquals(48, venue.getNoOfSeatsAvailable());
+			assertFalse(venue.getReservationByCode(cancelledCode).isPresent());
+			assertTrue(venue.getReservationByCode(keptCode).isPresent());
+			assertTrue(venue.getSeatStates().isFree(1));
+			assertEquals(2, venue.getCustomers().getNoOfSeatsReserved("someemail"));
+		}
+	}
+
+	@Test
+	public void recover_CodesIssuedBeforeRestart_NotIssuedAgain() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Set<String> codes = new HashSet<String>();
+
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			Venue venue = new Venue(50);
+			venue.recover(log);
+			try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+				for(int i = 0; i < 3; i++) {
+					codes.add(tsinstance.reserveSeats(tsinstance.findAndHoldSeats(2, "someemail").getSeatHoldID(), "someemail"));
+				}
+				tsinstance.cancelReservation(codes.iterator().next());
+			}
+		}
+
+		try(WriteAheadLog log = new WriteAheadLog(directory, 1 << 20)) {
+			Venue venue = new Venue(50);
+			venue.recover(log);
+			assertEquals(3, venue.getConfirmationCodes().getNoOfCodesIssued());
+			try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+				for(int i = 0; i < 3; i++) {
+					assertTrue(codes.add(tsinstance.reserveSeats(tsinstance.findAndHoldSeats(2, "someemail").getSeatHoldID(), "someemail")));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void reserveSeats_LogFailsBeforeReservationDurable_ReservationTakenBackAndLogFailsFast() throws IOException {
+		Path directory = folder.newFolder("failing").toPath();
+		WriteAheadLog log = new WriteAheadLog(directory, 1);   // a new segment after every write, which fails once the directory is gone
+		Venue venue = new Venue(50);
+		TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue);
+		SeatHold s = tsinstance.findAndHoldSeats(3, "someemail");
+		venue.recover(log);
+		try(DirectoryStream<Path> segments = Files.newDirectoryStream(directory)) {
+			for(Path segment : segments) {
+				Files.delete(segment);
+			}
+		}
+		Files.delete(directory);
+
+		try {
+			tsinstance.reserveSeats(s.getSeatHoldID(), "someemail");
+			fail();
+		}
+		catch (UncheckedIOException ex) {
+			// no confirmation code is given out
+		}
+		assertEquals(50, tsinstance.numSeatsAvailable());
+		assertEquals(0, venue.getReservations().size());
+		assertEquals(0, venue.getCustomers().getNoOfSeats("someemail"));
+
+		try {
+			tsinstance.findAndHoldSeats(3, "someemail");
+			fail();
+		}
+		catch (UncheckedIOException ex) {
+			// turned away straight away, instead of piling up in the log's buffer
+		}
+		assertEquals(50, tsinstance.numSeatsAvailable());
+		tsinstance.close();
+		try {
+			log.close();
+		}
+		catch (IOException ex) {
+			// the failure is reported again on close
+		}
+	}
+
+	@Test
+	public void reserveSeats_BatchOnLoggedVenue_WholeBatchDurableOnReturn() throws IOException {
+		try(WriteAheadLog log = new WriteAheadLog(folder.getRoot().toPath(), 1 << 20)) {
+			Venue venue = new Venue(50);
+			venue.recover(log);
+			try(TicketServiceImplementor tsinstance = new TicketServiceImplementor(venue)) {
+				List<ReserveRequest> requests = new ArrayList<ReserveRequest>();
+				for(SeatHold hold : tsinstance.findAndHoldSeats(Arrays.asList(new HoldRequest(2, "a"), new HoldRequest(3, "b"), new HoldRequest(4, "c")))) {
+					requests.add(new ReserveRequest(hold.getSeatHoldID(), hold.getCustomerEmail()));
+				}
+				tsinstance.reserveSeats(requests);
+
+				assertEquals(log.getAppendedLsn(), log.getDurableLsn());
+				assertEquals(3, venue.getNoOfReservations());
+			}
+		}
+	}
+}